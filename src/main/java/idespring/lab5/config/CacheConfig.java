@@ -8,6 +8,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -47,7 +48,7 @@ public class CacheConfig<K, V> {
     }
 
     public void put(K key, V value) {
-        CacheEntry<V> entry = new CacheEntry<>(value);
+        CacheEntry<V> entry = new CacheEntry<>(value, ReplicaRoutingDataSource.freshUntil());
 
         synchronized (lock) {
             if (cache.containsKey(key)) {
@@ -71,6 +72,9 @@ public class CacheConfig<K, V> {
         if (entry == null) {
             return null;
         }
+        if (!ReplicaRoutingDataSource.isServable(entry.getFreshUntil())) {
+            return null;
+        }
 
         entry.updateAccessTime();
         synchronized (lock) {
@@ -88,6 +92,13 @@ public class CacheConfig<K, V> {
         }
     }
 
+    public void removeIf(Predicate<? super K> filter) {
+        synchronized (lock) {
+            cache.keySet().removeIf(filter);
+            accessOrder.removeIf(filter);
+        }
+    }
+
     public int size() {
         return cache.size();
     }
@@ -101,7 +112,8 @@ public class CacheConfig<K, V> {
         List<K> expiredKeys = new ArrayList<>();
 
         for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
-            if (now - entry.getValue().getCreationTime() > maxAgeInMillis) {
+            if (now - entry.getValue().getCreationTime() > maxAgeInMillis
+                    || now > entry.getValue().getFreshUntil()) {
                 expiredKeys.add(entry.getKey());
             }
         }
@@ -114,11 +126,13 @@ public class CacheConfig<K, V> {
     private static class CacheEntry<V> {
         private final V value;
         private final long creationTime;
+        private final long freshUntil;
         private long lastAccessTime;
 
-        public CacheEntry(V value) {
+        public CacheEntry(V value, long freshUntil) {
             this.value = value;
             this.creationTime = System.currentTimeMillis();
+            this.freshUntil = freshUntil;
             this.lastAccessTime = this.creationTime;
         }
 
@@ -130,6 +144,10 @@ public class CacheConfig<K, V> {
             return creationTime;
         }
 
+        public long getFreshUntil() {
+            return freshUntil;
+        }
+
         public long getLastAccessTime() {
             return lastAccessTime;
         }
@@ -0,0 +1,28 @@
+package idespring.lab5.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on JDBC batching for Hibernate inserts and updates. {@code ids.allocation-size} must
+ * match the INCREMENT BY of the id sequences; Hibernate refuses to start when they differ.
+ */
+@Configuration
+public class JpaBatchingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer(
+            @Value("${jpa.batch-size:50}") int batchSize,
+            @Value("${ids.allocation-size:50}") int allocationSize) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+            properties.put(AvailableSettings.BATCH_VERSIONED_DATA, true);
+            properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, allocationSize);
+        };
+    }
+}
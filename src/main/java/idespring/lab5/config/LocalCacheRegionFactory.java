@@ -0,0 +1,145 @@
+package idespring.lab5.config;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.ExtendedStatisticsSupport;
+import org.hibernate.cache.spi.support.DomainDataRegionImpl;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+
+/**
+ * Second-level cache regions held in this JVM's heap. Each region keeps at most
+ * {@code maxEntries} entries; once full, an arbitrary entry makes room for the new one, which
+ * is good enough for the small reference tables cached here.
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+    private final int maxEntries;
+
+    public LocalCacheRegionFactory(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public DomainDataRegion buildDomainDataRegion(DomainDataRegionConfig regionConfig,
+                                                  DomainDataRegionBuildingContext context) {
+        verifyStarted();
+        return new Region(regionConfig, this, new Storage(maxEntries), context);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return new Storage(maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return new Storage(maxEntries);
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    // Implementing ExtendedStatisticsSupport lets Hibernate's region statistics report sizes.
+    private static final class Region extends DomainDataRegionImpl
+            implements ExtendedStatisticsSupport {
+        private final Storage storage;
+
+        Region(DomainDataRegionConfig regionConfig, LocalCacheRegionFactory factory,
+               Storage storage, DomainDataRegionBuildingContext context) {
+            super(regionConfig, factory, storage, factory.getImplicitCacheKeysFactory(), context);
+            this.storage = storage;
+        }
+
+        @Override
+        public long getElementCountInMemory() {
+            return storage.entries.size();
+        }
+
+        @Override
+        public long getElementCountOnDisk() {
+            return 0;
+        }
+
+        @Override
+        public long getSizeInMemory() {
+            return CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN;
+        }
+    }
+
+    private static final class Storage implements DomainDataStorageAccess {
+        private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+        private final int maxEntries;
+
+        Storage(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            Object value = entries.get(key);
+            if (value instanceof ReplicaValue replicaValue) {
+                return ReplicaRoutingDataSource.isServable(replicaValue.freshUntil())
+                        ? replicaValue.value()
+                        : null;
+            }
+            return value;
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value,
+                                 SharedSessionContractImplementor session) {
+            long freshUntil = ReplicaRoutingDataSource.freshUntil();
+            if (freshUntil != Long.MAX_VALUE) {
+                value = new ReplicaValue(value, freshUntil);
+            }
+            if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+                Iterator<Object> keys = entries.keySet().iterator();
+                if (keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+            entries.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return getFromCache(key, null) != null;
+        }
+
+        @Override
+        public void evictData() {
+            entries.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void release() {
+            entries.clear();
+        }
+    }
+
+    // A value read on a replica, kept only while it is within the replica lag bound.
+    private record ReplicaValue(Object value, long freshUntil) {
+    }
+}
@@ -0,0 +1,35 @@
+package idespring.lab5.config;
+
+import idespring.lab5.model.PooledSequence;
+import java.util.Properties;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String ALLOCATION_SIZE = "idespring.lab5.id.allocation_size";
+    private static final String DEFAULT_ALLOCATION_SIZE = "50";
+
+    private final String sequenceName;
+
+    public PooledSequenceGenerator(PooledSequence config) {
+        this.sequenceName = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        Object allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSettings().get(ALLOCATION_SIZE);
+
+        Properties properties = new Properties();
+        properties.putAll(parameters);
+        properties.put(SEQUENCE_PARAM, sequenceName);
+        properties.put(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        properties.put(INCREMENT_PARAM, allocationSize != null
+                ? allocationSize.toString()
+                : DEFAULT_ALLOCATION_SIZE);
+        super.configure(type, properties, serviceRegistry);
+    }
+}
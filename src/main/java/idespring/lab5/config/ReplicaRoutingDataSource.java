@@ -0,0 +1,237 @@
+package idespring.lab5.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to a healthy replica, round robin, and everything
+ * else to the primary. A replica is healthy when its last check succeeded and it was at most
+ * {@code maxLagMillis} behind; with none healthy, reads fall back to the primary. Threads
+ * pinned with {@link #pinToPrimary} always use the primary, which is how a client reads its
+ * own writes. Shared caches keep values read on a replica only until {@link #freshUntil} and
+ * never serve them to pinned threads, so a cached value is no staler than a replica read.
+ *
+ * <p>The read-only flag is only known once the transaction has started, so this must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    static final String PRIMARY = "primary";
+    // Zero on a primary, and on a replica that has replayed everything it received; otherwise
+    // the age of the last replayed transaction.
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 "
+            + "AS bigint) END";
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final Object REPLICA_READ = new Object();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecks;
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMillis) {
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        if (!replicas.isEmpty()) {
+            logger.info("Cached values read from replicas expire after {} ms and are not served "
+                    + "to clients pinned to the primary", maxLagMillis);
+        }
+    }
+
+    /**
+     * Routes every connection the current thread opens to the primary while {@code pinned}.
+     */
+    public static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PINNED.set(Boolean.TRUE);
+        } else {
+            PINNED.remove();
+        }
+    }
+
+    /**
+     * Runs {@code action} with the current thread pinned to the primary. Rebuilds of in-memory
+     * state go through here: a lagging replica would drop recent writes from them.
+     */
+    public static void onPrimary(Runnable action) {
+        boolean pinned = PINNED.get() != null;
+        pinToPrimary(true);
+        try {
+            action.run();
+        } finally {
+            pinToPrimary(pinned);
+        }
+    }
+
+    /**
+     * Whether the current transaction was routed to a replica.
+     */
+    public static boolean isReplicaRead() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    /**
+     * Until when a value read in the current transaction is within the replica lag bound;
+     * {@link Long#MAX_VALUE} when it came from the primary.
+     */
+    public static long freshUntil() {
+        Object lagBound = TransactionSynchronizationManager.getResource(REPLICA_READ);
+        return lagBound != null
+                ? System.currentTimeMillis() + (Long) lagBound
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether a cached value stamped with {@link #freshUntil} may be served to the current
+     * thread. Pinned threads only see values read on the primary.
+     */
+    public static boolean isServable(long freshUntil) {
+        return freshUntil == Long.MAX_VALUE
+                || PINNED.get() == null && System.currentTimeMillis() <= freshUntil;
+    }
+
+    public void startHealthChecks(long intervalMillis) {
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, 0, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measures every replica's lag once and updates which of them take reads.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long lag;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                lag = rs.getLong(1);
+            } catch (SQLException e) {
+                lag = -1;
+            }
+            replica.update(lag, maxLagMillis);
+        }
+    }
+
+    public List<ReplicaStatus> getReplicaStatus() {
+        return replicas.stream()
+                .map(replica -> new ReplicaStatus(replica.name, replica.usable, replica.lagMillis))
+                .toList();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PINNED.get() != null || replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.usable) {
+                markReplicaRead(maxLagMillis);
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private static void markReplicaRead(long lagBound) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, lagBound);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+            }
+        });
+    }
+
+    /**
+     * Stops the health checks and closes the primary and replica pools.
+     */
+    @Override
+    public void close() throws Exception {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            closePool(replica.dataSource);
+        }
+        closePool(primary);
+    }
+
+    private static void closePool(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Last check of a replica; a lag of -1 means it could not be reached.
+     */
+    public record ReplicaStatus(String name, boolean usable, long lagMillis) {
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean usable;
+        private volatile long lagMillis = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void update(long lag, long maxLagMillis) {
+            boolean nowUsable = lag >= 0 && lag <= maxLagMillis;
+            if (nowUsable != usable) {
+                if (nowUsable) {
+                    logger.info("Replica {} takes reads again, {} ms behind", name, lag);
+                } else if (lag < 0) {
+                    logger.warn("Replica {} is unreachable, taking it out of rotation", name);
+                } else {
+                    logger.warn("Replica {} is {} ms behind, taking it out of rotation", name,
+                            lag);
+                }
+            }
+            lagMillis = lag;
+            usable = nowUsable;
+        }
+    }
+}
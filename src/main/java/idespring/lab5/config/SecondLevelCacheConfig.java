@@ -0,0 +1,30 @@
+package idespring.lab5.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Hibernate's second-level cache for the entities and collections annotated with
+ * {@code @Cache}: subjects, groups and each student's subjects. Region statistics are collected
+ * for the {@code hibernatecache} actuator endpoint unless {@code jpa.cache.statistics} is false.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${jpa.cache.enabled:true}") boolean enabled,
+            @Value("${jpa.cache.max-entries:10000}") int maxEntries,
+            @Value("${jpa.cache.statistics:true}") boolean statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY,
+                        new LocalCacheRegionFactory(maxEntries));
+            }
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package idespring.lab5.config;
+
+import idespring.lab5.dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hit, miss and put counts of the second-level cache regions, at
+ * {@code /actuator/hibernatecache}. Expose it with
+ * {@code management.endpoints.web.exposure.include=hibernatecache}.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+public class SecondLevelCacheEndpoint {
+    private final Statistics statistics;
+
+    @Autowired
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public List<CacheRegionStats> regions() {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(this::stats)
+                .toList();
+    }
+
+    /**
+     * A single region, or 404 when there is no region of that name.
+     */
+    @ReadOperation
+    public CacheRegionStats region(@Selector String name) {
+        return stats(name);
+    }
+
+    private CacheRegionStats stats(String name) {
+        if (!Arrays.asList(statistics.getSecondLevelCacheRegionNames()).contains(name)) {
+            return null;
+        }
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+        return new CacheRegionStats(name, region.getHitCount(), region.getMissCount(),
+                region.getPutCount(), region.getElementCountInMemory());
+    }
+}
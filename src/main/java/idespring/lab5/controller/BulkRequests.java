@@ -0,0 +1,111 @@
+package idespring.lab5.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.dto.BulkJob;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
+import idespring.lab5.service.jobservice.BulkJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves the bulk endpoints. Synchronously, the response is a JSON array with one entry per
+ * chunk, written as soon as the chunk commits: {@code {"chunk":0,"offset":0,"created":[...]}}.
+ * Nothing is written until the first chunk succeeds, so a bad first chunk gets the usual
+ * error response; a later failure is reported as {@code {"chunk":n,"offset":m,"error":"..."}}.
+ * With {@code async=true} the body is handed to a background job and the response is
+ * 202 Accepted with the job and its location under {@code /jobs}.
+ */
+@Component
+public class BulkRequests {
+    private final BulkChunkProcessor bulkChunkProcessor;
+    private final BulkJobService bulkJobService;
+    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(BulkRequests.class);
+
+    @Autowired
+    public BulkRequests(BulkChunkProcessor bulkChunkProcessor, BulkJobService bulkJobService,
+                        ObjectMapper objectMapper) {
+        this.bulkChunkProcessor = bulkChunkProcessor;
+        this.bulkJobService = bulkJobService;
+        this.objectMapper = objectMapper;
+    }
+
+    public <T, R> void process(String kind, boolean async, HttpServletRequest request,
+                               HttpServletResponse response, Class<T> type,
+                               Function<List<T>, List<R>> handler) throws IOException {
+        if (async) {
+            BulkJob job = bulkJobService.submit(kind, request.getInputStream(), type, handler);
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.LOCATION, "/jobs/" + job.getId());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), job);
+            return;
+        }
+
+        ResponseWriter<R> writer = new ResponseWriter<>(response);
+        bulkChunkProcessor.process(request.getInputStream(), type, handler, writer);
+        writer.finish();
+    }
+
+    private final class ResponseWriter<R> implements BulkChunkProcessor.ChunkListener<R> {
+        private final HttpServletResponse response;
+        private JsonGenerator json;
+
+        ResponseWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void committed(int chunk, long offset, int size, List<R> created)
+                throws IOException {
+            start();
+            json.writeStartObject();
+            json.writeNumberField("chunk", chunk);
+            json.writeNumberField("offset", offset);
+            json.writeFieldName("created");
+            json.writeObject(created);
+            json.writeEndObject();
+            json.flush();
+        }
+
+        @Override
+        public void failed(int chunk, long offset, RuntimeException error) throws IOException {
+            if (json == null) {
+                throw error;
+            }
+            logger.error("Bulk chunk {} at offset {} failed", chunk, offset, error);
+            json.writeStartObject();
+            json.writeNumberField("chunk", chunk);
+            json.writeNumberField("offset", offset);
+            json.writeStringField("error", error.getMessage());
+            json.writeEndObject();
+        }
+
+        void finish() throws IOException {
+            start();
+            json.writeEndArray();
+            json.close();
+        }
+
+        private void start() throws IOException {
+            if (json != null) {
+                return;
+            }
+            response.setStatus(HttpStatus.CREATED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            json = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            json.writeStartArray();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package idespring.lab5.controller.eventcontroller;
+
+import idespring.lab5.dto.StudentReadModel;
+import idespring.lab5.dto.SubjectReadModel;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkReadModelService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Validated
+@RestController
+@RequestMapping("/events")
+public class EventLogController {
+    private final MarkReadModelService markReadModelService;
+
+    @Autowired
+    public EventLogController(MarkReadModelService markReadModelService) {
+        this.markReadModelService = markReadModelService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<MarkEvent>> getEvents(
+            @RequestParam(defaultValue = "0") @PositiveOrZero long from,
+            @RequestParam(defaultValue = "1000") @Positive @Max(10_000) int limit) {
+        return ResponseEntity.ok(markReadModelService.readEvents(from, limit));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuild() {
+        return ResponseEntity.ok(Map.of("events", markReadModelService.rebuild()));
+    }
+
+    @GetMapping("/students/{studentId}")
+    public ResponseEntity<StudentReadModel> getStudent(@PathVariable @Positive Long studentId) {
+        return ResponseEntity.ok(markReadModelService.getStudent(studentId));
+    }
+
+    @GetMapping("/subjects/{subjectId}")
+    public ResponseEntity<SubjectReadModel> getSubject(@PathVariable @Positive Long subjectId) {
+        return ResponseEntity.ok(markReadModelService.getSubject(subjectId));
+    }
+}
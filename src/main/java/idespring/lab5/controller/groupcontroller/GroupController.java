@@ -1,15 +1,19 @@
 package idespring.lab5.controller.groupcontroller;
 
+import idespring.lab5.controller.BulkRequests;
+import idespring.lab5.controller.PageResponses;
 import idespring.lab5.exceptions.ValidationException;
 import idespring.lab5.model.Group;
 import idespring.lab5.service.groupservice.GroupService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,41 +23,31 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/groups")
 public class GroupController {
     private final GroupService groupService;
+    private final BulkRequests bulkRequests;
     private static final String STUDIDERR = "studentIds";
 
     @Autowired
-    public GroupController(GroupService groupService) {
+    public GroupController(GroupService groupService, BulkRequests bulkRequests) {
         this.groupService = groupService;
+        this.bulkRequests = bulkRequests;
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<List<Group>>
-        createGroupsBulk(@RequestBody List<Map<String, Object>> requests) {
-        List<Group> createdGroups = requests.stream()
-                .map(request -> {
-                    if (!request.containsKey("name") || !(request.get("name") instanceof String)
-                            || ((String) request.get("name")).isBlank()) {
-                        throw new ValidationException(
-                                "Поле 'name' обязательно и не может быть пустым");
-                    }
-
-                    if (!request.containsKey(STUDIDERR)
-                            || !(request.get(STUDIDERR) instanceof List)) {
-                        throw new ValidationException(
-                                "Поле 'studentIds' обязательно и должно быть списком чисел");
-                    }
-
-                    String name = (String) request.get("name");
-                    List<Integer> studentIds = (List<Integer>) request.get(STUDIDERR);
-                    return groupService.addGroup(name, studentIds);
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdGroups);
+    public void createGroupsBulk(@RequestParam(defaultValue = "false") boolean async,
+                                 HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        bulkRequests.process("groups", async, request, response, Map.class,
+                requests -> requests.stream()
+                        .map(this::addGroup)
+                        .toList());
     }
 
     @PostMapping
     public ResponseEntity<Group> createGroup(@RequestBody Map<String, Object> request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(addGroup(request));
+    }
+
+    private Group addGroup(Map<String, Object> request) {
         if (!request.containsKey("name") || !(request.get("name") instanceof String)
                 || ((String) request.get("name")).isBlank()) {
             throw new ValidationException("Поле 'name' обязательно и не может быть пустым");
@@ -67,14 +61,19 @@ public class GroupController {
         String name = (String) request.get("name");
         List<Integer> studentIds = (List<Integer>) request.get(STUDIDERR);
 
-        Group group = groupService.addGroup(name, studentIds);
-        return ResponseEntity.status(HttpStatus.CREATED).body(group);
+        return groupService.addGroup(name, studentIds);
     }
 
     @GetMapping
     public ResponseEntity<List<Group>> getGroups(
             @RequestParam(required = false) String namePattern,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (PageResponses.requested(cursor, limit)) {
+            return PageResponses.of(groupService.readGroupsPage(namePattern, sort, cursor,
+                    PageResponses.limit(limit)));
+        }
         List<Group> groups = groupService.readGroups(namePattern, sort);
         return !groups.isEmpty()
                 ? ResponseEntity.ok(groups)
@@ -0,0 +1,78 @@
+package idespring.lab5.controller.importcontroller;
+
+import idespring.lab5.dto.ImportStatus;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.service.importservice.ImportKind;
+import idespring.lab5.service.importservice.ImportService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/imports")
+public class ImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    // A raw text/csv body is streamed straight into the pipeline and is not subject to the
+    // multipart size limits, so it is the preferred way to upload large files.
+    @PostMapping(value = "/{kind}", consumes = TEXT_CSV)
+    public ResponseEntity<ImportStatus> importCsv(@PathVariable String kind, InputStream body) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(importService.importCsv(parseKind(kind), body, "upload"));
+    }
+
+    @PostMapping(value = "/{kind}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportStatus> importFile(@PathVariable String kind,
+                                                   @RequestParam("file") MultipartFile file)
+            throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(importService.importCsv(parseKind(kind), input,
+                            file.getOriginalFilename()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportStatus>> getImports() {
+        return ResponseEntity.ok(importService.getRecentImports());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportStatus> getImport(@PathVariable String id) {
+        return ResponseEntity.ok(importService.getImport(id));
+    }
+
+    @GetMapping(value = "/{id}/rejected", produces = TEXT_CSV)
+    public ResponseEntity<Resource> getRejectedRows(@PathVariable String id) {
+        return ResponseEntity.ok(new FileSystemResource(importService.getRejectedFile(id)));
+    }
+
+    private static ImportKind parseKind(String kind) {
+        try {
+            return ImportKind.valueOf(kind.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown import kind: " + kind);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package idespring.lab5.controller.jobcontroller;
+
+import idespring.lab5.dto.BulkJob;
+import idespring.lab5.service.jobservice.BulkJobService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/jobs")
+public class JobController {
+    private static final long EVENTS_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private final BulkJobService bulkJobService;
+
+    @Autowired
+    public JobController(BulkJobService bulkJobService) {
+        this.bulkJobService = bulkJobService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BulkJob>> getJobs() {
+        return ResponseEntity.ok(bulkJobService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BulkJob> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(bulkJobService.getJob(id));
+    }
+
+    // Sends a "progress" event after every committed chunk and completes the stream once the
+    // job has finished.
+    @GetMapping("/{id}/events")
+    public SseEmitter streamJob(@PathVariable String id) {
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MILLIS);
+        Consumer<BulkJob> listener = job -> {
+            try {
+                emitter.send(SseEmitter.event().name("progress").id(job.getId()).data(job));
+                if (job.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        emitter.onCompletion(() -> bulkJobService.unsubscribe(id, listener));
+        emitter.onTimeout(() -> bulkJobService.unsubscribe(id, listener));
+        emitter.onError(error -> bulkJobService.unsubscribe(id, listener));
+
+        bulkJobService.subscribe(id, listener);
+        return emitter;
+    }
+}
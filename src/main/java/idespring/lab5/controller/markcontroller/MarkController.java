@@ -1,14 +1,24 @@
 package idespring.lab5.controller.markcontroller;
 
+import idespring.lab5.controller.BulkRequests;
+import idespring.lab5.controller.PageResponses;
+import idespring.lab5.dto.BatchAverages;
 import idespring.lab5.model.Mark;
 import idespring.lab5.service.markservice.MarkService;
+import idespring.lab5.service.markservice.MarkWriteBehindBuffer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -19,29 +29,44 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/marks")
 public class MarkController {
     private final MarkService markService;
+    private final BulkRequests bulkRequests;
+    private final ObjectProvider<MarkWriteBehindBuffer> writeBehindBuffer;
+    private static final int MAX_BATCH_IDS = 5000;
 
-    public MarkController(MarkService markService) {
+    public MarkController(MarkService markService, BulkRequests bulkRequests,
+                          ObjectProvider<MarkWriteBehindBuffer> writeBehindBuffer) {
         this.markService = markService;
+        this.bulkRequests = bulkRequests;
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<List<Mark>> createMarksBulk(@RequestBody List<Mark> marks) {
-        List<Mark> createdMarks = marks.stream()
-                .map(markService::addMark)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdMarks);
+    public void createMarksBulk(@RequestParam(defaultValue = "false") boolean async,
+                                HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        bulkRequests.process("marks", async, request, response, Mark.class,
+                markService::addMarks);
     }
 
     @PostMapping
     public ResponseEntity<Mark> createMark(@Valid @RequestBody Mark mark) {
+        MarkWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(buffer.submit(mark));
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(markService.addMark(mark));
     }
 
     @GetMapping
-    public ResponseEntity<Set<Mark>> getMarks(
+    public ResponseEntity<? extends Collection<Mark>> getMarks(
             @RequestParam(required = false) @Positive Long studentId,
-            @RequestParam(required = false) @Positive Long subjectId) {
+            @RequestParam(required = false) @Positive Long subjectId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (PageResponses.requested(cursor, limit)) {
+            return PageResponses.of(markService.readMarksPage(studentId, subjectId, cursor,
+                    PageResponses.limit(limit)));
+        }
         Set<Mark> marks = new HashSet<>(markService.readMarks(studentId, subjectId));
         return marks.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
@@ -74,6 +99,18 @@ public class MarkController {
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    @PostMapping("/average/students")
+    public ResponseEntity<BatchAverages> getAverageMarksByStudents(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_IDS) List<@NotNull @Positive Long> ids) {
+        return ResponseEntity.ok(markService.getAverageMarksByStudentIds(ids));
+    }
+
+    @PostMapping("/average/subjects")
+    public ResponseEntity<BatchAverages> getAverageMarksBySubjects(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_IDS) List<@NotNull @Positive Long> ids) {
+        return ResponseEntity.ok(markService.getAverageMarksBySubjectIds(ids));
+    }
+
     @DeleteMapping("/delete-specific")
     public ResponseEntity<String> deleteSpecificMark(
             @RequestParam @Positive Long studentId,
@@ -0,0 +1,108 @@
+package idespring.lab5.controller.markcontroller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.dto.MarkExportRow;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.service.markservice.MarkExportService;
+import jakarta.validation.constraints.Positive;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Validated
+@RestController
+@RequestMapping("/marks")
+public class MarkExportController {
+    private static final String CSV_HEADER = "id,value,studentId,subjectId\n";
+
+    private final MarkExportService markExportService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public MarkExportController(MarkExportService markExportService, ObjectMapper objectMapper) {
+        this.markExportService = markExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMarks(
+            @RequestParam(required = false) @Positive Long studentId,
+            @RequestParam(required = false) @Positive Long subjectId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new ValidationException("Unsupported export format: " + format);
+        };
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out) : out;
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(target, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(CSV_HEADER);
+                markExportService.exportMarks(studentId, subjectId, row -> writeCsv(writer, row));
+                writer.flush();
+            } else {
+                try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+                    json.setRootValueSeparator(null);
+                    markExportService.exportMarks(studentId, subjectId,
+                            row -> writeJson(json, row));
+                }
+            }
+            writer.close();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=marks." + (csv ? "csv" : "ndjson"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private static void writeJson(JsonGenerator json, MarkExportRow row) {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", row.id());
+            json.writeNumberField("value", row.value());
+            json.writeNumberField("studentId", row.studentId());
+            json.writeNumberField("subjectId", row.subjectId());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(Writer writer, MarkExportRow row) {
+        try {
+            writer.write(row.id() + "," + row.value() + "," + row.studentId() + ","
+                    + row.subjectId() + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package idespring.lab5.controller.searchcontroller;
+
+import idespring.lab5.dto.Completion;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Type-ahead over group, subject and student names, served from memory. At most
+ * {@code search.name-index.top-k} completions are kept per prefix, so larger limits are
+ * capped at that.
+ */
+@Validated
+@RestController
+@RequestMapping("/autocomplete")
+public class AutocompleteController {
+    private final NameIndex nameIndex;
+
+    @Autowired
+    public AutocompleteController(NameIndex nameIndex) {
+        this.nameIndex = nameIndex;
+    }
+
+    @GetMapping("/{kind}")
+    public ResponseEntity<List<Completion>> complete(
+            @PathVariable String kind,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") @Positive @Max(100) int limit) {
+        return ResponseEntity.ok(nameIndex.complete(parseKind(kind), prefix, limit));
+    }
+
+    private static NameKind parseKind(String kind) {
+        try {
+            return NameKind.valueOf(kind.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown name kind: " + kind
+                    + ", expected group, subject or student");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package idespring.lab5.controller.statcontroller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.dto.PivotRow;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.service.statservice.AggregateMetric;
+import idespring.lab5.service.statservice.AggregationPlan;
+import idespring.lab5.service.statservice.MarkAggregationService;
+import idespring.lab5.service.statservice.MarkPivotService;
+import idespring.lab5.service.statservice.StatisticsScope;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Validated
+@RestController
+@RequestMapping("/marks")
+public class MarkAggregationController {
+    private final MarkAggregationService markAggregationService;
+    private final MarkPivotService markPivotService;
+    private final ObjectMapper objectMapper;
+    private static final int MAX_FILTER_IDS = 5000;
+
+    @Autowired
+    public MarkAggregationController(MarkAggregationService markAggregationService,
+                                     MarkPivotService markPivotService,
+                                     ObjectMapper objectMapper) {
+        this.markAggregationService = markAggregationService;
+        this.markPivotService = markPivotService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/aggregate")
+    public ResponseEntity<StreamingResponseBody> aggregate(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(defaultValue = "count,avg") List<String> metrics,
+            @RequestParam(required = false) Set<Long> studentIds,
+            @RequestParam(required = false) Set<Long> subjectIds,
+            @RequestParam(required = false) Set<Long> groupIds,
+            @RequestParam(required = false) @Min(1) @Max(10) Integer minValue,
+            @RequestParam(required = false) @Min(1) @Max(10) Integer maxValue) {
+        if (minValue != null && maxValue != null && minValue > maxValue) {
+            throw new ValidationException("minValue must not be greater than maxValue");
+        }
+        checkSize("studentIds", studentIds);
+        checkSize("subjectIds", subjectIds);
+        checkSize("groupIds", groupIds);
+
+        Set<StatisticsScope> dimensions = EnumSet.noneOf(StatisticsScope.class);
+        dimensions.addAll(parse(groupBy, StatisticsScope.class, "groupBy"));
+        List<AggregateMetric> columns = parse(metrics, AggregateMetric.class, "metrics");
+        if (columns.isEmpty()) {
+            throw new ValidationException("At least one metric is required");
+        }
+
+        MarkFilter filter = new MarkFilter(studentIds, subjectIds, groupIds, minValue, maxValue);
+        AggregationPlan plan = markAggregationService.plan(filter, dimensions);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("columns");
+                for (StatisticsScope dimension : dimensions) {
+                    json.writeString(dimension.name().toLowerCase(Locale.ROOT));
+                }
+                for (AggregateMetric metric : columns) {
+                    json.writeString(metric.name().toLowerCase(Locale.ROOT));
+                }
+                json.writeEndArray();
+
+                json.writeArrayFieldStart("rows");
+                markAggregationService.aggregate(filter, dimensions, plan,
+                        (key, aggregate) -> writeRow(json, dimensions, columns, key, aggregate));
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Aggregate-Plan", plan.name())
+                .body(body);
+    }
+
+    @GetMapping("/pivot")
+    public ResponseEntity<StreamingResponseBody> pivot(
+            @RequestParam(required = false) @Positive Long groupId) {
+        List<Long> subjectIds = markPivotService.getPivotSubjects(groupId);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("subjects");
+                for (Long subjectId : subjectIds) {
+                    json.writeNumber(subjectId);
+                }
+                json.writeEndArray();
+
+                json.writeArrayFieldStart("rows");
+                markPivotService.forEachPivotRow(groupId, subjectIds,
+                        row -> writePivotRow(json, row));
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static void writePivotRow(JsonGenerator json, PivotRow row) {
+        try {
+            json.writeStartArray();
+            json.writeNumber(row.studentId());
+            for (Double average : row.averages()) {
+                json.writeObject(average);
+            }
+            json.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeRow(JsonGenerator json, Set<StatisticsScope> dimensions,
+                                 List<AggregateMetric> metrics, AggregateKey key,
+                                 MarkAggregate aggregate) {
+        try {
+            json.writeStartArray();
+            for (StatisticsScope dimension : dimensions) {
+                Long id = switch (dimension) {
+                    case STUDENT -> key.studentId();
+                    case SUBJECT -> key.subjectId();
+                    case GROUP -> key.groupId();
+                };
+                json.writeObject(id);
+            }
+            for (AggregateMetric metric : metrics) {
+                json.writeObject(metric.of(aggregate));
+            }
+            json.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void checkSize(String name, Set<Long> ids) {
+        if (ids != null && ids.size() > MAX_FILTER_IDS) {
+            throw new ValidationException(name + " accepts at most " + MAX_FILTER_IDS + " ids");
+        }
+    }
+
+    private static <E extends Enum<E>> List<E> parse(List<String> names, Class<E> type,
+                                                     String parameter) {
+        Set<E> values = new LinkedHashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                try {
+                    values.add(Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new ValidationException("Unknown " + parameter + " value: " + name);
+                }
+            }
+        }
+        return new ArrayList<>(values);
+    }
+}
@@ -0,0 +1,128 @@
+package idespring.lab5.controller.statcontroller;
+
+import idespring.lab5.dto.LeaderboardPage;
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.RankedStudent;
+import idespring.lab5.service.statservice.MarkStatisticsService;
+import idespring.lab5.service.statservice.StatisticsScope;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@RestController
+@RequestMapping("/marks")
+public class MarkStatisticsController {
+    private final MarkStatisticsService markStatisticsService;
+    private static final int MAX_PAGE = 500;
+
+    @Autowired
+    public MarkStatisticsController(MarkStatisticsService markStatisticsService) {
+        this.markStatisticsService = markStatisticsService;
+    }
+
+    @GetMapping("/distribution/student/{studentId}")
+    public ResponseEntity<MarkDistribution> getStudentDistribution(
+            @Positive @NotNull @PathVariable Long studentId) {
+        return distribution(StatisticsScope.STUDENT, studentId);
+    }
+
+    @GetMapping("/distribution/subject/{subjectId}")
+    public ResponseEntity<MarkDistribution> getSubjectDistribution(
+            @Positive @NotNull @PathVariable Long subjectId) {
+        return distribution(StatisticsScope.SUBJECT, subjectId);
+    }
+
+    @GetMapping("/distribution/group/{groupId}")
+    public ResponseEntity<MarkDistribution> getGroupDistribution(
+            @Positive @NotNull @PathVariable Long groupId) {
+        return distribution(StatisticsScope.GROUP, groupId);
+    }
+
+    @GetMapping("/percentile/student/{studentId}")
+    public ResponseEntity<Integer> getStudentPercentile(
+            @Positive @NotNull @PathVariable Long studentId,
+            @RequestParam(defaultValue = "50") @DecimalMin("0") @DecimalMax("100") double p) {
+        return percentile(StatisticsScope.STUDENT, studentId, p);
+    }
+
+    @GetMapping("/percentile/subject/{subjectId}")
+    public ResponseEntity<Integer> getSubjectPercentile(
+            @Positive @NotNull @PathVariable Long subjectId,
+            @RequestParam(defaultValue = "50") @DecimalMin("0") @DecimalMax("100") double p) {
+        return percentile(StatisticsScope.SUBJECT, subjectId, p);
+    }
+
+    @GetMapping("/percentile/group/{groupId}")
+    public ResponseEntity<Integer> getGroupPercentile(
+            @Positive @NotNull @PathVariable Long groupId,
+            @RequestParam(defaultValue = "50") @DecimalMin("0") @DecimalMax("100") double p) {
+        return percentile(StatisticsScope.GROUP, groupId, p);
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<LeaderboardPage> getLeaderboard(
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE) int limit) {
+        return ResponseEntity.ok(markStatisticsService.getTopStudents(offset, limit));
+    }
+
+    @GetMapping("/leaderboard/subject/{subjectId}")
+    public ResponseEntity<LeaderboardPage> getSubjectLeaderboard(
+            @Positive @NotNull @PathVariable Long subjectId,
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE) int limit) {
+        return ResponseEntity.ok(markStatisticsService.getTopStudents(
+                StatisticsScope.SUBJECT, subjectId, offset, limit));
+    }
+
+    @GetMapping("/leaderboard/group/{groupId}")
+    public ResponseEntity<LeaderboardPage> getGroupLeaderboard(
+            @Positive @NotNull @PathVariable Long groupId,
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE) int limit) {
+        return ResponseEntity.ok(markStatisticsService.getTopStudents(
+                StatisticsScope.GROUP, groupId, offset, limit));
+    }
+
+    @GetMapping("/leaderboard/rank/{studentId}")
+    public ResponseEntity<RankedStudent> getStudentRank(
+            @Positive @NotNull @PathVariable Long studentId,
+            @RequestParam(required = false) @Positive Long subjectId,
+            @RequestParam(required = false) @Positive Long groupId) {
+        RankedStudent rank;
+        if (subjectId != null) {
+            rank = markStatisticsService.getStudentRank(
+                    StatisticsScope.SUBJECT, subjectId, studentId);
+        } else if (groupId != null) {
+            rank = markStatisticsService.getStudentRank(StatisticsScope.GROUP, groupId, studentId);
+        } else {
+            rank = markStatisticsService.getStudentRank(studentId);
+        }
+        return rank != null
+                ? ResponseEntity.ok(rank)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    private ResponseEntity<MarkDistribution> distribution(StatisticsScope scope, Long id) {
+        MarkDistribution distribution = markStatisticsService.getDistribution(scope, id);
+        return distribution.count() > 0
+                ? ResponseEntity.ok(distribution)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    private ResponseEntity<Integer> percentile(StatisticsScope scope, Long id, double p) {
+        Integer value = markStatisticsService.getPercentile(scope, id, p);
+        return value != null
+                ? ResponseEntity.ok(value)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+}
@@ -1,12 +1,18 @@
 package idespring.lab5.controller.studentcontroller;
 
+import idespring.lab5.controller.BulkRequests;
+import idespring.lab5.controller.PageResponses;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.model.Student;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
 import idespring.lab5.service.studservice.StudentServ;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,19 +24,26 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/students")
 public class StudentController {
     private final StudentServ studentService;
+    private final BulkRequests bulkRequests;
 
     @Autowired
-    public StudentController(StudentServ studentService) {
+    public StudentController(StudentServ studentService, BulkRequests bulkRequests) {
         this.studentService = studentService;
+        this.bulkRequests = bulkRequests;
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<List<Student>> createStudentsBulk(@RequestBody List<Student> students) {
-        List<Student> createdStudents = students.stream()
-                .map(studentService::addStudent)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdStudents);
+    public void createStudentsBulk(@RequestParam(defaultValue = "false") boolean async,
+                                   @RequestParam(defaultValue = "false") boolean parallel,
+                                   HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        // The parallel writer commits its own chunks; marks are rejected there, create them
+        // through /marks/bulk once the students exist.
+        bulkRequests.process("students", async, request, response, Student.class, parallel
+                ? BulkChunkProcessor.selfCommitting(studentService::addStudents)
+                : students -> students.stream()
+                        .map(studentService::addStudent)
+                        .toList());
     }
 
     @PostMapping
@@ -39,33 +52,52 @@ public class StudentController {
     }
 
     @GetMapping("/{studentId}")
-    public ResponseEntity<Student> getStudentById(@Positive @NotNull @PathVariable Long studentId) {
-        Student student = studentService.findById(studentId);
+    public ResponseEntity<StudentView> getStudentById(
+            @Positive @NotNull @PathVariable Long studentId) {
+        StudentView student = studentService.findById(studentId);
         return ResponseEntity.ok(student);
     }
 
     @GetMapping
-    public ResponseEntity<List<Student>> getStudents(
+    public ResponseEntity<List<StudentView>> getStudents(
             @RequestParam(required = false) Integer age,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) Long id) {
-        List<Student> students = studentService.readStudents(age, sort, id);
+            @RequestParam(required = false) Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view) {
+        if (id == null && PageResponses.requested(cursor, limit)) {
+            return PageResponses.of(studentService.readStudentsPage(age, sort, cursor,
+                    PageResponses.limit(limit), view));
+        }
+        List<StudentView> students = studentService.readStudents(age, sort, id, view);
         return students.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(students);
     }
 
     @GetMapping("/group/{groupId}")
-    public ResponseEntity<List<Student>>
-        getStudentsByGroup(@Positive @NotNull @PathVariable Long groupId) {
-        List<Student> students = studentService.findByGroupId(groupId);
+    public ResponseEntity<List<StudentView>>
+        getStudentsByGroup(@Positive @NotNull @PathVariable Long groupId,
+                           @RequestParam(required = false) String view) {
+        List<StudentView> students = studentService.findByGroupId(groupId, view);
+        return students.isEmpty()
+                ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
+                : ResponseEntity.ok(students);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<StudentView>> searchStudents(
+            @RequestParam String namePattern,
+            @RequestParam(required = false) String view) {
+        List<StudentView> students = studentService.searchByName(namePattern, view);
         return students.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(students);
     }
 
     @PutMapping("/{studentId}")
-    public ResponseEntity<Student> updateStudent(
+    public ResponseEntity<StudentView> updateStudent(
             @Positive @NotNull @PathVariable Long studentId,
             @RequestParam(required = false, defaultValue = "unknown") String name,
             @Positive @RequestParam(required = false, defaultValue = "15") int age) {
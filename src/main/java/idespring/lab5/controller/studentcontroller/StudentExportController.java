@@ -0,0 +1,112 @@
+package idespring.lab5.controller.studentcontroller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.dto.StudentExportRow;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.service.studservice.StudentExportService;
+import jakarta.validation.constraints.Positive;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Validated
+@RestController
+@RequestMapping("/students")
+public class StudentExportController {
+    private static final String CSV_HEADER = "id,name,age,groupId\n";
+
+    private final StudentExportService studentExportService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public StudentExportController(StudentExportService studentExportService,
+                                   ObjectMapper objectMapper) {
+        this.studentExportService = studentExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(required = false) @Positive Long groupId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new ValidationException("Unsupported export format: " + format);
+        };
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out) : out;
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(target, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(CSV_HEADER);
+                studentExportService.exportStudents(groupId, row -> writeCsv(writer, row));
+                writer.flush();
+            } else {
+                try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+                    json.setRootValueSeparator(null);
+                    studentExportService.exportStudents(groupId, row -> writeJson(json, row));
+                }
+            }
+            writer.close();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=students." + (csv ? "csv" : "ndjson"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private static void writeJson(JsonGenerator json, StudentExportRow row) {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", row.id());
+            json.writeStringField("name", row.name());
+            json.writeNumberField("age", row.age());
+            if (row.groupId() != null) {
+                json.writeNumberField("groupId", row.groupId());
+            } else {
+                json.writeNullField("groupId");
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Names are free text, so they are always quoted.
+    private static void writeCsv(Writer writer, StudentExportRow row) {
+        try {
+            writer.write(row.id() + ",\"" + row.name().replace("\"", "\"\"") + "\","
+                    + row.age() + "," + (row.groupId() != null ? row.groupId() : "") + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
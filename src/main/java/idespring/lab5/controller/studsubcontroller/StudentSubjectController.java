@@ -1,8 +1,12 @@
 package idespring.lab5.controller.studsubcontroller;
 
+import idespring.lab5.dto.Enrollment;
+import idespring.lab5.dto.EnrollmentResult;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
 import idespring.lab5.service.studentsubjserv.StudentSubjectService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.util.HashSet;
@@ -28,14 +32,20 @@ public class StudentSubjectController {
     @PostMapping("/bulk")
     public ResponseEntity<Void> addSubjectsToStudentBulk(
             @RequestParam @NotNull @Positive Long studentId,
-            @RequestBody @NotNull List<@Positive Long> subjectIds) {
-        subjectIds.stream()
-                .distinct()
-                .forEach(subjectId ->
-                        studentSubjectService.addSubjectToStudent(studentId, subjectId));
+            @RequestBody @NotNull List<@NotNull @Positive Long> subjectIds) {
+        studentSubjectService.enroll(subjectIds.stream()
+                .map(subjectId -> new Enrollment(studentId, subjectId))
+                .toList());
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    @PostMapping("/enrollments")
+    public ResponseEntity<EnrollmentResult> enroll(
+            @RequestBody @NotNull List<@NotNull @Valid Enrollment> enrollments) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(studentSubjectService.enroll(enrollments));
+    }
+
     @PostMapping
     public ResponseEntity<Void> addSubjectToStudent(
             @RequestParam @NotNull @Positive Long studentId,
@@ -63,9 +73,10 @@ public class StudentSubjectController {
     }
 
     @GetMapping("/{subjectId}/students")
-    public ResponseEntity<Set<Student>>
-        getStudentsBySubject(@PathVariable @NotNull @Positive Long subjectId) {
-        Set<Student> students = studentSubjectService.getStudentsBySubject(subjectId);
+    public ResponseEntity<List<StudentView>>
+        getStudentsBySubject(@PathVariable @NotNull @Positive Long subjectId,
+                             @RequestParam(required = false) String view) {
+        List<StudentView> students = studentSubjectService.getStudentsBySubject(subjectId, view);
         return students.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
                 : ResponseEntity.ok(students);
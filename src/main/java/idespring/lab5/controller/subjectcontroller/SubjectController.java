@@ -1,15 +1,20 @@
 package idespring.lab5.controller.subjectcontroller;
 
+import idespring.lab5.controller.BulkRequests;
+import idespring.lab5.controller.PageResponses;
 import idespring.lab5.model.Subject;
 import idespring.lab5.service.subjectservice.SubjectService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,20 +26,23 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/subjects")
 public class SubjectController {
     private final SubjectService subjectService;
+    private final BulkRequests bulkRequests;
 
     @Autowired
-    public SubjectController(SubjectService subjectService) {
+    public SubjectController(SubjectService subjectService, BulkRequests bulkRequests) {
         this.subjectService = subjectService;
+        this.bulkRequests = bulkRequests;
     }
 
     @PostMapping("/bulk")
-    public ResponseEntity<List<Subject>>
-        createSubjectsBulk(@RequestBody @Valid List<Subject> subjects) {
-        List<Subject> createdSubjects = subjects.stream()
-                .filter(subject -> !subjectService.existsByName(subject.getName()))
-                .map(subjectService::addSubject)
-                .collect(Collectors.toList());
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdSubjects);
+    public void createSubjectsBulk(@RequestParam(defaultValue = "false") boolean async,
+                                   HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        bulkRequests.process("subjects", async, request, response, Subject.class,
+                subjects -> subjects.stream()
+                        .filter(subject -> !subjectService.existsByName(subject.getName()))
+                        .map(subjectService::addSubject)
+                        .toList());
     }
 
     @PostMapping
@@ -46,9 +54,15 @@ public class SubjectController {
     }
 
     @GetMapping
-    public ResponseEntity<Set<Subject>> getSubjects(
+    public ResponseEntity<? extends Collection<Subject>> getSubjects(
             @RequestParam(required = false) String namePattern,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (PageResponses.requested(cursor, limit)) {
+            return PageResponses.of(subjectService.readSubjectsPage(namePattern, sort, cursor,
+                    PageResponses.limit(limit)));
+        }
         Set<Subject> subjects = new HashSet<>(subjectService.readSubjects(namePattern, sort));
         return subjects.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).build()
@@ -0,0 +1,5 @@
+package idespring.lab5.dto;
+
+public record AggregateKey(Long studentId, Long subjectId, Long groupId) {
+    public static final AggregateKey ALL = new AggregateKey(null, null, null);
+}
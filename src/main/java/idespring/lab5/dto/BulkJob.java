@@ -0,0 +1,94 @@
+package idespring.lab5.dto;
+
+/**
+ * Progress of one asynchronous bulk request; updated by the worker thread after every chunk.
+ */
+public class BulkJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String kind;
+    private final long submittedAt = System.currentTimeMillis();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile State state = State.QUEUED;
+    private volatile long processed;
+    private volatile long created;
+    private volatile int chunks;
+    private volatile String error;
+
+    public BulkJob(String id, String kind) {
+        this.id = id;
+        this.kind = kind;
+    }
+
+    public void started() {
+        this.startedAt = System.currentTimeMillis();
+        this.state = State.RUNNING;
+    }
+
+    public void chunkCommitted(int size, int createdInChunk) {
+        this.processed += size;
+        this.created += createdInChunk;
+        this.chunks++;
+    }
+
+    public void completed() {
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.COMPLETED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.FAILED;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getQueuedMillis() {
+        return (startedAt != 0 ? startedAt : System.currentTimeMillis()) - submittedAt;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    public double getThroughput() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? processed * 1000.0 / elapsed : 0;
+    }
+}
@@ -0,0 +1,8 @@
+package idespring.lab5.dto;
+
+public record CacheRegionStats(String region,
+                               long hits,
+                               long misses,
+                               long puts,
+                               long entries) {
+}
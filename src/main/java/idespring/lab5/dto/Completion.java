@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record Completion(Long id, String name, long popularity) {
+}
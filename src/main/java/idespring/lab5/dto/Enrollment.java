@@ -0,0 +1,7 @@
+package idespring.lab5.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record Enrollment(@NotNull @Positive Long studentId, @NotNull @Positive Long subjectId) {
+}
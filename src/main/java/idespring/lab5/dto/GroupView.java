@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record GroupView(Long id, String name) {
+}
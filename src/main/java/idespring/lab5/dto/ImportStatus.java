@@ -0,0 +1,90 @@
+package idespring.lab5.dto;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one CSV import; the counters are updated by the pipeline threads while
+ * the import runs and are final once {@link #getState()} leaves RUNNING.
+ */
+public class ImportStatus {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String kind;
+    private final String source;
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private volatile long rowsImported;
+    private volatile long finishedAt;
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile String rejectedFile;
+
+    public ImportStatus(String id, String kind, String source) {
+        this.id = id;
+        this.kind = kind;
+        this.source = source;
+    }
+
+    public long rowsRead(long count) {
+        return rowsRead.addAndGet(count);
+    }
+
+    public void rowRejected() {
+        rowsRejected.incrementAndGet();
+    }
+
+    public void completed(long imported, String rejectedFile) {
+        this.rowsImported = imported;
+        this.rejectedFile = rejectedFile;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.COMPLETED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getElapsedMillis() {
+        return (state == State.RUNNING ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getRejectedFile() {
+        return rejectedFile;
+    }
+}
@@ -0,0 +1,19 @@
+package idespring.lab5.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+    /**
+     * Trims rows fetched with one extra look-ahead row down to {@code limit} and, when the
+     * look-ahead row exists, points the next cursor at the last row kept.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit,
+                                       Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(List.copyOf(rows), null);
+        }
+        List<T> items = List.copyOf(rows.subList(0, limit));
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+}
@@ -0,0 +1,6 @@
+package idespring.lab5.dto;
+
+import java.util.List;
+
+public record LeaderboardPage(int total, int offset, List<RankedStudent> entries) {
+}
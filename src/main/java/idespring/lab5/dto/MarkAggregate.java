@@ -0,0 +1,30 @@
+package idespring.lab5.dto;
+
+public record MarkAggregate(long count,
+                            long sum,
+                            Double average,
+                            Integer min,
+                            Integer max,
+                            int[] histogram) {
+    public static MarkAggregate of(long[] counts) {
+        long count = 0;
+        long sum = 0;
+        Integer min = null;
+        Integer max = null;
+        int[] histogram = new int[MarkDistribution.MAX_VALUE];
+        for (int value = MarkDistribution.MIN_VALUE; value <= MarkDistribution.MAX_VALUE; value++) {
+            if (counts[value] == 0) {
+                continue;
+            }
+            histogram[value - 1] = (int) counts[value];
+            count += counts[value];
+            sum += value * counts[value];
+            if (min == null) {
+                min = value;
+            }
+            max = value;
+        }
+        return new MarkAggregate(count, sum, count > 0 ? (double) sum / count : null,
+                min, max, histogram);
+    }
+}
@@ -0,0 +1,43 @@
+package idespring.lab5.dto;
+
+public record MarkDistribution(long count,
+                               Double average,
+                               Integer median,
+                               Integer p90,
+                               int[] histogram) {
+    public static final int MIN_VALUE = 1;
+    public static final int MAX_VALUE = 10;
+
+    public static MarkDistribution of(int[] counts) {
+        long count = 0;
+        long sum = 0;
+        int[] histogram = new int[MAX_VALUE];
+        for (int value = MIN_VALUE; value <= MAX_VALUE; value++) {
+            histogram[value - 1] = counts[value];
+            count += counts[value];
+            sum += (long) value * counts[value];
+        }
+
+        if (count == 0) {
+            return new MarkDistribution(0, null, null, null, histogram);
+        }
+        return new MarkDistribution(count, (double) sum / count,
+                percentile(counts, count, 50), percentile(counts, count, 90), histogram);
+    }
+
+    public static Integer percentile(int[] counts, long count, double percent) {
+        if (count == 0) {
+            return null;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int value = MIN_VALUE; value <= MAX_VALUE; value++) {
+            seen += counts[value];
+            if (seen >= rank) {
+                return value;
+            }
+        }
+        return MAX_VALUE;
+    }
+}
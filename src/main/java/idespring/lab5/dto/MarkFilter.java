@@ -0,0 +1,23 @@
+package idespring.lab5.dto;
+
+import java.util.Set;
+
+public record MarkFilter(Set<Long> studentIds,
+                         Set<Long> subjectIds,
+                         Set<Long> groupIds,
+                         Integer minValue,
+                         Integer maxValue) {
+    public static MarkFilter all() {
+        return new MarkFilter(null, null, null, null, null);
+    }
+
+    public int lowestValue() {
+        return minValue != null ? Math.max(minValue, MarkDistribution.MIN_VALUE)
+                : MarkDistribution.MIN_VALUE;
+    }
+
+    public int highestValue() {
+        return maxValue != null ? Math.min(maxValue, MarkDistribution.MAX_VALUE)
+                : MarkDistribution.MAX_VALUE;
+    }
+}
@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record MarkView(Long id, int value, Long studentId, Long subjectId) {
+}
@@ -0,0 +1,33 @@
+package idespring.lab5.dto;
+
+import idespring.lab5.exceptions.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page: its sort key (null when ordering by id alone)
+ * and its id. Clients only see the opaque token produced by {@link #encode()}.
+ */
+public record PageCursor(String key, long id) {
+    public String encode() {
+        String raw = key != null ? id + ":" + key : Long.toString(id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return separator < 0
+                    ? new PageCursor(null, Long.parseLong(raw))
+                    : new PageCursor(raw.substring(separator + 1),
+                            Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record RankedStudent(int rank, long studentId, double average) {
+}
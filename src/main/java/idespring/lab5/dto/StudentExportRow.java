@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record StudentExportRow(Long id, String name, int age, Long groupId) {
+}
@@ -0,0 +1,6 @@
+package idespring.lab5.dto;
+
+import java.util.List;
+
+public record StudentReadModel(long studentId, MarkDistribution marks, List<Long> subjectIds) {
+}
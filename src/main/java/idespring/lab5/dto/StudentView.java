@@ -0,0 +1,22 @@
+package idespring.lab5.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Read-only student as the GET endpoints return it, with the same JSON shape as the
+ * {@code Student} entity. Subjects and marks are null, and left out of the JSON, when the
+ * chosen fetch profile does not load them.
+ */
+public record StudentView(
+        Long id,
+        String name,
+        int age,
+        GroupView group,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<SubjectView> subjects,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<MarkView> marks) {
+
+    public StudentView withAssociations(List<SubjectView> subjects, List<MarkView> marks) {
+        return new StudentView(id, name, age, group, subjects, marks);
+    }
+}
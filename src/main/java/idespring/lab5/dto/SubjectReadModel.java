@@ -0,0 +1,6 @@
+package idespring.lab5.dto;
+
+import java.util.List;
+
+public record SubjectReadModel(long subjectId, MarkDistribution marks, List<Long> studentIds) {
+}
@@ -0,0 +1,4 @@
+package idespring.lab5.dto;
+
+public record SubjectView(Long id, String name) {
+}
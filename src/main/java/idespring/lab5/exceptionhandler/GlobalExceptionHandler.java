@@ -1,11 +1,14 @@
 package idespring.lab5.exceptionhandler;
 
+import idespring.lab5.exceptions.BufferFullException;
 import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.JobRejectedException;
 import idespring.lab5.exceptions.SubjectNotAssignedException;
 import idespring.lab5.exceptions.ValidationException;
 import jakarta.validation.ConstraintViolationException;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -35,6 +38,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<Map<String, String>>
+        handleJobRejectedException(JobRejectedException ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+
+    @ExceptionHandler(BufferFullException.class)
+    public ResponseEntity<Map<String, String>>
+        handleBufferFullException(BufferFullException ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, String>>
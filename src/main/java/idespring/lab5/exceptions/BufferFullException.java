@@ -0,0 +1,7 @@
+package idespring.lab5.exceptions;
+
+public class BufferFullException extends RuntimeException {
+    public BufferFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package idespring.lab5.exceptions;
+
+public class JobRejectedException extends RuntimeException {
+    public JobRejectedException(String message) {
+        super(message);
+    }
+}
@@ -10,20 +10,20 @@ import jakarta.validation.constraints.Min;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Mark {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("studentmanagement.marks_seq")
     private Long id;
 
     @Min(value = 1, message = "Mark value must be at least 1")
     @Max(value = 10, message = "Mark value must be at most 10")
     private int value;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "studentid")
     @JsonIdentityReference(alwaysAsId = true)
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     private Student student;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "subjectid")
     @JsonIdentityReference(alwaysAsId = true)
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
@@ -0,0 +1,20 @@
+package idespring.lab5.model;
+
+import idespring.lab5.config.PooledSequenceGenerator;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Draws ids from the named database sequence through Hibernate's pooled optimizer, one
+ * round trip per {@code ids.allocation-size} ids. Unlike identity columns this lets inserts
+ * be batched.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+    String value();
+}
@@ -2,18 +2,23 @@ package idespring.lab5.model;
 
 import com.fasterxml.jackson.annotation.JsonIdentityReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.util.HashSet;
 import java.util.Set;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(schema = "studentmanagement", name = "students")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@NamedEntityGraph(name = "Student.withSubjects",
+        attributeNodes = {@NamedAttributeNode("group"), @NamedAttributeNode("subjects")})
 public class Student {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("studentmanagement.students_seq")
     private Long id;
 
     @NotNull
@@ -22,24 +27,31 @@ public class Student {
 
     private int age;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "groupid")
     @JsonIdentityReference(alwaysAsId = true)
+    @JsonInclude(value = JsonInclude.Include.CUSTOM,
+            valueFilter = UnloadedAssociationFilter.class)
     private Group group;
 
     @JsonIdentityReference(alwaysAsId = true)
+    @JsonInclude(value = JsonInclude.Include.CUSTOM,
+            valueFilter = UnloadedAssociationFilter.class)
     @ManyToMany(cascade = {CascadeType.DETACH,
             CascadeType.REFRESH, CascadeType.MERGE,
             CascadeType.PERSIST},
-             fetch = FetchType.EAGER)
+             fetch = FetchType.LAZY)
     @JoinTable (
             name = "student_subject",
             joinColumns = @JoinColumn(name = "studentid"),
             inverseJoinColumns = @JoinColumn(name = "subjectid")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "student-subjects")
     private Set<Subject> subjects = new HashSet<>();
 
     @JsonIdentityReference(alwaysAsId = true)
+    @JsonInclude(value = JsonInclude.Include.CUSTOM,
+            valueFilter = UnloadedAssociationFilter.class)
     @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Mark> marks = new HashSet<>();
 
@@ -0,0 +1,50 @@
+package idespring.lab5.model;
+
+import idespring.lab5.exceptions.ValidationException;
+
+/**
+ * How much of a student a read loads. Associations outside the chosen profile are not
+ * queried and are left out of the JSON.
+ */
+public enum StudentFetchProfile {
+    /** The student and its group. */
+    SUMMARY("summary"),
+    /** Adds the subjects the student is enrolled in. */
+    WITH_SUBJECTS("withSubjects"),
+    /** Adds the student's marks. */
+    FULL("full");
+
+    private final String view;
+
+    StudentFetchProfile(String view) {
+        this.view = view;
+    }
+
+    public String getView() {
+        return view;
+    }
+
+    /**
+     * Appended to cache keys of reads made with this profile. Full reads keep the keys they
+     * had before profiles existed.
+     */
+    public String cacheSuffix() {
+        return this == FULL ? "" : "-" + view;
+    }
+
+    /**
+     * Resolves the {@code view} request parameter; no view means {@link #FULL}.
+     */
+    public static StudentFetchProfile of(String view) {
+        if (view == null) {
+            return FULL;
+        }
+        for (StudentFetchProfile profile : values()) {
+            if (profile.view.equalsIgnoreCase(view)) {
+                return profile;
+            }
+        }
+        throw new ValidationException("Unknown view: " + view
+                + ", expected summary, withSubjects or full");
+    }
+}
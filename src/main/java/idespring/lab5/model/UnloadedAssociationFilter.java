@@ -0,0 +1,21 @@
+package idespring.lab5.model;
+
+import org.hibernate.Hibernate;
+
+/**
+ * Jackson value filter for lazy associations: a property whose proxy or collection was never
+ * loaded is left out rather than loaded during serialization, or failing once the entity is
+ * detached.
+ */
+public class UnloadedAssociationFilter {
+
+    @Override
+    public boolean equals(Object value) {
+        return !Hibernate.isInitialized(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+}
@@ -0,0 +1,9 @@
+package idespring.lab5.repository.grouprepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Group;
+import java.util.List;
+
+public interface GroupRepositoryCustom {
+    List<Group> findPage(String namePattern, String sort, PageCursor after, int limit);
+}
@@ -0,0 +1,22 @@
+package idespring.lab5.repository.grouprepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Group;
+import idespring.lab5.repository.keyset.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+public class GroupRepositoryCustomImpl implements GroupRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Group> findPage(String namePattern, String sort, PageCursor after, int limit) {
+        return new KeysetQuery<>(em, Group.class)
+                .where("e.name LIKE :namePattern", "namePattern",
+                        namePattern != null ? "%" + namePattern + "%" : null)
+                .fetch(sort != null ? "name" : null, "DESC".equalsIgnoreCase(sort), after, limit);
+    }
+}
@@ -0,0 +1,118 @@
+package idespring.lab5.repository.importrepo;
+
+import idespring.lab5.service.importservice.ImportKind;
+import java.sql.SQLException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads CSV rows into a per-transaction staging table with {@code COPY FROM STDIN} and moves
+ * the rows whose references resolve into the real tables. Every method must run inside the
+ * caller's transaction because the staging table is dropped on commit.
+ */
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+public class ImportJdbcRepository {
+    private static final String RESOLVED_STUDENT = "(i.groupid IS NULL OR EXISTS "
+            + "(SELECT 1 FROM studentmanagement.groups g WHERE g.id = i.groupid))";
+
+    private static final String RESOLVED_MARK = "EXISTS "
+            + "(SELECT 1 FROM studentmanagement.student_subject ss "
+            + "WHERE ss.studentid = i.studentid AND ss.subjectid = i.subjectid)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ImportJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Supplies COPY data in CSV format; returns null once the input is exhausted.
+     */
+    @FunctionalInterface
+    public interface ChunkSource {
+        byte[] next() throws InterruptedException;
+    }
+
+    public void createStaging(ImportKind kind) {
+        jdbcTemplate.execute(switch (kind) {
+            case STUDENTS -> "CREATE TEMP TABLE import_students "
+                    + "(line bigint, name text, age int, groupid bigint) ON COMMIT DROP";
+            case MARKS -> "CREATE TEMP TABLE import_marks "
+                    + "(line bigint, studentid bigint, subjectid bigint, value int) ON COMMIT DROP";
+        });
+    }
+
+    /**
+     * Streams every chunk into the staging table and returns the number of rows copied.
+     */
+    public long copyIntoStaging(ImportKind kind, ChunkSource source) {
+        String sql = "COPY " + stagingTable(kind) + " FROM STDIN WITH (FORMAT csv)";
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                byte[] chunk;
+                while ((chunk = source.next()) != null) {
+                    copyIn.writeToCopy(chunk, 0, chunk.length);
+                }
+                return copyIn.endCopy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("COPY interrupted", e);
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied != null ? copied : 0;
+    }
+
+    /**
+     * Streams staged rows whose student, subject, enrollment or group does not exist, ordered
+     * by line: the line number followed by the staged columns.
+     */
+    public void forEachUnresolved(ImportKind kind, RowCallbackHandler handler) {
+        jdbcTemplate.query(switch (kind) {
+            case STUDENTS -> "SELECT i.line, i.name, i.age, i.groupid FROM import_students i "
+                    + "WHERE NOT " + RESOLVED_STUDENT + " ORDER BY i.line";
+            case MARKS -> "SELECT i.line, i.studentid, i.subjectid, i.value FROM import_marks i "
+                    + "WHERE NOT " + RESOLVED_MARK + " ORDER BY i.line";
+        }, handler);
+    }
+
+    /**
+     * Streams (studentid, subjectid, value) for the staged marks that {@link #insertResolved}
+     * inserts.
+     */
+    public void forEachResolvedMark(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT i.studentid, i.subjectid, i.value FROM import_marks i "
+                + "WHERE " + RESOLVED_MARK + " ORDER BY i.line", handler);
+    }
+
+    public int insertResolved(ImportKind kind) {
+        return jdbcTemplate.update(switch (kind) {
+            case STUDENTS -> "INSERT INTO studentmanagement.students (name, age, groupid) "
+                    + "SELECT i.name, i.age, i.groupid FROM import_students i "
+                    + "WHERE " + RESOLVED_STUDENT + " ORDER BY i.line";
+            case MARKS -> "INSERT INTO studentmanagement.marks (value, studentid, subjectid) "
+                    + "SELECT i.value, i.studentid, i.subjectid FROM import_marks i "
+                    + "WHERE " + RESOLVED_MARK + " ORDER BY i.line";
+        });
+    }
+
+    private static String stagingTable(ImportKind kind) {
+        return switch (kind) {
+            case STUDENTS -> "import_students (line, name, age, groupid)";
+            case MARKS -> "import_marks (line, studentid, subjectid, value)";
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package idespring.lab5.repository.keyset;
+
+import idespring.lab5.dto.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a JPQL page that seeks past the previous page's last (sort key, id) instead of
+ * skipping rows with OFFSET, so every page costs the same however deep it is. One row more
+ * than the limit is fetched to tell whether another page follows.
+ */
+public class KeysetQuery<T> {
+    private final EntityManager em;
+    private final Class<T> type;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> params = new HashMap<>();
+
+    public KeysetQuery(EntityManager em, Class<T> type) {
+        this.em = em;
+        this.type = type;
+    }
+
+    public KeysetQuery<T> where(String condition, String param, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            params.put(param, value);
+        }
+        return this;
+    }
+
+    public List<T> fetch(String sortField, boolean descending, PageCursor after, int limit) {
+        List<String> where = new ArrayList<>(conditions);
+        Map<String, Object> values = new HashMap<>(params);
+        String order;
+
+        if (sortField == null) {
+            order = "e.id";
+            if (after != null) {
+                where.add("e.id > :afterId");
+                values.put("afterId", after.id());
+            }
+        } else {
+            String field = "e." + sortField;
+            String direction = descending ? " DESC" : "";
+            String cmp = descending ? "<" : ">";
+            order = field + direction + ", e.id" + direction;
+            if (after != null) {
+                where.add("(" + field + " " + cmp + " :afterKey OR (" + field
+                        + " = :afterKey AND e.id " + cmp + " :afterId))");
+                values.put("afterKey", after.key());
+                values.put("afterId", after.id());
+            }
+        }
+
+        String jpql = "SELECT e FROM " + type.getSimpleName() + " e"
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY " + order;
+        TypedQuery<T> query = em.createQuery(jpql, type);
+        values.forEach(query::setParameter);
+        return query.setMaxResults(limit + 1).getResultList();
+    }
+}
@@ -0,0 +1,223 @@
+package idespring.lab5.repository.markrepo;
+
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.model.Mark;
+import idespring.lab5.service.statservice.StatisticsScope;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class MarkJdbcRepository {
+    private static final int FETCH_SIZE = 10_000;
+    private static final String INSERT_MARK = "INSERT INTO studentmanagement.marks "
+            + "(value, studentid, subjectid) VALUES (?, ?, ?)";
+    // Inserts nothing unless the student is enrolled in the subject, which also implies
+    // that both exist.
+    private static final String INSERT_ENROLLED_MARK = "INSERT INTO studentmanagement.marks "
+            + "(value, studentid, subjectid) SELECT ?, ss.studentid, ss.subjectid "
+            + "FROM studentmanagement.student_subject ss "
+            + "WHERE ss.studentid = ? AND ss.subjectid = ? "
+            + "LIMIT 1 "
+            + "RETURNING id";
+    private static final String SAVE_JOURNAL_CHECKPOINT = "INSERT INTO "
+            + "studentmanagement.mark_journal_checkpoints (journal, sequence) VALUES (?, ?) "
+            + "ON CONFLICT (journal) DO UPDATE SET sequence = EXCLUDED.sequence";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public MarkJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+    }
+
+    // PostgreSQL only honours the fetch size inside a transaction, which keeps the
+    // result on a server-side cursor instead of buffering every row in the driver.
+    @Transactional(readOnly = true)
+    public void forEachMark(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT m.studentid, m.subjectid, m.value, s.groupid "
+                + "FROM studentmanagement.marks m "
+                + "JOIN studentmanagement.students s ON s.id = m.studentid", handler);
+    }
+
+    /**
+     * Streams one row per group: the requested dimensions in STUDENT, SUBJECT, GROUP order,
+     * followed by COUNT, SUM, MIN and MAX of the mark values.
+     */
+    @Transactional(readOnly = true)
+    public void aggregate(MarkFilter filter, Set<StatisticsScope> groupBy,
+                          RowCallbackHandler handler) {
+        List<String> dimensions = new ArrayList<>();
+        if (groupBy.contains(StatisticsScope.STUDENT)) {
+            dimensions.add("m.studentid");
+        }
+        if (groupBy.contains(StatisticsScope.SUBJECT)) {
+            dimensions.add("m.subjectid");
+        }
+        if (groupBy.contains(StatisticsScope.GROUP)) {
+            dimensions.add("s.groupid");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("minValue", filter.lowestValue())
+                .addValue("maxValue", filter.highestValue());
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (String dimension : dimensions) {
+            sql.append(dimension).append(", ");
+        }
+        sql.append("COUNT(*), COALESCE(SUM(m.value), 0), MIN(m.value), MAX(m.value) "
+                + "FROM studentmanagement.marks m ");
+        if (groupBy.contains(StatisticsScope.GROUP) || filter.groupIds() != null) {
+            sql.append("JOIN studentmanagement.students s ON s.id = m.studentid ");
+        }
+        sql.append("WHERE m.value BETWEEN :minValue AND :maxValue");
+        if (filter.studentIds() != null) {
+            sql.append(" AND m.studentid IN (:studentIds)");
+            params.addValue("studentIds", filter.studentIds());
+        }
+        if (filter.subjectIds() != null) {
+            sql.append(" AND m.subjectid IN (:subjectIds)");
+            params.addValue("subjectIds", filter.subjectIds());
+        }
+        if (filter.groupIds() != null) {
+            sql.append(" AND s.groupid IN (:groupIds)");
+            params.addValue("groupIds", filter.groupIds());
+        }
+        if (!dimensions.isEmpty()) {
+            String columns = String.join(", ", dimensions);
+            sql.append(" GROUP BY ").append(columns)
+                    .append(" ORDER BY ").append(String.join(" NULLS FIRST, ", dimensions))
+                    .append(" NULLS FIRST");
+        }
+
+        namedJdbcTemplate.query(sql.toString(), params, handler);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findPivotSubjectIds(Long groupId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("groupId", groupId);
+        return namedJdbcTemplate.queryForList("SELECT DISTINCT ss.subjectid "
+                + "FROM studentmanagement.student_subject ss "
+                + pivotGroupFilter(groupId)
+                + " ORDER BY ss.subjectid", params, Long.class);
+    }
+
+    /**
+     * Streams (studentid, subjectid, average) for every enrollment ordered by student and
+     * subject; the average is null for subjects without marks.
+     */
+    @Transactional(readOnly = true)
+    public void forEachPivotCell(Long groupId, RowCallbackHandler handler) {
+        MapSqlParameterSource params = new MapSqlParameterSource("groupId", groupId);
+        namedJdbcTemplate.query("SELECT ss.studentid, ss.subjectid, AVG(m.value) "
+                + "FROM studentmanagement.student_subject ss "
+                + "LEFT JOIN studentmanagement.marks m "
+                + "ON m.studentid = ss.studentid AND m.subjectid = ss.subjectid "
+                + pivotGroupFilter(groupId)
+                + " GROUP BY ss.studentid, ss.subjectid"
+                + " ORDER BY ss.studentid, ss.subjectid", params, handler);
+    }
+
+    private static String pivotGroupFilter(Long groupId) {
+        return groupId != null
+                ? "WHERE ss.studentid IN (SELECT id FROM studentmanagement.students "
+                        + "WHERE groupid = :groupId)"
+                : "";
+    }
+
+    /**
+     * Inserts the mark in one statement if its student is enrolled in its subject and returns
+     * the generated id, or an empty result when there is no such enrollment.
+     */
+    @Transactional
+    public Optional<Long> insertMarkIfEnrolled(int value, long studentId, long subjectId) {
+        return jdbcTemplate.query(INSERT_ENROLLED_MARK, (rs, rowNum) -> rs.getLong(1),
+                value, studentId, subjectId).stream().findFirst();
+    }
+
+    /**
+     * Returns the zero-based positions of the marks whose student is enrolled in their
+     * subject, in one query however many marks there are.
+     */
+    @Transactional(readOnly = true)
+    public List<Integer> findEnrolledPositions(List<Mark> marks) {
+        Long[] studentIds = new Long[marks.size()];
+        Long[] subjectIds = new Long[marks.size()];
+        for (int i = 0; i < marks.size(); i++) {
+            studentIds[i] = marks.get(i).getStudent().getId();
+            subjectIds[i] = marks.get(i).getSubject().getId();
+        }
+        return jdbcTemplate.query("SELECT p.ord - 1 FROM unnest(?, ?) WITH ORDINALITY "
+                + "AS p(studentid, subjectid, ord) "
+                + "WHERE EXISTS (SELECT 1 FROM studentmanagement.student_subject ss "
+                + "WHERE ss.studentid = p.studentid AND ss.subjectid = p.subjectid) "
+                + "ORDER BY p.ord", ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", studentIds));
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", subjectIds));
+                }, (rs, rowNum) -> rs.getInt(1));
+    }
+
+    /**
+     * Inserts the marks as one JDBC batch and copies the generated ids back onto them.
+     */
+    @Transactional
+    public void insertMarks(List<Mark> marks) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_MARK, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Mark mark = marks.get(i);
+                        ps.setInt(1, mark.getValue());
+                        ps.setLong(2, mark.getStudent().getId());
+                        ps.setLong(3, mark.getSubject().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return marks.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < marks.size(); i++) {
+            marks.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    /**
+     * Highest sequence of the given write-behind journal whose marks are in the table, or 0.
+     */
+    public long findJournalCheckpoint(String journal) {
+        List<Long> sequences = jdbcTemplate.queryForList("SELECT sequence "
+                + "FROM studentmanagement.mark_journal_checkpoints WHERE journal = ?",
+                Long.class, journal);
+        return sequences.isEmpty() ? 0 : sequences.get(0);
+    }
+
+    /**
+     * Records the journal's checkpoint; call it in the transaction that inserts the marks.
+     */
+    @Transactional
+    public void saveJournalCheckpoint(String journal, long sequence) {
+        jdbcTemplate.update(SAVE_JOURNAL_CHECKPOINT, journal, sequence);
+    }
+}
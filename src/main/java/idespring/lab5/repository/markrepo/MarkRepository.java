@@ -1,24 +1,42 @@
 package idespring.lab5.repository.markrepo;
 
+import idespring.lab5.dto.MarkExportRow;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface MarkRepository extends JpaRepository<Mark, Long> {
+public interface MarkRepository extends JpaRepository<Mark, Long>, MarkRepositoryCustom {
 
     @Query(value = "SELECT * FROM studentmanagement.marks WHERE studentid = :#{#student.id} "
             + "AND subjectid = :#{#subject.id}", nativeQuery = true)
     List<Mark> findByStudentAndSubject(@Param("student") Student student,
                                        @Param("subject") Subject subject);
 
+    // Projects foreign keys only, so rows never pull in the eager Student/Subject graph or
+    // accumulate in the persistence context; the fetch size keeps a server-side cursor open.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new idespring.lab5.dto.MarkExportRow(m.id, m.value, m.student.id, m.subject.id) "
+            + "FROM Mark m WHERE (:studentId IS NULL OR m.student.id = :studentId) "
+            + "AND (:subjectId IS NULL OR m.subject.id = :subjectId) ORDER BY m.id")
+    Stream<MarkExportRow> streamForExport(@Param("studentId") Long studentId,
+                                          @Param("subjectId") Long subjectId);
+
     @Query(value = "SELECT * FROM studentmanagement.marks WHERE value = :value", nativeQuery = true)
     List<Mark> findByValue(@Param("value") int value);
 
@@ -30,6 +48,31 @@ public interface MarkRepository extends JpaRepository<Mark, Long> {
             + "WHERE subjectid = :subjectId", nativeQuery = true)
     Double getAverageMarkBySubjectId(@Param("subjectId") Long subjectId);
 
+    @Query(value = "SELECT studentid, subjectid, value, COUNT(*) FROM studentmanagement.marks "
+            + "GROUP BY studentid, subjectid, value", nativeQuery = true)
+    List<Object[]> countMarksByStudentSubjectAndValue();
+
+    @Query(value = "SELECT value, COUNT(*) FROM studentmanagement.marks "
+            + "WHERE studentid = :studentId GROUP BY value", nativeQuery = true)
+    List<Object[]> countMarksByValueForStudent(@Param("studentId") Long studentId);
+
+    @Query(value = "SELECT value, COUNT(*) FROM studentmanagement.marks "
+            + "WHERE subjectid = :subjectId GROUP BY value", nativeQuery = true)
+    List<Object[]> countMarksByValueForSubject(@Param("subjectId") Long subjectId);
+
+    @Query(value = "SELECT m.value, COUNT(*) FROM studentmanagement.marks m "
+            + "JOIN studentmanagement.students s ON s.id = m.studentid "
+            + "WHERE s.groupid = :groupId GROUP BY m.value", nativeQuery = true)
+    List<Object[]> countMarksByValueForGroup(@Param("groupId") Long groupId);
+
+    @Query(value = "SELECT studentid, AVG(value) FROM studentmanagement.marks "
+            + "WHERE studentid IN (:studentIds) GROUP BY studentid", nativeQuery = true)
+    List<Object[]> getAverageMarksByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query(value = "SELECT subjectid, AVG(value) FROM studentmanagement.marks "
+            + "WHERE subjectid IN (:subjectIds) GROUP BY subjectid", nativeQuery = true)
+    List<Object[]> getAverageMarksBySubjectIds(@Param("subjectIds") Collection<Long> subjectIds);
+
     @Query(value = "SELECT * FROM studentmanagement.marks WHERE "
             + "studentid = :studentId", nativeQuery = true)
     List<Mark> findByStudentId(@Param("studentId") Long studentId);
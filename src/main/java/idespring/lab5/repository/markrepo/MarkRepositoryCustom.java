@@ -0,0 +1,9 @@
+package idespring.lab5.repository.markrepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Mark;
+import java.util.List;
+
+public interface MarkRepositoryCustom {
+    List<Mark> findPage(Long studentId, Long subjectId, PageCursor after, int limit);
+}
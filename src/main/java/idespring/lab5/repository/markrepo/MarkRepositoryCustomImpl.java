@@ -0,0 +1,22 @@
+package idespring.lab5.repository.markrepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Mark;
+import idespring.lab5.repository.keyset.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+public class MarkRepositoryCustomImpl implements MarkRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Mark> findPage(Long studentId, Long subjectId, PageCursor after, int limit) {
+        return new KeysetQuery<>(em, Mark.class)
+                .where("e.student.id = :studentId", "studentId", studentId)
+                .where("e.subject.id = :subjectId", "subjectId", subjectId)
+                .fetch(null, false, after, limit);
+    }
+}
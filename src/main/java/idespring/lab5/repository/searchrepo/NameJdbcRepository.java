@@ -0,0 +1,36 @@
+package idespring.lab5.repository.searchrepo;
+
+import idespring.lab5.service.searchservice.NameKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class NameJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NameJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams the id, name and popularity of every row of the given kind: the number of
+     * students in a group, of students enrolled in a subject, and of marks a student has.
+     */
+    @Transactional(readOnly = true)
+    public void forEachName(NameKind kind, RowCallbackHandler handler) {
+        String popularity = switch (kind) {
+            case GROUP -> "SELECT count(*) FROM studentmanagement.students s "
+                    + "WHERE s.groupid = t.id";
+            case SUBJECT -> "SELECT count(*) FROM studentmanagement.student_subject ss "
+                    + "WHERE ss.subjectid = t.id";
+            case STUDENT -> "SELECT count(*) FROM studentmanagement.marks m "
+                    + "WHERE m.studentid = t.id";
+        };
+        jdbcTemplate.query("SELECT t.id, t.name, (" + popularity + ") FROM studentmanagement."
+                + kind.getTable() + " t WHERE t.name IS NOT NULL", handler);
+    }
+}
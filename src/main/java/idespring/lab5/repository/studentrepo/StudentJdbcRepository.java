@@ -0,0 +1,85 @@
+package idespring.lab5.repository.studentrepo;
+
+import idespring.lab5.model.Student;
+import idespring.lab5.model.Subject;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class StudentJdbcRepository {
+    private static final String INSERT_STUDENT = "INSERT INTO studentmanagement.students "
+            + "(name, age, groupid) VALUES (?, ?, ?)";
+    private static final String INSERT_ENROLLMENT = "INSERT INTO studentmanagement.student_subject "
+            + "(studentid, subjectid) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StudentJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the students and their subject enrollments as two JDBC batches and copies the
+     * generated ids back onto the students.
+     */
+    @Transactional
+    public void insertStudents(List<Student> students) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_STUDENT, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Student student = students.get(i);
+                        ps.setString(1, student.getName());
+                        ps.setInt(2, student.getAge());
+                        if (student.getGroup() != null) {
+                            ps.setLong(3, student.getGroup().getId());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return students.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<long[]> enrollments = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            student.setId(((Number) keys.get(i).get("id")).longValue());
+            Set<Long> subjectIds = new LinkedHashSet<>();
+            for (Subject subject : student.getSubjects()) {
+                subjectIds.add(subject.getId());
+            }
+            for (Long subjectId : subjectIds) {
+                enrollments.add(new long[] {student.getId(), subjectId});
+            }
+        }
+
+        if (!enrollments.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ENROLLMENT, enrollments, enrollments.size(),
+                    (ps, enrollment) -> {
+                        ps.setLong(1, enrollment[0]);
+                        ps.setLong(2, enrollment[1]);
+                    });
+        }
+    }
+}
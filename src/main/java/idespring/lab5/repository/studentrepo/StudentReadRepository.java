@@ -0,0 +1,167 @@
+package idespring.lab5.repository.studentrepo;
+
+import idespring.lab5.dto.GroupView;
+import idespring.lab5.dto.MarkView;
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.dto.StudentView;
+import idespring.lab5.dto.SubjectView;
+import idespring.lab5.model.StudentFetchProfile;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Student reads that map rows straight into {@link StudentView} records, without entities, a
+ * persistence context or proxies. A read takes one query for the students and their groups,
+ * plus one for subjects and one for marks when the {@link StudentFetchProfile} needs them.
+ */
+@Repository
+public class StudentReadRepository {
+    private static final String SELECT_STUDENTS =
+            "SELECT s.id, s.name, s.age, g.id, g.name FROM studentmanagement.students s "
+            + "LEFT JOIN studentmanagement.groups g ON g.id = s.groupid";
+    private static final String SELECT_SUBJECTS =
+            "SELECT ss.studentid, sub.id, sub.name FROM studentmanagement.student_subject ss "
+            + "JOIN studentmanagement.subjects sub ON sub.id = ss.subjectid "
+            + "WHERE ss.studentid = ANY(?) ORDER BY sub.id";
+    private static final String SELECT_MARKS =
+            "SELECT id, value, studentid, subjectid FROM studentmanagement.marks "
+            + "WHERE studentid = ANY(?) ORDER BY id";
+    private static final RowMapper<StudentView> STUDENT_ROW = StudentReadRepository::mapStudent;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StudentReadRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<StudentView> findStudents(Integer age, String sort, StudentFetchProfile profile) {
+        String sql = SELECT_STUDENTS;
+        Object[] args = {};
+        if (age != null) {
+            sql += " WHERE s.age = ?";
+            args = new Object[] {age};
+        }
+        if (sort != null) {
+            sql += " ORDER BY s.name " + ("DESC".equalsIgnoreCase(sort) ? "DESC" : "ASC");
+        }
+        return load(sql, profile, args);
+    }
+
+    public Optional<StudentView> findById(long id, StudentFetchProfile profile) {
+        return load(SELECT_STUDENTS + " WHERE s.id = ?", profile, id).stream().findFirst();
+    }
+
+    public List<StudentView> findByGroupId(long groupId, StudentFetchProfile profile) {
+        return load(SELECT_STUDENTS + " WHERE s.groupid = ?", profile, groupId);
+    }
+
+    public List<StudentView> findBySubjectId(long subjectId, StudentFetchProfile profile) {
+        return load(SELECT_STUDENTS + " WHERE s.id IN (SELECT studentid FROM "
+                + "studentmanagement.student_subject WHERE subjectid = ?) ORDER BY s.id",
+                profile, subjectId);
+    }
+
+    public List<StudentView> findByIds(List<Long> ids, StudentFetchProfile profile) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return load(SELECT_STUDENTS + " WHERE s.id = ANY(?) ORDER BY s.id", profile,
+                (Object) ids.toArray(new Long[0]));
+    }
+
+    public List<StudentView> findByNameContaining(String namePattern,
+                                                  StudentFetchProfile profile) {
+        return load(SELECT_STUDENTS + " WHERE s.name LIKE CONCAT('%', ?, '%') ORDER BY s.id",
+                profile, namePattern);
+    }
+
+    /**
+     * Keyset page ordered by name and id, or by id alone when {@code sort} is null. Returns
+     * one row more than {@code limit}, as {@link idespring.lab5.dto.KeysetPage#of} expects.
+     */
+    public List<StudentView> findPage(Integer age, String sort, PageCursor after, int limit,
+                                      StudentFetchProfile profile) {
+        boolean descending = "DESC".equalsIgnoreCase(sort);
+        List<String> where = new ArrayList<>(2);
+        List<Object> args = new ArrayList<>(4);
+        if (age != null) {
+            where.add("s.age = ?");
+            args.add(age);
+        }
+        String order;
+        if (sort == null) {
+            order = "s.id";
+            if (after != null) {
+                where.add("s.id > ?");
+                args.add(after.id());
+            }
+        } else {
+            order = descending ? "s.name DESC, s.id DESC" : "s.name, s.id";
+            if (after != null) {
+                where.add("(s.name, s.id) " + (descending ? "<" : ">") + " (?, ?)");
+                args.add(after.key());
+                args.add(after.id());
+            }
+        }
+        args.add(limit + 1);
+
+        String sql = SELECT_STUDENTS
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY " + order + " LIMIT ?";
+        return load(sql, profile, args.toArray());
+    }
+
+    private List<StudentView> load(String sql, StudentFetchProfile profile, Object... args) {
+        List<StudentView> students = jdbcTemplate.query(sql, STUDENT_ROW, args);
+        if (students.isEmpty() || profile == StudentFetchProfile.SUMMARY) {
+            return students;
+        }
+
+        Long[] ids = new Long[students.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = students.get(i).id();
+        }
+        Map<Long, List<SubjectView>> subjects = new HashMap<>();
+        queryByStudents(SELECT_SUBJECTS, ids, rs ->
+                subjects.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                        .add(new SubjectView(rs.getLong(2), rs.getString(3))));
+        Map<Long, List<MarkView>> marks = profile == StudentFetchProfile.FULL
+                ? new HashMap<>() : null;
+        if (marks != null) {
+            queryByStudents(SELECT_MARKS, ids, rs ->
+                    marks.computeIfAbsent(rs.getLong(3), id -> new ArrayList<>())
+                            .add(new MarkView(rs.getLong(1), rs.getInt(2), rs.getLong(3),
+                                    rs.getLong(4))));
+        }
+
+        List<StudentView> loaded = new ArrayList<>(students.size());
+        for (StudentView student : students) {
+            loaded.add(student.withAssociations(
+                    subjects.getOrDefault(student.id(), List.of()),
+                    marks != null ? marks.getOrDefault(student.id(), List.of()) : null));
+        }
+        return loaded;
+    }
+
+    private void queryByStudents(String sql, Long[] ids, RowCallbackHandler handler) {
+        jdbcTemplate.query(sql, ps ->
+                ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)), handler);
+    }
+
+    private static StudentView mapStudent(ResultSet rs, int rowNum) throws SQLException {
+        long groupId = rs.getLong(4);
+        GroupView group = rs.wasNull() ? null : new GroupView(groupId, rs.getString(5));
+        return new StudentView(rs.getLong(1), rs.getString(2), rs.getInt(3), group, null, null);
+    }
+}
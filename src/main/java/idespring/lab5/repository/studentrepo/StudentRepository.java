@@ -1,37 +1,63 @@
 package idespring.lab5.repository.studentrepo;
 
+import idespring.lab5.dto.StudentExportRow;
 import idespring.lab5.model.Student;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+/**
+ * The native updates name the tables they touch, so Hibernate invalidates only the
+ * second-level cache regions stored in those tables instead of all of them.
+ */
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long>, StudentRepositoryCustom {
-
-    @Query(value = "SELECT * FROM studentmanagement.students WHERE age = :age", nativeQuery = true)
-    Set<Student> findByAge(@Param("age") int age);
+public interface StudentRepository extends JpaRepository<Student, Long> {
 
     @Query(value = "SELECT * FROM studentmanagement.students WHERE id = :id", nativeQuery = true)
     Optional<Student> findById(@Param("id") long id);
 
+    // Like the mark export: flat rows, no managed entities, and a server-side cursor.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new idespring.lab5.dto.StudentExportRow(s.id, s.name, s.age, g.id) "
+            + "FROM Student s LEFT JOIN s.group g "
+            + "WHERE (:groupId IS NULL OR g.id = :groupId) ORDER BY s.id")
+    Stream<StudentExportRow> streamForExport(@Param("groupId") Long groupId);
+
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = "studentmanagement.students"))
     @Query(value = "UPDATE studentmanagement.students SET "
             + "name = :name, age = :age WHERE id = :id", nativeQuery = true)
     void update(@Param("name") String name, @Param("age") int age, @Param("id") long id);
 
     @Modifying
     @Transactional
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "studentmanagement.students"),
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_subject")
+    })
     @Query(value = "DELETE FROM studentmanagement.students WHERE id = :id", nativeQuery = true)
     void delete(@Param("id") long id);
 
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_subject"))
     @Query(value = "INSERT INTO studentmanagement.student_subject "
             + "(studentid, subjectid) VALUES (:studentId, :subjectId)",
             nativeQuery = true)
@@ -39,6 +65,7 @@ public interface StudentRepository extends JpaRepository<Student, Long>, Student
 
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_subject"))
     @Query(value = "DELETE FROM studentmanagement.student_subject WHERE "
             + "studentid = :studentId AND subjectid = :subjectId",
             nativeQuery = true)
@@ -48,6 +75,21 @@ public interface StudentRepository extends JpaRepository<Student, Long>, Student
             + "groupid = :groupId", nativeQuery = true)
     Set<Student> findByGroupId(@Param("groupId") Long groupId);
 
-    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.subjects WHERE s.id = :id")
+    @Query(value = "SELECT id, groupid FROM studentmanagement.students "
+            + "WHERE groupid IS NOT NULL", nativeQuery = true)
+    List<Object[]> findGroupAssignments();
+
+    @EntityGraph("Student.withSubjects")
+    @Query("SELECT s FROM Student s WHERE s.id = :id")
     Optional<Student> findByIdWithSubjects(@Param("id") Long id);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT id FROM studentmanagement.students WHERE id IN (:ids)",
+            nativeQuery = true)
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT studentid, subjectid FROM studentmanagement.student_subject "
+            + "WHERE studentid IN (:studentIds) AND subjectid IN (:subjectIds)",
+            nativeQuery = true)
+    List<Object[]> findEnrollments(@Param("studentIds") Collection<Long> studentIds,
+                                   @Param("subjectIds") Collection<Long> subjectIds);
+}
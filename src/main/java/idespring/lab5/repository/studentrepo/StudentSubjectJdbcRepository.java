@@ -0,0 +1,104 @@
+package idespring.lab5.repository.studentrepo;
+
+import idespring.lab5.dto.Enrollment;
+import idespring.lab5.model.Student;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Array;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Repository
+public class StudentSubjectJdbcRepository {
+    private static final String EXISTING_STUDENTS =
+            "SELECT id FROM studentmanagement.students WHERE id = ANY(?)";
+    private static final String EXISTING_SUBJECTS =
+            "SELECT id FROM studentmanagement.subjects WHERE id = ANY(?)";
+    // The pairs arrive as two parallel arrays, so the statement has two parameters however
+    // many rows it inserts. NOT EXISTS covers tables without a unique key on the pair,
+    // ON CONFLICT covers concurrent enrollments when there is one.
+    private static final String INSERT_ENROLLMENTS =
+            "INSERT INTO studentmanagement.student_subject (studentid, subjectid) "
+            + "SELECT p.studentid, p.subjectid FROM unnest(?, ?) AS p(studentid, subjectid) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM studentmanagement.student_subject e "
+            + "WHERE e.studentid = p.studentid AND e.subjectid = p.subjectid) "
+            + "ON CONFLICT DO NOTHING "
+            + "RETURNING studentid, subjectid";
+    private static final String SUBJECTS_ROLE = Student.class.getName() + ".subjects";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache secondLevelCache;
+
+    @Autowired
+    public StudentSubjectJdbcRepository(JdbcTemplate jdbcTemplate,
+                                        EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    public List<Long> findExistingStudentIds(Collection<Long> ids) {
+        return findExistingIds(EXISTING_STUDENTS, ids);
+    }
+
+    public List<Long> findExistingSubjectIds(Collection<Long> ids) {
+        return findExistingIds(EXISTING_SUBJECTS, ids);
+    }
+
+    /**
+     * Inserts the given distinct pairs in one statement and returns the ones that were not
+     * enrolled before. The insert bypasses Hibernate, so the cached subject collections of the
+     * affected students are evicted once the transaction commits.
+     */
+    public List<Enrollment> insertEnrollments(List<Enrollment> enrollments) {
+        Long[] studentIds = new Long[enrollments.size()];
+        Long[] subjectIds = new Long[enrollments.size()];
+        for (int i = 0; i < enrollments.size(); i++) {
+            studentIds[i] = enrollments.get(i).studentId();
+            subjectIds[i] = enrollments.get(i).subjectId();
+        }
+        List<Enrollment> inserted = jdbcTemplate.query(INSERT_ENROLLMENTS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", studentIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", subjectIds));
+        }, (rs, rowNum) -> new Enrollment(rs.getLong(1), rs.getLong(2)));
+        evictSubjectCollections(inserted);
+        return inserted;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEnrollment(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT studentid, subjectid FROM studentmanagement.student_subject",
+                handler);
+    }
+
+    private List<Long> findExistingIds(String sql, Collection<Long> ids) {
+        return jdbcTemplate.query(sql, ps -> {
+            Array array = ps.getConnection().createArrayOf("bigint", ids.toArray());
+            ps.setArray(1, array);
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    private void evictSubjectCollections(List<Enrollment> enrollments) {
+        Runnable evict = () -> enrollments.stream().map(Enrollment::studentId).distinct()
+                .forEach(studentId -> secondLevelCache.evictCollectionData(SUBJECTS_ROLE,
+                        studentId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evict.run();
+                    }
+                });
+    }
+}
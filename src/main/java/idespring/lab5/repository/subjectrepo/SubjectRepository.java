@@ -2,6 +2,7 @@ package idespring.lab5.repository.subjectrepo;
 
 import idespring.lab5.model.Subject;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,7 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface SubjectRepository extends JpaRepository<Subject, Long> {
+public interface SubjectRepository extends JpaRepository<Subject, Long>, SubjectRepositoryCustom {
 
     @Query(value = "SELECT * FROM studentmanagement.subjects WHERE "
             + "name = :name", nativeQuery = true)
@@ -48,4 +49,8 @@ public interface SubjectRepository extends JpaRepository<Subject, Long> {
             + "JOIN studentmanagement.student_subject ss ON s.id = ss.subjectid "
             + "WHERE ss.studentid = :studentId", nativeQuery = true)
     List<Subject> findByStudentId(@Param("studentId") Long studentId);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT id FROM studentmanagement.subjects WHERE id IN (:ids)",
+            nativeQuery = true)
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
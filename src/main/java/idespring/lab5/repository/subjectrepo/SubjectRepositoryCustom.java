@@ -0,0 +1,9 @@
+package idespring.lab5.repository.subjectrepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Subject;
+import java.util.List;
+
+public interface SubjectRepositoryCustom {
+    List<Subject> findPage(String namePattern, String sort, PageCursor after, int limit);
+}
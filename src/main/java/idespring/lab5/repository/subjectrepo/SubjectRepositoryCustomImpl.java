@@ -0,0 +1,22 @@
+package idespring.lab5.repository.subjectrepo;
+
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.model.Subject;
+import idespring.lab5.repository.keyset.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+public class SubjectRepositoryCustomImpl implements SubjectRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Subject> findPage(String namePattern, String sort, PageCursor after, int limit) {
+        return new KeysetQuery<>(em, Subject.class)
+                .where("e.name LIKE :namePattern", "namePattern",
+                        namePattern != null ? "%" + namePattern + "%" : null)
+                .fetch(sort != null ? "name" : null, "DESC".equalsIgnoreCase(sort), after, limit);
+    }
+}
@@ -0,0 +1,124 @@
+package idespring.lab5.service.bulkservice;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.exceptions.ValidationException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads a JSON array element by element and hands it to a handler in chunks of
+ * {@code bulk.chunk-size}, each chunk in its own transaction. Processing stops at the first
+ * chunk that fails to parse, validate or commit; the chunks before it stay committed and the
+ * rest of the input is not read. A handler wrapped with {@link #selfCommitting} runs without
+ * that transaction.
+ */
+@Component
+public class BulkChunkProcessor {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public BulkChunkProcessor(ObjectMapper objectMapper, Validator validator,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bulk.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public interface ChunkListener<R> {
+        void committed(int chunk, long offset, int size, List<R> created) throws IOException;
+
+        void failed(int chunk, long offset, RuntimeException error) throws IOException;
+    }
+
+    /**
+     * Marks a handler that commits its own work, typically on other threads. Wrapping it in a
+     * chunk transaction would only hold a connection idle while it waits for theirs.
+     */
+    public static <T, R> Function<List<T>, List<R>> selfCommitting(
+            Function<List<T>, List<R>> handler) {
+        return new SelfCommitting<>(handler);
+    }
+
+    public <T, R> void process(InputStream input, Class<T> type,
+                               Function<List<T>, List<R>> handler,
+                               ChunkListener<R> listener) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidationException("Request body must be a JSON array");
+            }
+
+            int chunk = 0;
+            long offset = 0;
+            while (true) {
+                List<T> elements;
+                List<R> created;
+                try {
+                    elements = readChunk(parser, type);
+                    if (elements.isEmpty()) {
+                        return;
+                    }
+                    created = handler instanceof SelfCommitting
+                            ? handler.apply(elements)
+                            : transactionTemplate.execute(tx -> handler.apply(elements));
+                } catch (RuntimeException e) {
+                    listener.failed(chunk, offset, e);
+                    return;
+                }
+
+                listener.committed(chunk, offset, elements.size(), created);
+                chunk++;
+                offset += elements.size();
+            }
+        }
+    }
+
+    private record SelfCommitting<T, R>(Function<List<T>, List<R>> handler)
+            implements Function<List<T>, List<R>> {
+        @Override
+        public List<R> apply(List<T> elements) {
+            return handler.apply(elements);
+        }
+    }
+
+    private <T> List<T> readChunk(JsonParser parser, Class<T> type) throws IOException {
+        List<T> elements = new ArrayList<>(chunkSize);
+        try {
+            while (elements.size() < chunkSize && !parser.hasToken(JsonToken.END_ARRAY)
+                    && parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw new ValidationException(
+                            "Request body ended before the array was closed");
+                }
+                T element = parser.readValueAs(type);
+                Set<ConstraintViolation<T>> violations = validator.validate(element);
+                if (!violations.isEmpty()) {
+                    throw new ConstraintViolationException(violations);
+                }
+                elements.add(element);
+            }
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Malformed bulk request body: " + e.getOriginalMessage());
+        }
+        return elements;
+    }
+}
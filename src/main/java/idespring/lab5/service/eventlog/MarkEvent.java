@@ -0,0 +1,27 @@
+package idespring.lab5.service.eventlog;
+
+/**
+ * One change to marks or enrollments. {@code subjectId} is 0 for STUDENT_REMOVED,
+ * {@code studentId} is 0 for SUBJECT_REMOVED and {@code value} is 0 for everything but marks.
+ */
+public record MarkEvent(long offset, Type type, long studentId, long subjectId, int value) {
+
+    public enum Type {
+        MARK_ADDED,
+        MARK_REMOVED,
+        ENROLLED,
+        UNENROLLED,
+        STUDENT_REMOVED,
+        SUBJECT_REMOVED;
+
+        // 0 is left for the zero-filled space after the last record of a segment.
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Type of(byte code) {
+            Type[] types = values();
+            return code >= 1 && code <= types.length ? types[code - 1] : null;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package idespring.lab5.service.eventlog;
+
+import idespring.lab5.config.ReplicaRoutingDataSource;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.repository.studentrepo.StudentSubjectJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Append-only log of {@link MarkEvent}s in memory-mapped segment files of
+ * {@code events.segment-events} fixed-size records each, under {@code events.dir}. An event's
+ * offset is its position in the whole log, so reading from an offset is a seek and then a
+ * sequential scan. Events recorded inside a transaction are appended only once it commits.
+ *
+ * <p>Segments are forced to disk when they fill up and on shutdown; in between, written
+ * records survive a crash of the application but not of the machine.
+ *
+ * <p>When the log is empty on startup and {@code events.seed-from-database} is true, the
+ * current enrollments and marks are appended to it before the bean is handed to anyone.
+ * Every writer records through this bean, so none of them can commit a change that the seed
+ * would count a second time, and nothing they append can make the log look already seeded.
+ */
+@Component
+public class MarkEventLog {
+    // type, value, studentid, subjectid, crc
+    private static final int RECORD_SIZE = Byte.BYTES + Integer.BYTES + 2 * Long.BYTES
+            + Integer.BYTES;
+    private static final String SUFFIX = ".events";
+    private static final int SEED_BATCH = 10_000;
+
+    private final Path directory;
+    private final int segmentEvents;
+    private final MarkJdbcRepository markJdbcRepository;
+    private final StudentSubjectJdbcRepository studentSubjectJdbcRepository;
+    private final boolean seedFromDatabase;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments =
+            new ConcurrentSkipListMap<>();
+    private final List<Consumer<MarkEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private MappedByteBuffer active;
+    private long activeBase;
+    private volatile long end;
+    private static final Logger logger = LoggerFactory.getLogger(MarkEventLog.class);
+
+    public MarkEventLog(String directory, int segmentEvents) throws IOException {
+        this(directory, segmentEvents, null, null, false);
+    }
+
+    @Autowired
+    public MarkEventLog(
+            @Value("${events.dir:${java.io.tmpdir}/lab5-events}") String directory,
+            @Value("${events.segment-events:1048576}") int segmentEvents,
+            MarkJdbcRepository markJdbcRepository,
+            StudentSubjectJdbcRepository studentSubjectJdbcRepository,
+            @Value("${events.seed-from-database:true}") Boolean seedFromDatabase)
+            throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentEvents = segmentEvents;
+        this.markJdbcRepository = markJdbcRepository;
+        this.studentSubjectJdbcRepository = studentSubjectJdbcRepository;
+        this.seedFromDatabase = Boolean.TRUE.equals(seedFromDatabase);
+        Files.createDirectories(this.directory);
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .toList()) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                segments.put(base, map(base));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            activeBase = 0;
+            active = map(0);
+            segments.put(0L, active);
+        } else {
+            Map.Entry<Long, MappedByteBuffer> last = segments.lastEntry();
+            activeBase = last.getKey();
+            active = last.getValue();
+        }
+        int count = 0;
+        while (count < segmentEvents && decode(active, count, activeBase + count) != null) {
+            count++;
+        }
+        active.position(count * RECORD_SIZE);
+        end = activeBase + count;
+        logger.info("Mark event log at {} holds {} events", this.directory, end);
+    }
+
+    @PostConstruct
+    public void seed() {
+        if (seedFromDatabase && end == 0) {
+            ReplicaRoutingDataSource.onPrimary(this::copyDatabase);
+        }
+    }
+
+    /**
+     * The offset the next appended event will get.
+     */
+    public long getEndOffset() {
+        return end;
+    }
+
+    /**
+     * Appends the event, or, inside a transaction, queues it until the transaction commits.
+     */
+    public void record(MarkEvent.Type type, long studentId, long subjectId, int value) {
+        MarkEvent event = new MarkEvent(-1, type, studentId, subjectId, value);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(event));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<MarkEvent> pending = (List<MarkEvent>) TransactionSynchronizationManager
+                .getResource(this);
+        if (pending == null) {
+            List<MarkEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            TransactionSynchronizationManager
+                                    .unbindResourceIfPossible(MarkEventLog.this);
+                            if (status == STATUS_COMMITTED) {
+                                append(events);
+                            }
+                        }
+                    });
+            pending = events;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * Appends the events in order and hands them to every subscriber before returning.
+     */
+    public synchronized void append(List<MarkEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<MarkEvent> appended = new ArrayList<>(events.size());
+        long offset = end;
+        for (MarkEvent event : events) {
+            if (offset - activeBase == segmentEvents) {
+                rotate(offset);
+            }
+            encode(active, event);
+            appended.add(new MarkEvent(offset++, event.type(), event.studentId(),
+                    event.subjectId(), event.value()));
+        }
+        end = offset;
+
+        for (Consumer<MarkEvent> subscriber : subscribers) {
+            for (MarkEvent event : appended) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    logger.error("Subscriber failed on event {}", event.offset(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes up to {@code max} events starting at {@code from} to the consumer and returns the
+     * offset to continue from.
+     */
+    public long read(long from, int max, Consumer<MarkEvent> consumer) {
+        long limit = Math.min(end, from + max);
+        long offset = Math.max(from, 0);
+        while (offset < limit) {
+            Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(offset);
+            long segmentEnd = Math.min(limit, segment.getKey() + segmentEvents);
+            for (; offset < segmentEnd; offset++) {
+                consumer.accept(decode(segment.getValue(),
+                        (int) (offset - segment.getKey()), offset));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Replays every event from {@code from} to the consumer and then keeps it up to date with
+     * new ones. The bulk of the catch-up runs without blocking writers; only the tail that
+     * arrives meanwhile is read under the append lock.
+     */
+    public void subscribe(long from, Consumer<MarkEvent> consumer) {
+        long offset = from;
+        while (offset < end) {
+            offset = read(offset, segmentEvents, consumer);
+        }
+        synchronized (this) {
+            read(offset, Integer.MAX_VALUE, consumer);
+            subscribers.add(consumer);
+        }
+    }
+
+    public void unsubscribe(Consumer<MarkEvent> consumer) {
+        subscribers.remove(consumer);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        active.force();
+    }
+
+    private void copyDatabase() {
+        final long start = System.nanoTime();
+        List<MarkEvent> batch = new ArrayList<>(SEED_BATCH);
+        studentSubjectJdbcRepository.forEachEnrollment(rs -> {
+            batch.add(new MarkEvent(-1, MarkEvent.Type.ENROLLED, rs.getLong(1), rs.getLong(2),
+                    0));
+            appendWhenFull(batch);
+        });
+        markJdbcRepository.forEachMark(rs -> {
+            batch.add(new MarkEvent(-1, MarkEvent.Type.MARK_ADDED, rs.getLong(1), rs.getLong(2),
+                    rs.getInt(3)));
+            appendWhenFull(batch);
+        });
+        append(batch);
+
+        long finish = System.nanoTime();
+        logger.info("Seeded mark event log with {} events in {} ms", end,
+                (finish - start) / 1_000_000);
+    }
+
+    private void appendWhenFull(List<MarkEvent> batch) {
+        if (batch.size() == SEED_BATCH) {
+            append(batch);
+            batch.clear();
+        }
+    }
+
+    private void rotate(long base) {
+        active.force();
+        active = map(base);
+        activeBase = base;
+        segments.put(base, active);
+        logger.info("Started event log segment at offset {}", base);
+    }
+
+    private MappedByteBuffer map(long base) {
+        Path file = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) segmentEvents * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map event log segment " + file, e);
+        }
+    }
+
+    private static void encode(MappedByteBuffer segment, MarkEvent event) {
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.put(event.type().code())
+                .putInt(event.value())
+                .putLong(event.studentId())
+                .putLong(event.subjectId())
+                .putInt(checksum(record));
+        segment.put(record);
+    }
+
+    private static MarkEvent decode(MappedByteBuffer segment, int index, long offset) {
+        byte[] record = new byte[RECORD_SIZE];
+        segment.get(index * RECORD_SIZE, record);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        MarkEvent.Type type = MarkEvent.Type.of(buffer.get());
+        int value = buffer.getInt();
+        long studentId = buffer.getLong();
+        long subjectId = buffer.getLong();
+        if (type == null || buffer.getInt() != checksum(record)) {
+            return null;
+        }
+        return new MarkEvent(offset, type, studentId, subjectId, value);
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, RECORD_SIZE - Integer.BYTES);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,15 @@
+package idespring.lab5.service.eventlog;
+
+import idespring.lab5.dto.StudentReadModel;
+import idespring.lab5.dto.SubjectReadModel;
+import java.util.List;
+
+public interface MarkReadModelService {
+    List<MarkEvent> readEvents(long from, int limit);
+
+    long rebuild();
+
+    StudentReadModel getStudent(Long studentId);
+
+    SubjectReadModel getSubject(Long subjectId);
+}
@@ -0,0 +1,189 @@
+package idespring.lab5.service.eventlog;
+
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.StudentReadModel;
+import idespring.lab5.dto.SubjectReadModel;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps per-student and per-subject mark histograms and both directions of the enrollment
+ * index, built only from the {@link MarkEventLog}, which seeds itself from the database when
+ * it starts out empty.
+ */
+@Service
+public class MarkReadModelServiceImpl implements MarkReadModelService {
+    private final MarkEventLog eventLog;
+    private volatile Projection projection;
+    private static final Logger logger = LoggerFactory.getLogger(MarkReadModelServiceImpl.class);
+
+    @Autowired
+    public MarkReadModelServiceImpl(MarkEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuild();
+    }
+
+    @Override
+    public List<MarkEvent> readEvents(long from, int limit) {
+        List<MarkEvent> events = new ArrayList<>(Math.min(limit, 1_000));
+        eventLog.read(from, limit, events::add);
+        return events;
+    }
+
+    @Override
+    public long rebuild() {
+        final long start = System.nanoTime();
+        Projection fresh = new Projection();
+        eventLog.subscribe(0, fresh);
+        Projection previous = projection;
+        projection = fresh;
+        if (previous != null) {
+            eventLog.unsubscribe(previous);
+        }
+
+        long end = System.nanoTime();
+        logger.info("Rebuilt mark read models from {} events in {} ms", fresh.applied(),
+                (end - start) / 1_000_000);
+        return fresh.applied();
+    }
+
+    @Override
+    public StudentReadModel getStudent(Long studentId) {
+        return current().student(studentId);
+    }
+
+    @Override
+    public SubjectReadModel getSubject(Long subjectId) {
+        return current().subject(subjectId);
+    }
+
+    private Projection current() {
+        Projection current = projection;
+        return current != null ? current : new Projection();
+    }
+
+    // Histograms are indexed by mark value, as MarkDistribution.of expects.
+    private static final class Projection implements Consumer<MarkEvent> {
+        private final Map<Long, Map<Long, int[]>> cells = new HashMap<>();
+        private final Map<Long, int[]> studentCounts = new HashMap<>();
+        private final Map<Long, int[]> subjectCounts = new HashMap<>();
+        private final Map<Long, Set<Long>> subjectsByStudent = new HashMap<>();
+        private final Map<Long, Set<Long>> studentsBySubject = new HashMap<>();
+        private long applied;
+
+        @Override
+        public synchronized void accept(MarkEvent event) {
+            applied++;
+            long studentId = event.studentId();
+            long subjectId = event.subjectId();
+            switch (event.type()) {
+                case MARK_ADDED -> count(studentId, subjectId, event.value(), 1);
+                case MARK_REMOVED -> count(studentId, subjectId, event.value(), -1);
+                case ENROLLED -> {
+                    subjectsByStudent.computeIfAbsent(studentId, id -> new HashSet<>())
+                            .add(subjectId);
+                    studentsBySubject.computeIfAbsent(subjectId, id -> new HashSet<>())
+                            .add(studentId);
+                }
+                case UNENROLLED -> unenroll(studentId, subjectId);
+                case STUDENT_REMOVED -> removeStudent(studentId);
+                case SUBJECT_REMOVED -> removeSubject(subjectId);
+            }
+        }
+
+        synchronized long applied() {
+            return applied;
+        }
+
+        synchronized StudentReadModel student(long studentId) {
+            return new StudentReadModel(studentId,
+                    MarkDistribution.of(studentCounts.getOrDefault(studentId, empty())),
+                    sorted(subjectsByStudent.get(studentId)));
+        }
+
+        synchronized SubjectReadModel subject(long subjectId) {
+            return new SubjectReadModel(subjectId,
+                    MarkDistribution.of(subjectCounts.getOrDefault(subjectId, empty())),
+                    sorted(studentsBySubject.get(subjectId)));
+        }
+
+        private void count(long studentId, long subjectId, int value, int delta) {
+            if (value < MarkDistribution.MIN_VALUE || value > MarkDistribution.MAX_VALUE) {
+                return;
+            }
+            cells.computeIfAbsent(studentId, id -> new HashMap<>())
+                    .computeIfAbsent(subjectId, id -> empty())[value] += delta;
+            studentCounts.computeIfAbsent(studentId, id -> empty())[value] += delta;
+            subjectCounts.computeIfAbsent(subjectId, id -> empty())[value] += delta;
+        }
+
+        private void unenroll(long studentId, long subjectId) {
+            Set<Long> subjects = subjectsByStudent.get(studentId);
+            if (subjects != null) {
+                subjects.remove(subjectId);
+            }
+            Set<Long> students = studentsBySubject.get(subjectId);
+            if (students != null) {
+                students.remove(studentId);
+            }
+        }
+
+        private void removeStudent(long studentId) {
+            Map<Long, int[]> bySubject = cells.remove(studentId);
+            if (bySubject != null) {
+                bySubject.forEach((subjectId, counts) ->
+                        subtract(subjectCounts.get(subjectId), counts));
+            }
+            studentCounts.remove(studentId);
+            Set<Long> subjects = subjectsByStudent.remove(studentId);
+            if (subjects != null) {
+                subjects.forEach(subjectId -> studentsBySubject.get(subjectId).remove(studentId));
+            }
+        }
+
+        private void removeSubject(long subjectId) {
+            cells.forEach((studentId, bySubject) -> {
+                int[] counts = bySubject.remove(subjectId);
+                if (counts != null) {
+                    subtract(studentCounts.get(studentId), counts);
+                }
+            });
+            subjectCounts.remove(subjectId);
+            Set<Long> students = studentsBySubject.remove(subjectId);
+            if (students != null) {
+                students.forEach(studentId -> subjectsByStudent.get(studentId).remove(subjectId));
+            }
+        }
+
+        private static void subtract(int[] target, int[] counts) {
+            if (target == null) {
+                return;
+            }
+            for (int value = 0; value < counts.length; value++) {
+                target[value] -= counts[value];
+            }
+        }
+
+        private static int[] empty() {
+            return new int[MarkDistribution.MAX_VALUE + 1];
+        }
+
+        private static List<Long> sorted(Set<Long> ids) {
+            return ids == null ? List.of() : ids.stream().sorted().toList();
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package idespring.lab5.service.groupservice;
 
+import idespring.lab5.dto.KeysetPage;
 import idespring.lab5.model.Group;
 import java.util.List;
 
 public interface GroupService {
     List<Group> readGroups(String namePattern, String sort);
 
+    KeysetPage<Group> readGroupsPage(String namePattern, String sort, String cursor, int limit);
+
     Group findById(Long id);
 
     Group findByName(String name);
@@ -1,11 +1,19 @@
 package idespring.lab5.service.groupservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.model.Group;
 import idespring.lab5.model.Student;
 import idespring.lab5.repository.grouprepo.GroupRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import idespring.lab5.service.studservice.StudentServiceImpl;
 import jakarta.annotation.PreDestroy;
 import java.util.HashSet;
@@ -32,19 +40,37 @@ public class GroupServiceImpl implements GroupService {
 
     public final Set<String> groupCacheKeys = ConcurrentHashMap.newKeySet();
     private final StudentServiceImpl studentServiceImpl;
+    private final MarkStatisticsService markStatisticsService;
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkEventLog markEventLog;
+    private final NameIndex nameIndex;
 
     @Autowired
     public GroupServiceImpl(GroupRepository groupRepository, StudentRepository studentRepository,
                             CacheConfig<String, Object> cache,
-                            StudentServiceImpl studentServiceImpl) {
+                            StudentServiceImpl studentServiceImpl,
+                            MarkStatisticsService markStatisticsService,
+                            ColumnarMarkStore columnarMarkStore,
+                            MarkEventLog markEventLog,
+                            NameIndex nameIndex) {
         this.groupRepository = groupRepository;
         this.studentRepository = studentRepository;
         this.cache = cache;
         this.studentServiceImpl = studentServiceImpl;
+        this.markStatisticsService = markStatisticsService;
+        this.columnarMarkStore = columnarMarkStore;
+        this.markEventLog = markEventLog;
+        this.nameIndex = nameIndex;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Group> readGroups(String namePattern, String sort) {
+        // Index answers are cheap enough not to give every pattern its own cache entry.
+        if (namePattern != null && nameIndex.canSearch(namePattern)) {
+            return groupRepository.findAllById(nameIndex.search(NameKind.GROUP, namePattern));
+        }
+
         String cacheKey = ALL_GROUPS_PREFIX
                 + (namePattern != null ? namePattern : "") + (sort != null ? sort : "");
 
@@ -74,6 +100,34 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Group> readGroupsPage(String namePattern, String sort, String cursor,
+                                            int limit) {
+        // Shares the list prefix so invalidateGroupListCaches drops pages as well.
+        String cacheKey = ALL_GROUPS_PREFIX + "-page-" + namePattern + "-" + sort
+                + "-" + cursor + "-" + limit;
+
+        groupCacheKeys.add(cacheKey);
+
+        KeysetPage<Group> cachedPage = (KeysetPage<Group>) cache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        final long start = System.nanoTime();
+        List<Group> rows = groupRepository.findPage(namePattern, sort,
+                PageCursor.decode(cursor), limit);
+        KeysetPage<Group> page = KeysetPage.of(rows, limit, group -> new PageCursor(
+                sort != null ? group.getName() : null, group.getId()));
+
+        cache.put(cacheKey, page);
+        long end = System.nanoTime();
+        logger.info("Execution time for readGroupsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Group findById(Long id) {
         String cacheKey = GROUP_ID_PREFIX + id;
 
@@ -97,6 +151,7 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Group findByName(String name) {
         String cacheKey = GROUP_NAME_PREFIX + name;
 
@@ -159,12 +214,17 @@ public class GroupServiceImpl implements GroupService {
         }
 
         Group savedGroup = groupRepository.save(group);
+        for (Student student : savedGroup.getStudents()) {
+            markStatisticsService.recordStudentGroupChanged(student.getId(), savedGroup.getId());
+            columnarMarkStore.recordStudentGroupChanged(student.getId(), savedGroup.getId());
+        }
 
         String groupIdKey = GROUP_ID_PREFIX + savedGroup.getId();
         String groupNameKey = GROUP_NAME_PREFIX + savedGroup.getName();
 
         cache.put(groupIdKey, savedGroup);
         cache.put(groupNameKey, savedGroup);
+        nameIndex.recordSaved(NameKind.GROUP, savedGroup.getId(), savedGroup.getName());
 
         groupCacheKeys.add(groupIdKey);
         groupCacheKeys.add(groupNameKey);
@@ -209,6 +269,19 @@ public class GroupServiceImpl implements GroupService {
         invalidateGroupListCaches();
 
         groupRepository.deleteById(id);
+        nameIndex.recordRemoved(NameKind.GROUP, List.of(id));
+        recordStudentsRemoved(students);
+        markStatisticsService.invalidate();
+        columnarMarkStore.invalidate();
+    }
+
+    // Deleting a group deletes its students along with their marks and enrollments.
+    private void recordStudentsRemoved(Set<Student> students) {
+        for (Student student : students) {
+            markEventLog.record(MarkEvent.Type.STUDENT_REMOVED, student.getId(), 0, 0);
+        }
+        nameIndex.recordRemoved(NameKind.STUDENT,
+                students.stream().map(Student::getId).toList());
     }
 
     private void clearStudentsCache(Set<Student> students) {
@@ -244,6 +317,10 @@ public class GroupServiceImpl implements GroupService {
         invalidateGroupListCaches();
 
         groupRepository.deleteByName(name);
+        nameIndex.recordRemoved(NameKind.GROUP, List.of(group.getId()));
+        recordStudentsRemoved(students);
+        markStatisticsService.invalidate();
+        columnarMarkStore.invalidate();
     }
 
     public void invalidateGroupListCaches() {
@@ -0,0 +1,130 @@
+package idespring.lab5.service.importservice;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports every {@code students*.csv} and {@code marks*.csv} file that appears in the
+ * directory named by {@code import.watch-dir}, then moves it to {@code processed/} or
+ * {@code failed/}. Files must be moved in complete; a file still being written would be
+ * imported truncated.
+ */
+@Component
+@ConditionalOnProperty("import.watch-dir")
+public class ImportDirectoryWatcher {
+    private static final String PROCESSED = "processed";
+    private static final String FAILED = "failed";
+
+    private final ImportService importService;
+    private final Path directory;
+    private WatchService watchService;
+    private Thread thread;
+    private static final Logger logger = LoggerFactory.getLogger(ImportDirectoryWatcher.class);
+
+    @Autowired
+    public ImportDirectoryWatcher(ImportService importService,
+                                  @Value("${import.watch-dir}") String directory) {
+        this.importService = importService;
+        this.directory = Paths.get(directory);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory.resolve(PROCESSED));
+        Files.createDirectories(directory.resolve(FAILED));
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+
+        thread = new Thread(this::watch, "import-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for CSV imports", directory);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watch() {
+        try (Stream<Path> existing = Files.list(directory)) {
+            List<Path> files = existing.filter(Files::isRegularFile).sorted().toList();
+            files.forEach(this::process);
+        } catch (IOException e) {
+            logger.error("Failed to list {}", directory, e);
+        }
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name) {
+                        process(directory.resolve(name));
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Stopped watching {}", directory);
+        }
+    }
+
+    private void process(Path file) {
+        ImportKind kind = kindOf(file.getFileName().toString());
+        if (kind == null || !Files.isRegularFile(file)) {
+            return;
+        }
+
+        String target = PROCESSED;
+        try (InputStream input = Files.newInputStream(file)) {
+            importService.importCsv(kind, input, file.toString());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Import of {} failed", file, e);
+            target = FAILED;
+        }
+
+        try {
+            Files.move(file, directory.resolve(target).resolve(file.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Failed to move {} to {}", file, target, e);
+        }
+    }
+
+    private static ImportKind kindOf(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".csv")) {
+            return null;
+        }
+        if (name.startsWith("students")) {
+            return ImportKind.STUDENTS;
+        }
+        if (name.startsWith("marks")) {
+            return ImportKind.MARKS;
+        }
+        return null;
+    }
+}
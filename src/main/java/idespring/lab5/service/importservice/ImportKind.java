@@ -0,0 +1,40 @@
+package idespring.lab5.service.importservice;
+
+import java.util.List;
+
+public enum ImportKind {
+    STUDENTS(List.of("name", "age", "groupid"), 2,
+            List.of("students", "student-", "allGroups", "group", "name_")),
+    MARKS(List.of("studentid", "subjectid", "value"), 3,
+            List.of("marks-", "mark-", "avg-", "value-", "students", "student-"));
+
+    private final List<String> columns;
+    private final int requiredColumns;
+    private final List<String> cachePrefixes;
+
+    ImportKind(List<String> columns, int requiredColumns, List<String> cachePrefixes) {
+        this.columns = columns;
+        this.requiredColumns = requiredColumns;
+        this.cachePrefixes = cachePrefixes;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getRequiredColumns() {
+        return requiredColumns;
+    }
+
+    /**
+     * Whether the cache key belongs to a region an import of this kind can make stale.
+     */
+    public boolean isAffected(String cacheKey) {
+        for (String prefix : cachePrefixes) {
+            if (cacheKey.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
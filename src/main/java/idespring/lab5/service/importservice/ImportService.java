@@ -0,0 +1,16 @@
+package idespring.lab5.service.importservice;
+
+import idespring.lab5.dto.ImportStatus;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ImportService {
+    ImportStatus importCsv(ImportKind kind, InputStream input, String source);
+
+    List<ImportStatus> getRecentImports();
+
+    ImportStatus getImport(String id);
+
+    Path getRejectedFile(String id);
+}
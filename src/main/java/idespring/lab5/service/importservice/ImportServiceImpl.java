@@ -0,0 +1,508 @@
+package idespring.lab5.service.importservice;
+
+import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.ImportStatus;
+import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.repository.importrepo.ImportJdbcRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams CSV input through read → parse → COPY stages connected by bounded queues. One thread
+ * splits the input into chunks of lines, a pool of parsers validates them and encodes the
+ * accepted rows as COPY data, and the calling thread writes that data into a staging table
+ * inside a single transaction. Quoted fields may contain commas but not line breaks.
+ */
+@Service
+public class ImportServiceImpl implements ImportService {
+    private static final int CHUNK_LINES = 5_000;
+    private static final int RECENT_IMPORTS = 20;
+    private static final long POLL_MILLIS = 200;
+    private static final long PROGRESS_INTERVAL = 100_000;
+    private static final Chunk END_OF_INPUT = new Chunk(0, List.of());
+    private static final byte[] END_OF_DATA = new byte[0];
+
+    private final ImportJdbcRepository importJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheConfig<String, Object> cache;
+    private final MarkStatisticsService markStatisticsService;
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkEventLog markEventLog;
+    private final NameIndex nameIndex;
+    private final int parsers;
+    private final Path rejectDirectory;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final Map<String, ImportStatus> recentImports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportStatus> eldest) {
+            return size() > RECENT_IMPORTS;
+        }
+    };
+    private static final Logger logger = LoggerFactory.getLogger(ImportServiceImpl.class);
+
+    private record Chunk(long firstLine, List<String> lines) {}
+
+    @Autowired
+    public ImportServiceImpl(ImportJdbcRepository importJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             CacheConfig<String, Object> cache,
+                             MarkStatisticsService markStatisticsService,
+                             ColumnarMarkStore columnarMarkStore,
+                             MarkEventLog markEventLog,
+                             NameIndex nameIndex,
+                             @Value("${import.parsers:0}") int parsers,
+                             @Value("${import.reject-dir:${java.io.tmpdir}}") String rejectDir) {
+        this.importJdbcRepository = importJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = cache;
+        this.markStatisticsService = markStatisticsService;
+        this.columnarMarkStore = columnarMarkStore;
+        this.markEventLog = markEventLog;
+        this.nameIndex = nameIndex;
+        this.parsers = parsers > 0 ? parsers : Runtime.getRuntime().availableProcessors();
+        this.rejectDirectory = Paths.get(rejectDir);
+    }
+
+    @Override
+    public ImportStatus importCsv(ImportKind kind, InputStream input, String source) {
+        final long start = System.nanoTime();
+        ImportStatus status = new ImportStatus(UUID.randomUUID().toString(),
+                kind.name().toLowerCase(Locale.ROOT), source);
+        synchronized (recentImports) {
+            recentImports.put(status.getId(), status);
+        }
+        logger.info("Import {} of {} from {} started", status.getId(), kind, source);
+
+        Path rejectedPath = rejectDirectory.resolve("import-" + status.getId() + "-rejected.csv");
+        long imported;
+        boolean anyRejected;
+        try (RejectWriter rejects = new RejectWriter(rejectedPath, status)) {
+            Integer inserted = transactionTemplate.execute(tx -> {
+                importJdbcRepository.createStaging(kind);
+                long staged = copy(kind, input, status, rejects);
+                logger.info("Import {}: {} rows staged", status.getId(), staged);
+
+                String reason = switch (kind) {
+                    case STUDENTS -> "group does not exist";
+                    case MARKS -> "student does not exist or is not enrolled in subject";
+                };
+                importJdbcRepository.forEachUnresolved(kind, rs -> {
+                    String row = rs.getString(2) + "," + rs.getString(3) + ","
+                            + (rs.getString(4) != null ? rs.getString(4) : "");
+                    try {
+                        rejects.reject(rs.getLong(1), reason, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                int rows = importJdbcRepository.insertResolved(kind);
+                if (kind == ImportKind.MARKS) {
+                    importJdbcRepository.forEachResolvedMark(rs -> markEventLog.record(
+                            MarkEvent.Type.MARK_ADDED, rs.getLong(1), rs.getLong(2),
+                            rs.getInt(3)));
+                }
+                return rows;
+            });
+            imported = inserted != null ? inserted : 0;
+            anyRejected = rejects.isOpen();
+        } catch (IOException e) {
+            status.failed(e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            status.failed(e.getMessage());
+            logger.error("Import {} failed", status.getId(), e);
+            throw e;
+        }
+
+        status.completed(imported, anyRejected ? rejectedPath.toString() : null);
+        refreshCaches(kind);
+
+        long end = System.nanoTime();
+        logger.info("Import {} finished: {} imported, {} rejected in {} ms", status.getId(),
+                imported, status.getRowsRejected(), (end - start) / 1_000_000);
+        return status;
+    }
+
+    @Override
+    public List<ImportStatus> getRecentImports() {
+        synchronized (recentImports) {
+            return new ArrayList<>(recentImports.values());
+        }
+    }
+
+    @Override
+    public ImportStatus getImport(String id) {
+        ImportStatus status;
+        synchronized (recentImports) {
+            status = recentImports.get(id);
+        }
+        if (status == null) {
+            throw new EntityNotFoundException("Import not found with id: " + id);
+        }
+        return status;
+    }
+
+    @Override
+    public Path getRejectedFile(String id) {
+        String file = getImport(id).getRejectedFile();
+        if (file == null) {
+            throw new EntityNotFoundException("No rejected rows for import: " + id);
+        }
+        return Paths.get(file);
+    }
+
+    // The import bypassed the per-entity invalidation, so every region it touched is dropped
+    // in one pass over the cache and the in-memory views are rebuilt from the committed data.
+    // Imported students also need their groups in the mark statistics and the columnar store,
+    // or marks given to them later would be counted under no group.
+    private void refreshCaches(ImportKind kind) {
+        cache.removeIf(kind::isAffected);
+        markStatisticsService.reload();
+        columnarMarkStore.reload();
+        if (kind == ImportKind.STUDENTS) {
+            nameIndex.reload();
+        }
+    }
+
+    private long copy(ImportKind kind, InputStream input, ImportStatus status,
+                      RejectWriter rejects) {
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(parsers * 2);
+        BlockingQueue<byte[]> encoded = new ArrayBlockingQueue<>(parsers * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(parsers + 1, runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            pool.execute(guarded(failure, () -> read(kind, input, chunks, failure)));
+            for (int i = 0; i < parsers; i++) {
+                pool.execute(guarded(failure,
+                        () -> parse(kind, chunks, encoded, status, rejects, failure)));
+            }
+
+            int[] finished = {0};
+            return importJdbcRepository.copyIntoStaging(kind, () -> {
+                while (finished[0] < parsers) {
+                    byte[] data = take(encoded, failure);
+                    if (data != END_OF_DATA) {
+                        return data;
+                    }
+                    finished[0]++;
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // A stage that failed first makes the COPY abort; report the original cause.
+            Throwable cause = failure.get();
+            if (cause == null || cause instanceof CancellationException
+                    || cause instanceof InterruptedException) {
+                throw e;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw new IllegalStateException("Import pipeline failed", cause);
+        } finally {
+            failure.compareAndSet(null, new CancellationException("Import finished"));
+            pool.shutdownNow();
+        }
+    }
+
+    private void read(ImportKind kind, InputStream input, BlockingQueue<Chunk> chunks,
+                      AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long lineNumber = 0;
+            long firstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(kind, line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    put(chunks, new Chunk(firstLine, lines), failure);
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                put(chunks, new Chunk(firstLine, lines), failure);
+            }
+        }
+        for (int i = 0; i < parsers; i++) {
+            put(chunks, END_OF_INPUT, failure);
+        }
+    }
+
+    private void parse(ImportKind kind, BlockingQueue<Chunk> chunks, BlockingQueue<byte[]> encoded,
+                       ImportStatus status, RejectWriter rejects,
+                       AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        while (true) {
+            Chunk chunk = take(chunks, failure);
+            if (chunk == END_OF_INPUT) {
+                put(encoded, END_OF_DATA, failure);
+                return;
+            }
+
+            StringBuilder out = new StringBuilder(chunk.lines().size() * 32);
+            long lineNumber = chunk.firstLine();
+            for (String line : chunk.lines()) {
+                if (!line.isBlank()) {
+                    String error = encode(kind, lineNumber, line, out);
+                    if (error != null) {
+                        rejects.reject(lineNumber, error, line);
+                    }
+                }
+                lineNumber++;
+            }
+            if (!out.isEmpty()) {
+                put(encoded, out.toString().getBytes(StandardCharsets.UTF_8), failure);
+            }
+
+            int size = chunk.lines().size();
+            long read = status.rowsRead(size);
+            if (read / PROGRESS_INTERVAL != (read - size) / PROGRESS_INTERVAL) {
+                logger.info("Import {}: {} rows read, {} rejected", status.getId(), read,
+                        status.getRowsRejected());
+            }
+        }
+    }
+
+    /**
+     * Appends the row as COPY CSV prefixed with its line number, or returns why it was rejected.
+     */
+    private static String encode(ImportKind kind, long lineNumber, String line,
+                                 StringBuilder out) {
+        List<String> fields = split(line);
+        if (fields == null) {
+            return "unterminated quoted field";
+        }
+        if (fields.size() < kind.getRequiredColumns()
+                || fields.size() > kind.getColumns().size()) {
+            return "expected columns " + String.join(",", kind.getColumns());
+        }
+
+        switch (kind) {
+            case STUDENTS -> {
+                String name = fields.get(0).trim();
+                if (name.isEmpty()) {
+                    return "name must not be empty";
+                }
+                Long age = parsePositive(fields.get(1));
+                if (age == null || age > Integer.MAX_VALUE) {
+                    return "age must be a positive integer";
+                }
+                Long groupId = null;
+                if (fields.size() > 2 && !fields.get(2).isBlank()) {
+                    groupId = parsePositive(fields.get(2));
+                    if (groupId == null) {
+                        return "groupId must be a positive integer";
+                    }
+                }
+                out.append(lineNumber).append(",\"").append(name.replace("\"", "\"\""))
+                        .append("\",").append(age).append(',');
+                if (groupId != null) {
+                    out.append(groupId);
+                }
+            }
+            case MARKS -> {
+                Long studentId = parsePositive(fields.get(0));
+                if (studentId == null) {
+                    return "studentId must be a positive integer";
+                }
+                Long subjectId = parsePositive(fields.get(1));
+                if (subjectId == null) {
+                    return "subjectId must be a positive integer";
+                }
+                Long value = parsePositive(fields.get(2));
+                if (value == null || value > 10) {
+                    return "value must be between 1 and 10";
+                }
+                out.append(lineNumber).append(',').append(studentId).append(',')
+                        .append(subjectId).append(',').append(value);
+            }
+        }
+        out.append('\n');
+        return null;
+    }
+
+    private static boolean isHeader(ImportKind kind, String line) {
+        List<String> fields = split(line);
+        if (fields == null || fields.size() < kind.getRequiredColumns()
+                || fields.size() > kind.getColumns().size()) {
+            return false;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            if (!fields.get(i).trim().toLowerCase(Locale.ROOT).equals(kind.getColumns().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Long parsePositive(String field) {
+        try {
+            long value = Long.parseLong(field.trim());
+            return value > 0 ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static Runnable guarded(AtomicReference<Throwable> failure, Stage stage) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (CancellationException | InterruptedException e) {
+                failure.compareAndSet(null, e);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                logger.error("Import stage failed", e);
+            }
+        };
+    }
+
+    // Bounded waits let every stage notice when another one failed instead of blocking on a
+    // queue that will never drain or fill again.
+    private static <T> void put(BlockingQueue<T> queue, T item,
+                                AtomicReference<Throwable> failure) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            abortIfFailed(failure);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue,
+                              AtomicReference<Throwable> failure) throws InterruptedException {
+        T item;
+        while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            abortIfFailed(failure);
+        }
+        return item;
+    }
+
+    private static void abortIfFailed(AtomicReference<Throwable> failure) {
+        if (failure.get() != null) {
+            throw new CancellationException("Import aborted");
+        }
+    }
+
+    /**
+     * Collects rejected rows as {@code line,reason,row}; the file is only created once the
+     * first row is rejected.
+     */
+    private static final class RejectWriter implements Closeable {
+        private final Path path;
+        private final ImportStatus status;
+        private Writer writer;
+
+        RejectWriter(Path path, ImportStatus status) {
+            this.path = path;
+            this.status = status;
+        }
+
+        synchronized void reject(long line, String reason, String row) throws IOException {
+            if (writer == null) {
+                Files.createDirectories(path.getParent());
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                writer.write("line,reason,row\n");
+            }
+            writer.write(line + "," + quote(reason) + "," + quote(row) + "\n");
+            status.rowRejected();
+        }
+
+        synchronized boolean isOpen() {
+            return writer != null;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package idespring.lab5.service.jobservice;
+
+import idespring.lab5.dto.BulkJob;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public interface BulkJobService {
+    <T, R> BulkJob submit(String kind, InputStream payload, Class<T> type,
+                          Function<List<T>, List<R>> handler);
+
+    BulkJob getJob(String id);
+
+    List<BulkJob> getJobs();
+
+    void subscribe(String id, Consumer<BulkJob> listener);
+
+    void unsubscribe(String id, Consumer<BulkJob> listener);
+}
@@ -0,0 +1,208 @@
+package idespring.lab5.service.jobservice;
+
+import idespring.lab5.dto.BulkJob;
+import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.JobRejectedException;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs bulk payloads on a small fixed pool so long imports hold at most
+ * {@code jobs.max-concurrent} database connections and never a servlet thread. The payload is
+ * spooled to a temporary file first, which lets the request return as soon as it is uploaded.
+ */
+@Service
+public class BulkJobServiceImpl implements BulkJobService {
+    private static final int RETAINED_JOBS = 100;
+
+    private final BulkChunkProcessor bulkChunkProcessor;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final Map<String, List<Consumer<BulkJob>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, BulkJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BulkJob> eldest) {
+            return size() > RETAINED_JOBS && eldest.getValue().isFinished();
+        }
+    };
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobServiceImpl.class);
+
+    @Autowired
+    public BulkJobServiceImpl(BulkChunkProcessor bulkChunkProcessor,
+                              @Value("${jobs.max-concurrent:2}") int maxConcurrent,
+                              @Value("${jobs.queue-capacity:10}") int queueCapacity) {
+        this.bulkChunkProcessor = bulkChunkProcessor;
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "bulk-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public <T, R> BulkJob submit(String kind, InputStream payload, Class<T> type,
+                                 Function<List<T>, List<R>> handler) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new JobRejectedException("Too many bulk jobs queued, retry later");
+        }
+
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), kind);
+        Path spool = spool(job, payload);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        try {
+            executor.execute(() -> run(job, spool, type, handler));
+        } catch (RejectedExecutionException e) {
+            delete(spool);
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            throw new JobRejectedException("Too many bulk jobs queued, retry later");
+        }
+        logger.info("Bulk job {} for {} queued", job.getId(), kind);
+        return job;
+    }
+
+    @Override
+    public BulkJob getJob(String id) {
+        BulkJob job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            throw new EntityNotFoundException("Job not found with id: " + id);
+        }
+        return job;
+    }
+
+    @Override
+    public List<BulkJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    @Override
+    public void subscribe(String id, Consumer<BulkJob> listener) {
+        BulkJob job = getJob(id);
+        listeners.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>()).add(listener);
+        // Deliver the current state so a subscriber that arrives late still sees the outcome.
+        listener.accept(job);
+        if (job.isFinished()) {
+            unsubscribe(id, listener);
+        }
+    }
+
+    @Override
+    public void unsubscribe(String id, Consumer<BulkJob> listener) {
+        List<Consumer<BulkJob>> subscribed = listeners.get(id);
+        if (subscribed != null) {
+            subscribed.remove(listener);
+        }
+    }
+
+    private <T, R> void run(BulkJob job, Path spool, Class<T> type,
+                            Function<List<T>, List<R>> handler) {
+        job.started();
+        publish(job);
+        try (InputStream input = Files.newInputStream(spool)) {
+            bulkChunkProcessor.process(input, type, handler,
+                    new BulkChunkProcessor.ChunkListener<R>() {
+                        @Override
+                        public void committed(int chunk, long offset, int size, List<R> created) {
+                            job.chunkCommitted(size, created != null ? created.size() : 0);
+                            publish(job);
+                        }
+
+                        @Override
+                        public void failed(int chunk, long offset, RuntimeException error) {
+                            job.failed("Chunk " + chunk + " at offset " + offset + ": "
+                                    + error.getMessage());
+                        }
+                    });
+            if (!job.isFinished()) {
+                job.completed();
+            }
+        } catch (IOException | RuntimeException e) {
+            job.failed(e.getMessage());
+        } finally {
+            delete(spool);
+        }
+
+        logger.info("Bulk job {} {}: {} processed in {} ms", job.getId(), job.getState(),
+                job.getProcessed(), job.getElapsedMillis());
+        publish(job);
+        listeners.remove(job.getId());
+    }
+
+    private void publish(BulkJob job) {
+        List<Consumer<BulkJob>> subscribed = listeners.get(job.getId());
+        if (subscribed == null) {
+            return;
+        }
+        for (Consumer<BulkJob> listener : subscribed) {
+            try {
+                listener.accept(job);
+            } catch (RuntimeException e) {
+                subscribed.remove(listener);
+            }
+        }
+    }
+
+    private static Path spool(BulkJob job, InputStream payload) {
+        try {
+            Path spool = Files.createTempFile("bulk-job-" + job.getId(), ".json");
+            try {
+                Files.copy(payload, spool, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                delete(spool);
+                throw e;
+            }
+            return spool;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            logger.warn("Failed to delete bulk job spool {}", spool, e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package idespring.lab5.service.markservice;
+
+import idespring.lab5.dto.MarkExportRow;
+import java.util.function.Consumer;
+
+public interface MarkExportService {
+    long exportMarks(Long studentId, Long subjectId, Consumer<MarkExportRow> consumer);
+}
@@ -0,0 +1,42 @@
+package idespring.lab5.service.markservice;
+
+import idespring.lab5.dto.MarkExportRow;
+import idespring.lab5.repository.markrepo.MarkRepository;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class MarkExportServiceImpl implements MarkExportService {
+    private final MarkRepository markRepository;
+    private static final Logger logger = LoggerFactory.getLogger(MarkExportServiceImpl.class);
+
+    @Autowired
+    public MarkExportServiceImpl(MarkRepository markRepository) {
+        this.markRepository = markRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportMarks(Long studentId, Long subjectId, Consumer<MarkExportRow> consumer) {
+        final long start = System.nanoTime();
+        long count = 0;
+        try (Stream<MarkExportRow> rows = markRepository.streamForExport(studentId, subjectId)) {
+            Iterator<MarkExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+
+        long end = System.nanoTime();
+        logger.info("Exported {} marks for student: {}, subject: {} in {} ms",
+                count, studentId, subjectId, (end - start) / 1_000_000);
+        return count;
+    }
+}
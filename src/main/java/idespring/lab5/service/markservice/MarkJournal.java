@@ -0,0 +1,157 @@
+package idespring.lab5.service.markservice;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of marks accepted by the write-behind buffer. Every record carries a
+ * sequence number and a CRC, so a record torn by a crash ends the journal instead of being
+ * replayed. The checkpoint, the highest sequence already written to the database, is kept by
+ * the caller in the database itself; once everything up to the last record is checkpointed
+ * the journal is truncated.
+ */
+public class MarkJournal implements Closeable {
+    // sequence, value, studentid, subjectid, crc
+    private static final int RECORD_SIZE = Long.BYTES + Integer.BYTES + 2 * Long.BYTES
+            + Integer.BYTES;
+
+    public record Entry(long sequence, int value, long studentId, long subjectId) {
+    }
+
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    private final List<Entry> recovered;
+    private long written;
+    private volatile long durable;
+
+    /**
+     * Opens the journal in {@code directory}. Records up to {@code checkpoint} are already in
+     * the database and are not recovered; new records are numbered after it even if the
+     * journal itself was lost.
+     */
+    public MarkJournal(Path directory, long checkpoint) throws IOException {
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve("marks.journal"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        List<Entry> entries = readValidPrefix();
+        long validLength = (long) entries.size() * RECORD_SIZE;
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        recovered = entries.stream().filter(entry -> entry.sequence() > checkpoint).toList();
+        written = entries.isEmpty()
+                ? checkpoint
+                : Math.max(checkpoint, entries.get(entries.size() - 1).sequence());
+        durable = written;
+    }
+
+    /**
+     * Entries a previous run journaled but never checkpointed, in sequence order.
+     */
+    public List<Entry> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Writes a record without forcing it to disk; call {@link #sync(long)} before relying on it.
+     */
+    public synchronized Entry write(int value, long studentId, long subjectId) throws IOException {
+        Entry entry = new Entry(written + 1, value, studentId, subjectId);
+        long position = channel.position();
+        try {
+            ByteBuffer buffer = encode(entry);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            channel.truncate(position);
+            channel.position(position);
+            throw e;
+        }
+        written = entry.sequence();
+        return entry;
+    }
+
+    /**
+     * Returns once the record with the given sequence is on disk. Callers arriving while a
+     * force is in progress wait for it and are usually covered by the next one, so concurrent
+     * writers share a single fsync.
+     */
+    public void sync(long sequence) throws IOException {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            long upTo;
+            synchronized (this) {
+                upTo = written;
+            }
+            channel.force(false);
+            durable = upTo;
+        }
+    }
+
+    /**
+     * Called once every entry up to {@code sequence} is committed to the database, checkpoint
+     * included; truncates the journal when that covers all of it.
+     */
+    public void checkpoint(long sequence) throws IOException {
+        synchronized (this) {
+            if (sequence == written) {
+                channel.truncate(0);
+                channel.position(0);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<Entry> readValidPrefix() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        long position = 0;
+        while (channel.read(buffer, position) == RECORD_SIZE) {
+            buffer.flip();
+            Entry entry = new Entry(buffer.getLong(), buffer.getInt(), buffer.getLong(),
+                    buffer.getLong());
+            int crc = buffer.getInt();
+            if (crc != checksum(buffer, RECORD_SIZE - Integer.BYTES)) {
+                break;
+            }
+            entries.add(entry);
+            position += RECORD_SIZE;
+            buffer.clear();
+        }
+        return entries;
+    }
+
+    private static ByteBuffer encode(Entry entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(entry.sequence())
+                .putInt(entry.value())
+                .putLong(entry.studentId())
+                .putLong(entry.subjectId());
+        buffer.putInt(checksum(buffer, buffer.position()));
+        return buffer.flip();
+    }
+
+    private static int checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length);
+        return (int) crc.getValue();
+    }
+}
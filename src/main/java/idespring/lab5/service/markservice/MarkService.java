@@ -1,11 +1,15 @@
 package idespring.lab5.service.markservice;
 
+import idespring.lab5.dto.BatchAverages;
+import idespring.lab5.dto.KeysetPage;
 import idespring.lab5.model.Mark;
 import java.util.List;
 
 public interface MarkService {
     List<Mark> readMarks(Long studentId, Long subjectId);
 
+    KeysetPage<Mark> readMarksPage(Long studentId, Long subjectId, String cursor, int limit);
+
     List<Mark> findByValue(int value);
 
     void deleteMarkSpecific(Long studentId, String subjectName, int markValue, Long id);
@@ -14,7 +18,17 @@ public interface MarkService {
 
     Double getAverageMarkBySubjectId(Long subjectId);
 
+    BatchAverages getAverageMarksByStudentIds(List<Long> studentIds);
+
+    BatchAverages getAverageMarksBySubjectIds(List<Long> subjectIds);
+
     Mark addMark(Mark mark);
 
+    List<Mark> addMarks(List<Mark> marks);
+
+    void checkEnrollment(Mark mark);
+
+    List<Mark> insertEnrolledMarks(List<Mark> marks);
+
     void deleteMark(Long id);
 }
\ No newline at end of file
@@ -1,17 +1,33 @@
 package idespring.lab5.service.markservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.BatchAverages;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.exceptions.SubjectNotAssignedException;
+import idespring.lab5.exceptions.ValidationException;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
 import idespring.lab5.repository.markrepo.MarkRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import idespring.lab5.service.studentsubjserv.StudentSubjectService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,26 +38,40 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class MarkServiceImpl implements MarkService {
     private final MarkRepository markRepository;
+    private final MarkJdbcRepository markJdbcRepository;
     private final StudentRepository studentRepository;
     private final SubjectRepository subjectRepository;
     private final StudentSubjectService studentSubjectService;
+    private final MarkStatisticsService markStatisticsService;
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkEventLog markEventLog;
     private final CacheConfig<String, Object> cache;
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
     private static final Logger logger = LoggerFactory.getLogger(MarkServiceImpl.class);
 
     @Autowired
     public MarkServiceImpl(MarkRepository markRepository,
+                           MarkJdbcRepository markJdbcRepository,
                            StudentRepository studentRepository,
                            SubjectRepository subjectRepository,
                            StudentSubjectService studentSubjectService,
+                           MarkStatisticsService markStatisticsService,
+                           ColumnarMarkStore columnarMarkStore,
+                           MarkEventLog markEventLog,
                            CacheConfig<String, Object> cache) {
         this.markRepository = markRepository;
+        this.markJdbcRepository = markJdbcRepository;
         this.studentRepository = studentRepository;
         this.subjectRepository = subjectRepository;
         this.studentSubjectService = studentSubjectService;
+        this.markStatisticsService = markStatisticsService;
+        this.columnarMarkStore = columnarMarkStore;
+        this.markEventLog = markEventLog;
         this.cache = cache;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mark> readMarks(Long studentId, Long subjectId) {
         if (studentId != null && subjectId != null) {
             boolean hasSubject = studentSubjectService.getSubjectsByStudent(studentId)
@@ -83,6 +113,29 @@ public class MarkServiceImpl implements MarkService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Mark> readMarksPage(Long studentId, Long subjectId, String cursor,
+                                          int limit) {
+        String cacheKey = "marks-page-" + studentId + "-" + subjectId + "-" + cursor + "-" + limit;
+        KeysetPage<Mark> cachedPage = (KeysetPage<Mark>) cache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        logger.info("Fetching marks page for student: {}, subject: {}, cursor: {}",
+                studentId, subjectId, cursor);
+        List<Mark> rows = markRepository.findPage(studentId, subjectId,
+                PageCursor.decode(cursor), limit);
+        KeysetPage<Mark> page = KeysetPage.of(rows, limit,
+                mark -> new PageCursor(null, mark.getId()));
+
+        cache.put(cacheKey, page);
+        pageCacheKeys.add(cacheKey);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Mark> findByValue(int value) {
         String cacheKey = "value-" + value;
         List<Mark> cachedMarks = (List<Mark>) cache.get(cacheKey);
@@ -96,7 +149,12 @@ public class MarkServiceImpl implements MarkService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Double getAverageMarkByStudentId(Long studentId) {
+        if (markStatisticsService.isReady()) {
+            return markStatisticsService.getStudentAverage(studentId);
+        }
+
         String cacheKey = "avg-student-" + studentId;
         Double cachedAvg = (Double) cache.get(cacheKey);
         if (cachedAvg != null) {
@@ -109,7 +167,12 @@ public class MarkServiceImpl implements MarkService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Double getAverageMarkBySubjectId(Long subjectId) {
+        if (markStatisticsService.isReady()) {
+            return markStatisticsService.getSubjectAverage(subjectId);
+        }
+
         String cacheKey = "avg-subject-" + subjectId;
         Double cachedAvg = (Double) cache.get(cacheKey);
         if (cachedAvg != null) {
@@ -121,6 +184,65 @@ public class MarkServiceImpl implements MarkService {
         return avgMark;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BatchAverages getAverageMarksByStudentIds(List<Long> studentIds) {
+        if (markStatisticsService.isReady()) {
+            return resolveAverages(studentIds, markStatisticsService::getStudentAverage);
+        }
+        return resolveAverages(studentIds, "avg-student-",
+                markRepository::getAverageMarksByStudentIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BatchAverages getAverageMarksBySubjectIds(List<Long> subjectIds) {
+        if (markStatisticsService.isReady()) {
+            return resolveAverages(subjectIds, markStatisticsService::getSubjectAverage);
+        }
+        return resolveAverages(subjectIds, "avg-subject-",
+                markRepository::getAverageMarksBySubjectIds);
+    }
+
+    private BatchAverages resolveAverages(List<Long> ids, Function<Long, Double> average) {
+        long[] resolvedIds = new long[ids.size()];
+        Double[] averages = new Double[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            resolvedIds[i] = ids.get(i);
+            averages[i] = average.apply(ids.get(i));
+        }
+        return new BatchAverages(resolvedIds, averages);
+    }
+
+    private BatchAverages resolveAverages(List<Long> ids, String cachePrefix,
+                                          Function<Set<Long>, List<Object[]>> query) {
+        final long start = System.nanoTime();
+        Map<Long, Double> resolved = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            Double cachedAvg = (Double) cache.get(cachePrefix + id);
+            if (cachedAvg != null) {
+                resolved.put(id, cachedAvg);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Object[] row : query.apply(missing)) {
+                Long id = ((Number) row[0]).longValue();
+                Double avgMark = ((Number) row[1]).doubleValue();
+                resolved.put(id, avgMark);
+                cache.put(cachePrefix + id, avgMark);
+            }
+        }
+
+        long end = System.nanoTime();
+        logger.info("Resolved {} averages ({} from database) in {} ms",
+                ids.size(), missing.size(), (end - start) / 1_000_000);
+        return resolveAverages(ids, resolved::get);
+    }
+
     @Override
     @Transactional
     public void deleteMarkSpecific(Long studentId, String subjectName, int markValue, Long id) {
@@ -137,6 +259,11 @@ public class MarkServiceImpl implements MarkService {
         if (deletedCount == 0) {
             throw new EntityNotFoundException("Mark not found with the given criteria.");
         }
+        for (int i = 0; i < deletedCount; i++) {
+            markStatisticsService.recordMarkRemoved(studentId, subjectId, markValue);
+            markEventLog.record(MarkEvent.Type.MARK_REMOVED, studentId, subjectId, markValue);
+        }
+        columnarMarkStore.recordMarksRemoved(studentId, subjectId, markValue, deletedCount);
 
         clearCacheForSubject(subjectId);
         clearCacheForStudent(studentId);
@@ -148,30 +275,140 @@ public class MarkServiceImpl implements MarkService {
     @Override
     @Transactional
     public Mark addMark(Mark mark) {
+        requireIds(mark);
+        Long studentId = mark.getStudent().getId();
+        Long subjectId = mark.getSubject().getId();
         logger.info("Adding mark for student: {}, subject: {}, value: {}",
-                mark.getStudent().getId(), mark.getSubject().getId(), mark.getValue());
-
-        Student student = studentRepository.findById(mark.getStudent().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Student not found with id: "
-                        + mark.getStudent().getId()));
-        Subject subject = subjectRepository.findById(mark.getSubject().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Subject not found with id: "
-                        + mark.getSubject().getId()));
-
-        boolean hasSubject = studentSubjectService.getSubjectsByStudent(student.getId())
-                .stream().anyMatch(s ->
-                        s.getId().equals(subject.getId()));
+                studentId, subjectId, mark.getValue());
+
+        // The enrollment check is part of the insert; the lookups below only run to explain
+        // a rejected mark.
+        Long id = markJdbcRepository.insertMarkIfEnrolled(mark.getValue(), studentId, subjectId)
+                .orElseThrow(() -> rejectedMark(studentId, subjectId));
+        mark.setId(id);
+
+        recordMarksAdded(List.of(mark));
+        return mark;
+    }
+
+    @Override
+    public void checkEnrollment(Mark mark) {
+        requireIds(mark);
+        Long studentId = mark.getStudent().getId();
+        Long subjectId = mark.getSubject().getId();
+        boolean hasSubject = studentSubjectService.getSubjectsByStudent(studentId)
+                .stream().anyMatch(s -> s.getId().equals(subjectId));
         if (!hasSubject) {
-            throw new SubjectNotAssignedException("Student with ID " + student.getId()
-                    + " does not have subject with ID " + subject.getId());
+            throw rejectedMark(studentId, subjectId);
+        }
+    }
+
+    private static void requireIds(Mark mark) {
+        if (mark.getStudent() == null || mark.getStudent().getId() == null
+                || mark.getSubject() == null || mark.getSubject().getId() == null) {
+            throw new ValidationException("Mark needs a studentId and a subjectId");
         }
+    }
+
+    private RuntimeException rejectedMark(Long studentId, Long subjectId) {
+        if (!studentRepository.existsById(studentId)) {
+            return new EntityNotFoundException("Student not found with id: " + studentId);
+        }
+        if (!subjectRepository.existsById(subjectId)) {
+            return new EntityNotFoundException("Subject not found with id: " + subjectId);
+        }
+        return new SubjectNotAssignedException("Student with ID " + studentId
+                + " does not have subject with ID " + subjectId);
+    }
+
+    @Override
+    @Transactional
+    public List<Mark> addMarks(List<Mark> marks) {
+        final long start = System.nanoTime();
+        logger.info("Adding {} marks in bulk", marks.size());
+
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (Mark mark : marks) {
+            if (mark.getStudent() == null || mark.getStudent().getId() == null
+                    || mark.getSubject() == null || mark.getSubject().getId() == null) {
+                throw new ValidationException("Every mark needs a studentId and a subjectId");
+            }
+            studentIds.add(mark.getStudent().getId());
+            subjectIds.add(mark.getSubject().getId());
+        }
+
+        Set<Long> missingStudents = new HashSet<>(studentIds);
+        studentRepository.findExistingIds(studentIds).forEach(missingStudents::remove);
+        if (!missingStudents.isEmpty()) {
+            throw new EntityNotFoundException("Students not found with ids: " + missingStudents);
+        }
+        Set<Long> missingSubjects = new HashSet<>(subjectIds);
+        subjectRepository.findExistingIds(subjectIds).forEach(missingSubjects::remove);
+        if (!missingSubjects.isEmpty()) {
+            throw new EntityNotFoundException("Subjects not found with ids: " + missingSubjects);
+        }
+
+        Set<List<Long>> enrollments = new HashSet<>();
+        for (Object[] row : studentRepository.findEnrollments(studentIds, subjectIds)) {
+            enrollments.add(List.of(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+        for (Mark mark : marks) {
+            if (!enrollments.contains(List.of(mark.getStudent().getId(),
+                    mark.getSubject().getId()))) {
+                throw new SubjectNotAssignedException("Student with ID "
+                        + mark.getStudent().getId() + " does not have subject with ID "
+                        + mark.getSubject().getId());
+            }
+        }
+
+        markJdbcRepository.insertMarks(marks);
+        recordMarksAdded(marks);
+
+        long end = System.nanoTime();
+        logger.info("Execution time for addMarks: {} ms", (end - start) / 1_000_000);
+        return marks;
+    }
 
-        final Mark savedMark = markRepository.save(mark);
+    // Used by the write-behind writer: enrollment was checked when the mark was accepted,
+    // so a mark whose enrollment has gone since is dropped rather than failing the batch.
+    @Override
+    @Transactional
+    public List<Mark> insertEnrolledMarks(List<Mark> marks) {
+        List<Mark> enrolled = new ArrayList<>(marks.size());
+        for (int position : markJdbcRepository.findEnrolledPositions(marks)) {
+            enrolled.add(marks.get(position));
+        }
+        if (enrolled.size() < marks.size()) {
+            logger.warn("Dropping {} buffered marks without an enrollment",
+                    marks.size() - enrolled.size());
+        }
+        if (enrolled.isEmpty()) {
+            return enrolled;
+        }
 
-        clearCacheForSubject(subject.getId());
-        clearCacheForStudent(student.getId());
+        markJdbcRepository.insertMarks(enrolled);
+        recordMarksAdded(enrolled);
+        return enrolled;
+    }
 
-        return savedMark;
+    private void recordMarksAdded(List<Mark> marks) {
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Integer> values = new HashSet<>();
+        Set<List<Long>> pairs = new HashSet<>();
+        for (Mark mark : marks) {
+            Long studentId = mark.getStudent().getId();
+            Long subjectId = mark.getSubject().getId();
+            markStatisticsService.recordMarkAdded(studentId, subjectId, mark.getValue());
+            columnarMarkStore.recordMarkAdded(studentId, subjectId, mark.getValue());
+            markEventLog.record(MarkEvent.Type.MARK_ADDED, studentId, subjectId, mark.getValue());
+            studentIds.add(studentId);
+            subjectIds.add(subjectId);
+            values.add(mark.getValue());
+            pairs.add(List.of(studentId, subjectId));
+        }
+        clearCacheForBatch(studentIds, subjectIds, pairs, values);
     }
 
     @Override
@@ -186,6 +423,9 @@ public class MarkServiceImpl implements MarkService {
         Long subjectId = mark.getSubject().getId();
 
         markRepository.deleteById(id);
+        markStatisticsService.recordMarkRemoved(studentId, subjectId, mark.getValue());
+        columnarMarkStore.recordMarksRemoved(studentId, subjectId, mark.getValue(), 1);
+        markEventLog.record(MarkEvent.Type.MARK_REMOVED, studentId, subjectId, mark.getValue());
 
         clearCacheForSubject(subjectId);
         clearCacheForStudent(studentId);
@@ -209,6 +449,7 @@ public class MarkServiceImpl implements MarkService {
         cache.remove("marks-all-" + subjectId);
         cache.remove("marks-all-all");
         cache.remove("avg-subject-" + subjectId);
+        clearPageCaches();
 
         for (Mark mark : subjectMarks) {
             cache.remove("mark-" + mark.getId());
@@ -234,10 +475,40 @@ public class MarkServiceImpl implements MarkService {
         cache.remove("marks-" + studentId + "-all");
         cache.remove("marks-all-all");
         cache.remove("avg-student-" + studentId);
+        clearPageCaches();
 
         for (Mark mark : studentMarks) {
             cache.remove("mark-" + mark.getId());
             cache.remove("value-" + mark.getValue());
         }
     }
-}
\ No newline at end of file
+
+    // Every key a batch can have made stale is known from the batch itself, so unlike
+    // clearCacheForSubject/Student this needs no queries.
+    private void clearCacheForBatch(Set<Long> studentIds, Set<Long> subjectIds,
+                                    Set<List<Long>> pairs, Set<Integer> values) {
+        for (Long studentId : studentIds) {
+            cache.remove("marks-" + studentId + "-all");
+            cache.remove("avg-student-" + studentId);
+        }
+        for (Long subjectId : subjectIds) {
+            cache.remove("marks-all-" + subjectId);
+            cache.remove("avg-subject-" + subjectId);
+        }
+        for (List<Long> pair : pairs) {
+            cache.remove("marks-" + pair.get(0) + "-" + pair.get(1));
+        }
+        for (Integer value : values) {
+            cache.remove("value-" + value);
+        }
+        cache.remove("marks-all-all");
+        clearPageCaches();
+    }
+
+    public void clearPageCaches() {
+        for (String key : pageCacheKeys) {
+            cache.remove(key);
+            pageCacheKeys.remove(key);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package idespring.lab5.service.markservice;
+
+import idespring.lab5.exceptions.BufferFullException;
+import idespring.lab5.model.Mark;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Accepts single marks when {@code marks.write-behind.enabled=true}. A mark is acknowledged
+ * once its journal record is on disk; a background writer inserts queued marks in batches of
+ * up to {@code marks.write-behind.batch-size}, one transaction per batch. The journal's
+ * checkpoint is updated in that same transaction, so a crash after the commit cannot replay
+ * the batch a second time. The journal lives in {@code marks.write-behind.journal-dir}, which
+ * has to be set: a temporary directory could be cleaned up along with acknowledged marks.
+ * At most {@code marks.write-behind.queue-capacity} marks wait at
+ * a time: callers wait up to {@code marks.write-behind.offer-timeout-ms} for room and are
+ * then rejected. Marks left in the journal by a crash are queued again on startup.
+ *
+ * <p>Acknowledged marks have no id yet, and a mark whose enrollment is removed before it is
+ * written is dropped by the writer.
+ */
+@Component
+@ConditionalOnProperty(name = "marks.write-behind.enabled", havingValue = "true")
+public class MarkWriteBehindBuffer {
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    private final MarkService markService;
+    private final MarkJdbcRepository markJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String journalId;
+    private final MarkJournal journal;
+    private final BlockingQueue<MarkJournal.Entry> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final Object appendLock = new Object();
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private static final Logger logger = LoggerFactory.getLogger(MarkWriteBehindBuffer.class);
+
+    @Autowired
+    public MarkWriteBehindBuffer(
+            MarkService markService,
+            MarkJdbcRepository markJdbcRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${marks.write-behind.journal-dir}") String journalDir,
+            @Value("${marks.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${marks.write-behind.batch-size:500}") int batchSize,
+            @Value("${marks.write-behind.flush-interval-ms:20}") long flushIntervalMillis,
+            @Value("${marks.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis)
+            throws IOException {
+        this.markService = markService;
+        this.markJdbcRepository = markJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        Path directory = Paths.get(journalDir).toAbsolutePath().normalize();
+        this.journalId = directory.toString();
+        this.journal = new MarkJournal(directory,
+                markJdbcRepository.findJournalCheckpoint(journalId));
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        List<MarkJournal.Entry> recovered = journal.recovered();
+        if (!recovered.isEmpty()) {
+            logger.info("Replaying {} journaled marks", recovered.size());
+        }
+        queue.addAll(recovered);
+        this.capacity = new Semaphore(queueCapacity - recovered.size());
+
+        writer = new Thread(this::run, "mark-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Validates the mark, journals it and queues it for the writer.
+     */
+    public Mark submit(Mark mark) {
+        markService.checkEnrollment(mark);
+
+        try {
+            if (!running || !capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new BufferFullException("Mark buffer is full, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BufferFullException("Interrupted while waiting for the mark buffer");
+        }
+
+        MarkJournal.Entry entry;
+        try {
+            // Queue order has to match journal order, otherwise a checkpoint could cover a
+            // record that is still waiting.
+            synchronized (appendLock) {
+                entry = journal.write(mark.getValue(), mark.getStudent().getId(),
+                        mark.getSubject().getId());
+                queue.add(entry);
+            }
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException("Failed to journal mark", e);
+        }
+
+        try {
+            journal.sync(entry.sequence());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal mark", e);
+        }
+        return mark;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    private void run() {
+        List<MarkJournal.Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    MarkJournal.Entry first = queue.poll(flushIntervalMillis,
+                            TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                flush(batch);
+                capacity.release(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to write {} buffered marks, retrying", batch.size(), e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flush(List<MarkJournal.Entry> batch) throws IOException {
+        long last = batch.get(batch.size() - 1).sequence();
+        // The writer can get ahead of the submitting thread's fsync; never write a mark to
+        // the database that the journal could still lose.
+        journal.sync(last);
+
+        List<Mark> marks = new ArrayList<>(batch.size());
+        for (MarkJournal.Entry entry : batch) {
+            Mark mark = new Mark(entry.value());
+            mark.setStudentId(entry.studentId());
+            mark.setSubjectId(entry.subjectId());
+            marks.add(mark);
+        }
+        List<Mark> inserted = transactionTemplate.execute(status -> {
+            List<Mark> enrolled = markService.insertEnrolledMarks(marks);
+            markJdbcRepository.saveJournalCheckpoint(journalId, last);
+            return enrolled;
+        });
+        journal.checkpoint(last);
+        logger.debug("Wrote {} of {} buffered marks up to sequence {}", inserted.size(),
+                marks.size(), last);
+    }
+}
@@ -0,0 +1,207 @@
+package idespring.lab5.service.searchservice;
+
+import idespring.lab5.dto.Completion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable prefix trie over case-folded names. Every node stores the {@code k} most popular
+ * completions below it, so a lookup is a walk down the prefix and a copy of that list. An
+ * update copies only the nodes on the path of the changed name and returns a new trie;
+ * readers of the old one are never affected.
+ */
+final class CompletionTrie {
+    static final Comparator<Completion> RANKING =
+            Comparator.comparingLong(Completion::popularity).reversed()
+                    .thenComparing(Completion::name)
+                    .thenComparing(Completion::id);
+    private static final Completion[] NONE = {};
+    private static final Node EMPTY = new Node(new char[0], new Node[0], NONE, NONE);
+
+    private final Node root;
+    private final int k;
+
+    private CompletionTrie(Node root, int k) {
+        this.root = root;
+        this.k = k;
+    }
+
+    static CompletionTrie build(Collection<Completion> completions, int k) {
+        List<Keyed> sorted = new ArrayList<>(completions.size());
+        for (Completion completion : completions) {
+            sorted.add(new Keyed(fold(completion.name()), completion));
+        }
+        sorted.sort(Comparator.comparing(Keyed::key));
+        return new CompletionTrie(build(sorted, 0, sorted.size(), 0, k), k);
+    }
+
+    CompletionTrie put(Completion completion) {
+        return new CompletionTrie(put(root, fold(completion.name()), 0, completion, k), k);
+    }
+
+    CompletionTrie remove(Completion completion) {
+        Node updated = remove(root, fold(completion.name()), 0, completion.id(), k);
+        return new CompletionTrie(updated != null ? updated : EMPTY, k);
+    }
+
+    /**
+     * The most popular completions of {@code prefix}, at most {@code min(limit, k)} of them.
+     */
+    List<Completion> complete(String prefix, int limit) {
+        String key = fold(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return List.of(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    // Character by character, so a name and its prefixes always fold to prefixes of each other.
+    static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static Node build(List<Keyed> sorted, int from, int to, int depth, int k) {
+        int i = from;
+        List<Completion> terminal = new ArrayList<>();
+        while (i < to && sorted.get(i).key().length() == depth) {
+            terminal.add(sorted.get(i++).completion());
+        }
+
+        List<Character> labels = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (i < to) {
+            char label = sorted.get(i).key().charAt(depth);
+            int end = i;
+            while (end < to && sorted.get(end).key().charAt(depth) == label) {
+                end++;
+            }
+            labels.add(label);
+            children.add(build(sorted, i, end, depth + 1, k));
+            i = end;
+        }
+
+        char[] labelArray = new char[labels.size()];
+        for (int j = 0; j < labelArray.length; j++) {
+            labelArray[j] = labels.get(j);
+        }
+        return Node.of(labelArray, children.toArray(new Node[0]),
+                terminal.toArray(NONE), k);
+    }
+
+    private static Node put(Node node, String key, int depth, Completion completion, int k) {
+        if (depth == key.length()) {
+            Completion[] terminal = Arrays.copyOf(node.terminal, node.terminal.length + 1);
+            terminal[node.terminal.length] = completion;
+            return Node.of(node.labels, node.children, terminal, k);
+        }
+        char label = key.charAt(depth);
+        int index = Arrays.binarySearch(node.labels, label);
+        Node child = index >= 0 ? node.children[index] : EMPTY;
+        return node.withChild(label, index, put(child, key, depth + 1, completion, k), k);
+    }
+
+    // Returns null when the node is left with no completions at all.
+    private static Node remove(Node node, String key, int depth, Long id, int k) {
+        Node updated;
+        if (depth == key.length()) {
+            Completion[] terminal = Arrays.stream(node.terminal)
+                    .filter(completion -> !completion.id().equals(id))
+                    .toArray(Completion[]::new);
+            if (terminal.length == node.terminal.length) {
+                return node;
+            }
+            updated = Node.of(node.labels, node.children, terminal, k);
+        } else {
+            char label = key.charAt(depth);
+            int index = Arrays.binarySearch(node.labels, label);
+            if (index < 0) {
+                return node;
+            }
+            Node child = remove(node.children[index], key, depth + 1, id, k);
+            if (child == node.children[index]) {
+                return node;
+            }
+            updated = node.withChild(label, index, child, k);
+        }
+        return updated.terminal.length == 0 && updated.children.length == 0 ? null : updated;
+    }
+
+    private record Keyed(String key, Completion completion) {}
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final Completion[] terminal;
+        private final Completion[] top;
+
+        private Node(char[] labels, Node[] children, Completion[] terminal, Completion[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.terminal = terminal;
+            this.top = top;
+        }
+
+        static Node of(char[] labels, Node[] children, Completion[] terminal, int k) {
+            // A node with one child and no name of its own ranks exactly like that child, which
+            // is the common case along the tail of a name, so the child's list is shared.
+            if (terminal.length == 0 && children.length == 1) {
+                return new Node(labels, children, terminal, children[0].top);
+            }
+            List<Completion> candidates = new ArrayList<>(Arrays.asList(terminal));
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(RANKING);
+            Completion[] top = candidates.subList(0, Math.min(k, candidates.size()))
+                    .toArray(NONE);
+            return new Node(labels, children, terminal, top);
+        }
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        // index is the binarySearch result for label; a null child removes the edge.
+        Node withChild(char label, int index, Node child, int k) {
+            char[] newLabels;
+            Node[] newChildren;
+            if (index >= 0 && child != null) {
+                newLabels = labels;
+                newChildren = children.clone();
+                newChildren[index] = child;
+            } else if (index >= 0) {
+                newLabels = new char[labels.length - 1];
+                newChildren = new Node[children.length - 1];
+                System.arraycopy(labels, 0, newLabels, 0, index);
+                System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index + 1, newChildren, index,
+                        children.length - index - 1);
+            } else {
+                int insert = -index - 1;
+                newLabels = new char[labels.length + 1];
+                newChildren = new Node[children.length + 1];
+                System.arraycopy(labels, 0, newLabels, 0, insert);
+                System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+                System.arraycopy(children, 0, newChildren, 0, insert);
+                System.arraycopy(children, insert, newChildren, insert + 1,
+                        children.length - insert);
+                newLabels[insert] = label;
+                newChildren[insert] = child;
+            }
+            return of(newLabels, newChildren, terminal, k);
+        }
+    }
+}
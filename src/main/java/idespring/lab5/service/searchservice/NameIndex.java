@@ -0,0 +1,31 @@
+package idespring.lab5.service.searchservice;
+
+import idespring.lab5.dto.Completion;
+import java.util.Collection;
+import java.util.List;
+
+public interface NameIndex {
+    boolean isReady();
+
+    /**
+     * Whether {@link #search} can answer this pattern: the index is loaded and the pattern
+     * has no {@code LIKE} wildcards, which only the database path interprets.
+     */
+    boolean canSearch(String pattern);
+
+    List<Long> search(NameKind kind, String pattern);
+
+    /**
+     * The most popular names of the given kind starting with {@code prefix}, ignoring case.
+     * Empty until the index has loaded.
+     */
+    List<Completion> complete(NameKind kind, String prefix, int limit);
+
+    int size(NameKind kind);
+
+    void reload();
+
+    void recordSaved(NameKind kind, Long id, String name);
+
+    void recordRemoved(NameKind kind, Collection<Long> ids);
+}
@@ -0,0 +1,298 @@
+package idespring.lab5.service.searchservice;
+
+import idespring.lab5.config.ReplicaRoutingDataSource;
+import idespring.lab5.dto.Completion;
+import idespring.lab5.repository.searchrepo.NameJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Trigram indexes and completion tries over group, subject and student names, loaded on
+ * startup and kept current by the services that create, rename and delete those rows.
+ * Changes made inside a transaction reach the index once it commits.
+ *
+ * <p>Completions are read from an immutable trie published through a volatile field, so
+ * they take no lock. Popularity counts change with marks and enrollments rather than with
+ * names; they are refreshed by a full reload every {@code search.name-index.refresh-ms}.
+ * A reload reads into a fresh snapshot without holding the lock, so searches and name
+ * changes carry on meanwhile; the changes are recorded and replayed onto the fresh snapshot
+ * just before it replaces the current one.
+ */
+@Service
+public class NameIndexImpl implements NameIndex {
+    private final NameJdbcRepository nameJdbcRepository;
+    private final boolean enabled;
+    private final int topK;
+    private final long refreshMillis;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    private Snapshot snapshot;
+    // Changes applied while a reload is reading, or null when none is.
+    private List<Consumer<Snapshot>> missed;
+    private volatile Map<NameKind, CompletionTrie> tries;
+    private volatile boolean ready;
+    private ScheduledExecutorService refresher;
+    private static final Logger logger = LoggerFactory.getLogger(NameIndexImpl.class);
+
+    @Autowired
+    public NameIndexImpl(NameJdbcRepository nameJdbcRepository,
+                         @Value("${search.name-index.enabled:true}") boolean enabled,
+                         @Value("${search.name-index.top-k:10}") int topK,
+                         @Value("${search.name-index.refresh-ms:300000}") long refreshMillis) {
+        this.nameJdbcRepository = nameJdbcRepository;
+        this.enabled = enabled;
+        this.topK = topK;
+        this.refreshMillis = refreshMillis;
+        snapshot = new Snapshot(topK);
+        tries = new EnumMap<>(snapshot.tries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!enabled) {
+            return;
+        }
+        reload();
+        if (refreshMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "name-index-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public boolean canSearch(String pattern) {
+        return ready && pattern.indexOf('%') < 0 && pattern.indexOf('_') < 0
+                && pattern.indexOf('\\') < 0;
+    }
+
+    @Override
+    public List<Long> search(NameKind kind, String pattern) {
+        final long start = System.nanoTime();
+        List<Long> ids;
+        lock.readLock().lock();
+        try {
+            ids = snapshot.indexes.get(kind).search(pattern);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long end = System.nanoTime();
+        logger.debug("Name index matched {} {} rows for '{}' in {} us", ids.size(), kind,
+                pattern, (end - start) / 1_000);
+        return ids;
+    }
+
+    @Override
+    public List<Completion> complete(NameKind kind, String prefix, int limit) {
+        return tries.get(kind).complete(prefix, limit);
+    }
+
+    @Override
+    public int size(NameKind kind) {
+        lock.readLock().lock();
+        try {
+            return snapshot.indexes.get(kind).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (reloadLock) {
+            final long start = System.nanoTime();
+            List<Consumer<Snapshot>> changes = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                missed = changes;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Snapshot fresh = new Snapshot(topK);
+            try {
+                ReplicaRoutingDataSource.onPrimary(() -> {
+                    for (NameKind kind : NameKind.values()) {
+                        List<Completion> loaded = new ArrayList<>();
+                        nameJdbcRepository.forEachName(kind, rs -> loaded.add(
+                                new Completion(rs.getLong(1), rs.getString(2), rs.getLong(3))));
+                        fresh.load(kind, loaded);
+                    }
+                });
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    missed = null;
+                    // Saves and removals are idempotent, so replaying one the query already
+                    // saw is harmless.
+                    if (fresh.loaded == NameKind.values().length) {
+                        changes.forEach(change -> change.accept(fresh));
+                        snapshot = fresh;
+                        tries = new EnumMap<>(fresh.tries);
+                        ready = true;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            long end = System.nanoTime();
+            logger.info("Name index loaded {} groups, {} subjects and {} students in {} ms",
+                    size(NameKind.GROUP), size(NameKind.SUBJECT), size(NameKind.STUDENT),
+                    (end - start) / 1_000_000);
+        }
+    }
+
+    @Override
+    public void recordSaved(NameKind kind, Long id, String name) {
+        applyOnCommit(current -> current.save(kind, id, name));
+    }
+
+    @Override
+    public void recordRemoved(NameKind kind, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> removed = List.copyOf(ids);
+        applyOnCommit(current -> current.remove(kind, removed));
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.warn("Name index refresh failed, keeping the current index", e);
+        }
+    }
+
+    private void applyOnCommit(Consumer<Snapshot> change) {
+        if (!enabled) {
+            return;
+        }
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.accept(snapshot);
+                if (missed != null) {
+                    missed.add(change);
+                }
+                // Readers keep whichever map they already hold.
+                tries = new EnumMap<>(snapshot.tries);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        locked.run();
+                    }
+                });
+    }
+
+    private static final class Snapshot {
+        private final int topK;
+        private final Map<NameKind, TrigramIndex> indexes = new EnumMap<>(NameKind.class);
+        private final Map<NameKind, Map<Long, Completion>> completions =
+                new EnumMap<>(NameKind.class);
+        private final Map<NameKind, CompletionTrie> tries = new EnumMap<>(NameKind.class);
+        private int loaded;
+
+        Snapshot(int topK) {
+            this.topK = topK;
+            for (NameKind kind : NameKind.values()) {
+                indexes.put(kind, new TrigramIndex());
+                completions.put(kind, new HashMap<>());
+                tries.put(kind, CompletionTrie.build(List.of(), topK));
+            }
+        }
+
+        void load(NameKind kind, List<Completion> rows) {
+            TrigramIndex index = indexes.get(kind);
+            Map<Long, Completion> byId = completions.get(kind);
+            for (Completion completion : rows) {
+                index.put(completion.id(), completion.name());
+                byId.put(completion.id(), completion);
+            }
+            tries.put(kind, CompletionTrie.build(byId.values(), topK));
+            loaded++;
+        }
+
+        void save(NameKind kind, Long id, String name) {
+            indexes.get(kind).put(id, name);
+            Map<Long, Completion> byId = completions.get(kind);
+            CompletionTrie trie = tries.get(kind);
+            Completion previous = byId.remove(id);
+            if (previous != null) {
+                trie = trie.remove(previous);
+            }
+            if (name != null) {
+                Completion completion = new Completion(id, name,
+                        previous != null ? previous.popularity() : 0);
+                byId.put(id, completion);
+                trie = trie.put(completion);
+            }
+            tries.put(kind, trie);
+        }
+
+        void remove(NameKind kind, List<Long> ids) {
+            TrigramIndex index = indexes.get(kind);
+            Map<Long, Completion> byId = completions.get(kind);
+            CompletionTrie trie = tries.get(kind);
+            for (Long id : ids) {
+                index.remove(id);
+                Completion previous = byId.remove(id);
+                if (previous != null) {
+                    trie = trie.remove(previous);
+                }
+            }
+            tries.put(kind, trie);
+        }
+    }
+}
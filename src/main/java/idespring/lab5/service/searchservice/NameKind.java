@@ -0,0 +1,17 @@
+package idespring.lab5.service.searchservice;
+
+public enum NameKind {
+    GROUP("groups"),
+    SUBJECT("subjects"),
+    STUDENT("students");
+
+    private final String table;
+
+    NameKind(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,95 @@
+package idespring.lab5.service.searchservice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from every three-character substring of a name to the ids whose name
+ * contains it. A query intersects the posting lists of its own trigrams, smallest first, and
+ * checks the surviving candidates against the stored names, so the result is exactly the ids
+ * whose name contains the pattern, case-sensitively like {@code LIKE}. Not thread-safe.
+ */
+final class TrigramIndex {
+    private static final int GRAM = 3;
+
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    void put(long id, String name) {
+        remove(id);
+        if (name == null) {
+            return;
+        }
+        names.put(id, name);
+        for (String gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    void remove(long id) {
+        String name = names.remove(id);
+        if (name == null) {
+            return;
+        }
+        for (String gram : trigrams(name)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * Ids, ascending, of the names containing {@code pattern}. Patterns shorter than a trigram
+     * have no posting list to start from and are checked against every name.
+     */
+    List<Long> search(String pattern) {
+        Set<String> grams = trigrams(pattern);
+        List<Set<Long>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Collection<Long> candidates = lists.isEmpty() ? names.keySet() : lists.get(0);
+        List<Long> result = new ArrayList<>();
+        for (Long id : candidates) {
+            if (containsInAll(lists, id) && names.get(id).contains(pattern)) {
+                result.add(id);
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static boolean containsInAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,21 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.MarkAggregate;
+
+public enum AggregateMetric {
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX;
+
+    public Number of(MarkAggregate aggregate) {
+        return switch (this) {
+            case COUNT -> aggregate.count();
+            case SUM -> aggregate.sum();
+            case AVG -> aggregate.average();
+            case MIN -> aggregate.min();
+            case MAX -> aggregate.max();
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package idespring.lab5.service.statservice;
+
+public enum AggregationPlan {
+    COLUMNAR,
+    SQL
+}
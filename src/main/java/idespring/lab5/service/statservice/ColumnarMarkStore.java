@@ -0,0 +1,27 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import java.util.Map;
+import java.util.Set;
+
+public interface ColumnarMarkStore {
+    boolean isReady();
+
+    int size();
+
+    void reload();
+
+    void invalidate();
+
+    void recordMarkAdded(Long studentId, Long subjectId, int value);
+
+    void recordMarksRemoved(Long studentId, Long subjectId, int value, int count);
+
+    void recordStudentGroupChanged(Long studentId, Long groupId);
+
+    MarkAggregate aggregate(MarkFilter filter);
+
+    Map<AggregateKey, MarkAggregate> aggregate(MarkFilter filter, Set<StatisticsScope> groupBy);
+}
@@ -0,0 +1,426 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.config.ReplicaRoutingDataSource;
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replica of the marks table as parallel primitive columns. Aggregates are a histogram of
+ * mark values per output row, counted by fork-join tasks over slices of the columns, so a
+ * scan touches 25 bytes per mark and never materialises an entity.
+ */
+@Service
+public class ColumnarMarkStoreImpl implements ColumnarMarkStore {
+    private static final int SLOTS = MarkDistribution.MAX_VALUE + 1;
+    private static final int SLICE = 1 << 16;
+    private static final long NO_GROUP = 0L;
+
+    private final MarkJdbcRepository markJdbcRepository;
+    private final StudentRepository studentRepository;
+    private final boolean enabled;
+    private final CommitGate commitGate = new CommitGate();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Columns columns = new Columns(0);
+    private volatile boolean ready;
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarMarkStoreImpl.class);
+
+    @Autowired
+    public ColumnarMarkStoreImpl(MarkJdbcRepository markJdbcRepository,
+                                 StudentRepository studentRepository,
+                                 @Value("${marks.columnar.enabled:true}") boolean enabled) {
+        this.markJdbcRepository = markJdbcRepository;
+        this.studentRepository = studentRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        commitGate.rebuild(() -> ReplicaRoutingDataSource.onPrimary(() -> {
+            ready = false;
+            Columns fresh = new Columns(SLICE);
+
+            for (Object[] row : studentRepository.findGroupAssignments()) {
+                fresh.studentGroups.put(((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue());
+            }
+            markJdbcRepository.forEachMark(rs -> fresh.add(rs.getLong(1), rs.getLong(2),
+                    rs.getInt(3), rs.getLong(4)));
+
+            lock.writeLock().lock();
+            try {
+                columns = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        }));
+
+        long end = System.nanoTime();
+        logger.info("Columnar mark store loaded {} marks in {} ms",
+                columns.size, (end - start) / 1_000_000);
+    }
+
+    @Override
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+        commitGate.afterCompletion(this::reload);
+    }
+
+    @Override
+    public void recordMarkAdded(Long studentId, Long subjectId, int value) {
+        applyOnCommit(() -> {
+            Long groupId = columns.studentGroups.get(studentId);
+            columns.add(studentId, subjectId, value, groupId != null ? groupId : NO_GROUP);
+        });
+    }
+
+    @Override
+    public void recordMarksRemoved(Long studentId, Long subjectId, int value, int count) {
+        applyOnCommit(() -> columns.remove(studentId, subjectId, value, count));
+    }
+
+    @Override
+    public void recordStudentGroupChanged(Long studentId, Long groupId) {
+        applyOnCommit(() -> columns.moveStudent(studentId, groupId));
+    }
+
+    @Override
+    public MarkAggregate aggregate(MarkFilter filter) {
+        Map<AggregateKey, long[]> counts = scan(filter, EnumSet.noneOf(StatisticsScope.class));
+        long[] histogram = counts.getOrDefault(AggregateKey.ALL, new long[SLOTS]);
+        return MarkAggregate.of(histogram);
+    }
+
+    @Override
+    public Map<AggregateKey, MarkAggregate> aggregate(MarkFilter filter,
+                                                      Set<StatisticsScope> groupBy) {
+        Map<AggregateKey, MarkAggregate> result = new HashMap<>();
+        scan(filter, groupBy).forEach((key, histogram) -> {
+            MarkAggregate aggregate = MarkAggregate.of(histogram);
+            if (aggregate.count() > 0) {
+                result.put(key, aggregate);
+            }
+        });
+        return result;
+    }
+
+    private Map<AggregateKey, long[]> scan(MarkFilter filter, Set<StatisticsScope> groupBy) {
+        if (!ready) {
+            throw new IllegalStateException("Columnar mark store is not loaded");
+        }
+
+        final long start = System.nanoTime();
+        Map<AggregateKey, long[]> counts;
+        lock.readLock().lock();
+        try {
+            Columns snapshot = columns;
+            counts = ForkJoinPool.commonPool().invoke(new ScanTask(
+                    snapshot, new RowMatcher(filter, groupBy), 0, snapshot.size));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Value bounds are applied to the histograms instead of to every row.
+        int low = filter.lowestValue();
+        int high = filter.highestValue();
+        for (long[] histogram : counts.values()) {
+            for (int value = MarkDistribution.MIN_VALUE; value < SLOTS; value++) {
+                if (value < low || value > high) {
+                    histogram[value] = 0;
+                }
+            }
+        }
+
+        long end = System.nanoTime();
+        logger.info("Columnar scan produced {} rows in {} ms",
+                counts.size(), (end - start) / 1_000_000);
+        return counts;
+    }
+
+    private void applyOnCommit(Runnable delta) {
+        if (!enabled) {
+            return;
+        }
+        commitGate.applyOnCommit(() -> {
+            if (!ready) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                delta.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static class Columns {
+        private long[] studentIds;
+        private long[] subjectIds;
+        private long[] groupIds;
+        private byte[] values;
+        private int size;
+        private final Map<Long, Long> studentGroups = new ConcurrentHashMap<>();
+        // Row positions per student, so deletes and group moves touch only that student's rows.
+        private final Map<Long, RowList> rowsByStudent = new HashMap<>();
+
+        public Columns(int capacity) {
+            studentIds = new long[capacity];
+            subjectIds = new long[capacity];
+            groupIds = new long[capacity];
+            values = new byte[capacity];
+        }
+
+        public void add(long studentId, long subjectId, int value, long groupId) {
+            if (size == values.length) {
+                int capacity = Math.max(SLICE, size * 2);
+                studentIds = Arrays.copyOf(studentIds, capacity);
+                subjectIds = Arrays.copyOf(subjectIds, capacity);
+                groupIds = Arrays.copyOf(groupIds, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            studentIds[size] = studentId;
+            subjectIds[size] = subjectId;
+            groupIds[size] = groupId;
+            values[size] = (byte) value;
+            rowsByStudent.computeIfAbsent(studentId, id -> new RowList()).add(size);
+            size++;
+        }
+
+        public void remove(long studentId, long subjectId, int value, int count) {
+            RowList rows = rowsByStudent.get(studentId);
+            if (rows == null) {
+                return;
+            }
+            for (int i = rows.size - 1; i >= 0 && count > 0; i--) {
+                int row = rows.rows[i];
+                if (subjectIds[row] == subjectId && values[row] == value) {
+                    rows.removeAt(i);
+                    removeRow(row);
+                    count--;
+                }
+            }
+            if (rows.size == 0) {
+                rowsByStudent.remove(studentId);
+            }
+        }
+
+        public void moveStudent(Long studentId, Long groupId) {
+            if (groupId != null) {
+                studentGroups.put(studentId, groupId);
+            } else {
+                studentGroups.remove(studentId);
+            }
+
+            RowList rows = rowsByStudent.get(studentId);
+            if (rows == null) {
+                return;
+            }
+            long target = groupId != null ? groupId : NO_GROUP;
+            for (int i = 0; i < rows.size; i++) {
+                groupIds[rows.rows[i]] = target;
+            }
+        }
+
+        private void removeRow(int row) {
+            // Rows are unordered, so the last row fills the gap and only its index entry moves.
+            size--;
+            if (row == size) {
+                return;
+            }
+            studentIds[row] = studentIds[size];
+            subjectIds[row] = subjectIds[size];
+            groupIds[row] = groupIds[size];
+            values[row] = values[size];
+            rowsByStudent.get(studentIds[row]).replace(size, row);
+        }
+    }
+
+    private static class RowList {
+        private int[] rows = new int[4];
+        private int size;
+
+        public void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        public void removeAt(int index) {
+            rows[index] = rows[--size];
+        }
+
+        public void replace(int row, int moved) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    rows[i] = moved;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class RowMatcher {
+        private final long[] studentIds;
+        private final long[] subjectIds;
+        private final long[] groupIds;
+        private final boolean byStudent;
+        private final boolean bySubject;
+        private final boolean byGroup;
+
+        public RowMatcher(MarkFilter filter, Set<StatisticsScope> groupBy) {
+            this.studentIds = sorted(filter.studentIds());
+            this.subjectIds = sorted(filter.subjectIds());
+            this.groupIds = sorted(filter.groupIds());
+            this.byStudent = groupBy.contains(StatisticsScope.STUDENT);
+            this.bySubject = groupBy.contains(StatisticsScope.SUBJECT);
+            this.byGroup = groupBy.contains(StatisticsScope.GROUP);
+        }
+
+        public boolean filtersRows() {
+            return studentIds != null || subjectIds != null || groupIds != null;
+        }
+
+        public boolean groups() {
+            return byStudent || bySubject || byGroup;
+        }
+
+        public boolean matches(Columns columns, int row) {
+            return contains(studentIds, columns.studentIds[row])
+                    && contains(subjectIds, columns.subjectIds[row])
+                    && contains(groupIds, columns.groupIds[row]);
+        }
+
+        public AggregateKey key(Columns columns, int row) {
+            long groupId = columns.groupIds[row];
+            return new AggregateKey(
+                    byStudent ? columns.studentIds[row] : null,
+                    bySubject ? columns.subjectIds[row] : null,
+                    byGroup && groupId != NO_GROUP ? groupId : null);
+        }
+
+        private static boolean contains(long[] ids, long id) {
+            return ids == null || Arrays.binarySearch(ids, id) >= 0;
+        }
+
+        private static long[] sorted(Collection<Long> ids) {
+            if (ids == null) {
+                return null;
+            }
+            long[] result = ids.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    private static class ScanTask extends RecursiveTask<Map<AggregateKey, long[]>> {
+        private final Columns columns;
+        private final RowMatcher matcher;
+        private final int from;
+        private final int to;
+
+        public ScanTask(Columns columns, RowMatcher matcher, int from, int to) {
+            this.columns = columns;
+            this.matcher = matcher;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<AggregateKey, long[]> compute() {
+            if (to - from <= SLICE) {
+                return scanSlice();
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(columns, matcher, from, middle);
+            left.fork();
+            Map<AggregateKey, long[]> right =
+                    new ScanTask(columns, matcher, middle, to).compute();
+            Map<AggregateKey, long[]> result = left.join();
+            right.forEach((key, histogram) -> {
+                long[] target = result.computeIfAbsent(key, k -> new long[SLOTS]);
+                for (int value = 0; value < SLOTS; value++) {
+                    target[value] += histogram[value];
+                }
+            });
+            return result;
+        }
+
+        private Map<AggregateKey, long[]> scanSlice() {
+            Map<AggregateKey, long[]> result = new HashMap<>();
+            byte[] values = columns.values;
+
+            if (!matcher.filtersRows() && !matcher.groups()) {
+                long[] histogram = new long[SLOTS];
+                for (int i = from; i < to; i++) {
+                    histogram[values[i]]++;
+                }
+                result.put(AggregateKey.ALL, histogram);
+                return result;
+            }
+
+            for (int i = from; i < to; i++) {
+                if (!matcher.matches(columns, i)) {
+                    continue;
+                }
+                AggregateKey key = matcher.groups() ? matcher.key(columns, i) : AggregateKey.ALL;
+                result.computeIfAbsent(key, k -> new long[SLOTS])[values[i]]++;
+            }
+            return result;
+        }
+    }
+}
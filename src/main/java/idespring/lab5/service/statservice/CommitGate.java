@@ -0,0 +1,80 @@
+package idespring.lab5.service.statservice;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Applies in-memory deltas only once their transaction commits. Deltas hold the read lock
+ * across the commit, so a rebuild never sees a committed row whose delta is still about to
+ * be applied on top of the fresh snapshot.
+ */
+class CommitGate {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Runnable load) {
+        lock.writeLock().lock();
+        try {
+            load.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void applyOnCommit(Runnable delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                delta.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public int getOrder() {
+                // Release the read lock before a rebuild registered in the same transaction.
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        delta.run();
+                    }
+                } finally {
+                    if (locked) {
+                        lock.readLock().unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    public void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
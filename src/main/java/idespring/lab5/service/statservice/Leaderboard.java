@@ -0,0 +1,163 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.LeaderboardPage;
+import idespring.lab5.dto.RankedStudent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Students ordered by average mark (highest first, ties by id), kept in a treap whose
+ * nodes track subtree sizes, so updates, rank lookups and page starts are O(log n).
+ */
+public class Leaderboard {
+    private final Map<Long, Double> scores = new HashMap<>();
+    private Node root;
+
+    public synchronized void update(long studentId, Double average) {
+        Double previous = average != null
+                ? scores.put(studentId, average)
+                : scores.remove(studentId);
+        if (previous != null) {
+            root = delete(root, previous, studentId);
+        }
+        if (average != null) {
+            Node[] parts = split(root, average, studentId);
+            root = merge(merge(parts[0], new Node(studentId, average)), parts[1]);
+        }
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    public synchronized RankedStudent rank(long studentId) {
+        Double average = scores.get(studentId);
+        if (average == null) {
+            return null;
+        }
+
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(average, studentId, node.average, node.studentId);
+            if (cmp == 0) {
+                before += size(node.left);
+                break;
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return new RankedStudent(before + 1, studentId, average);
+    }
+
+    public synchronized LeaderboardPage page(int offset, int limit) {
+        List<RankedStudent> entries = new ArrayList<>(Math.min(limit, size(root)));
+        collect(root, offset, offset, limit, entries);
+        return new LeaderboardPage(size(root), offset, entries);
+    }
+
+    private static void collect(Node node, int skip, int base, int limit,
+                                List<RankedStudent> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, base, limit, out);
+        }
+        if (out.size() >= limit) {
+            return;
+        }
+        if (skip <= leftSize) {
+            out.add(new RankedStudent(base + out.size() + 1, node.studentId, node.average));
+        }
+        collect(node.right, Math.max(0, skip - leftSize - 1), base, limit, out);
+    }
+
+    private static int compare(double average, long studentId,
+                               double otherAverage, long otherStudentId) {
+        int cmp = Double.compare(otherAverage, average);
+        return cmp != 0 ? cmp : Long.compare(studentId, otherStudentId);
+    }
+
+    private static Node[] split(Node node, double average, long studentId) {
+        if (node == null) {
+            return new Node[2];
+        }
+
+        if (compare(node.average, node.studentId, average, studentId) < 0) {
+            Node[] parts = split(node.right, average, studentId);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+        Node[] parts = split(node.left, average, studentId);
+        node.left = parts[1];
+        parts[1] = node.update();
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static Node delete(Node node, double average, long studentId) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = compare(average, studentId, node.average, node.studentId);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, average, studentId);
+        } else {
+            node.right = delete(node.right, average, studentId);
+        }
+        return node.update();
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static class Node {
+        private final long studentId;
+        private final double average;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        public Node(long studentId, double average) {
+            this.studentId = studentId;
+            this.average = average;
+        }
+
+        public Node update() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+            return this;
+        }
+    }
+}
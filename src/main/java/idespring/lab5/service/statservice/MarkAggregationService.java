@@ -0,0 +1,14 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+public interface MarkAggregationService {
+    AggregationPlan plan(MarkFilter filter, Set<StatisticsScope> groupBy);
+
+    void aggregate(MarkFilter filter, Set<StatisticsScope> groupBy, AggregationPlan plan,
+                   BiConsumer<AggregateKey, MarkAggregate> sink);
+}
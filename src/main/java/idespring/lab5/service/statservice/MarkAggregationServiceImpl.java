@@ -0,0 +1,107 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MarkAggregationServiceImpl implements MarkAggregationService {
+    // A handful of students is cheaper to fetch from the database than to scan every row for.
+    static final int INDEXED_STUDENT_LOOKUP = 100;
+    static final int FULL_SCAN_ROWS = 1_000_000;
+
+    private static final Comparator<Long> NULLS_FIRST =
+            Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<AggregateKey> KEY_ORDER =
+            Comparator.comparing(AggregateKey::studentId, NULLS_FIRST)
+                    .thenComparing(AggregateKey::subjectId, NULLS_FIRST)
+                    .thenComparing(AggregateKey::groupId, NULLS_FIRST);
+
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkJdbcRepository markJdbcRepository;
+    private static final Logger logger = LoggerFactory.getLogger(MarkAggregationServiceImpl.class);
+
+    @Autowired
+    public MarkAggregationServiceImpl(ColumnarMarkStore columnarMarkStore,
+                                      MarkJdbcRepository markJdbcRepository) {
+        this.columnarMarkStore = columnarMarkStore;
+        this.markJdbcRepository = markJdbcRepository;
+    }
+
+    @Override
+    public AggregationPlan plan(MarkFilter filter, Set<StatisticsScope> groupBy) {
+        if (!columnarMarkStore.isReady()) {
+            return AggregationPlan.SQL;
+        }
+        if (filter.studentIds() != null
+                && filter.studentIds().size() <= INDEXED_STUDENT_LOOKUP
+                && columnarMarkStore.size() >= FULL_SCAN_ROWS) {
+            return AggregationPlan.SQL;
+        }
+        return AggregationPlan.COLUMNAR;
+    }
+
+    @Override
+    public void aggregate(MarkFilter filter, Set<StatisticsScope> groupBy, AggregationPlan plan,
+                          BiConsumer<AggregateKey, MarkAggregate> sink) {
+        logger.info("Aggregating marks by {} with {} plan", groupBy, plan);
+        if (plan == AggregationPlan.COLUMNAR) {
+            try {
+                aggregateInMemory(filter, groupBy, sink);
+                return;
+            } catch (IllegalStateException e) {
+                // The plan is picked before the response starts streaming; a write in between
+                // can unload the store. Nothing reached the sink yet, so the database can answer.
+                logger.warn("Columnar store unloaded after planning, falling back to SQL");
+            }
+        }
+        aggregateInDatabase(filter, groupBy, sink);
+    }
+
+    private void aggregateInMemory(MarkFilter filter, Set<StatisticsScope> groupBy,
+                                   BiConsumer<AggregateKey, MarkAggregate> sink) {
+        if (groupBy.isEmpty()) {
+            sink.accept(AggregateKey.ALL, columnarMarkStore.aggregate(filter));
+            return;
+        }
+
+        Map<AggregateKey, MarkAggregate> result = columnarMarkStore.aggregate(filter, groupBy);
+        List<AggregateKey> keys = new ArrayList<>(result.keySet());
+        keys.sort(KEY_ORDER);
+        for (AggregateKey key : keys) {
+            sink.accept(key, result.get(key));
+        }
+    }
+
+    private void aggregateInDatabase(MarkFilter filter, Set<StatisticsScope> groupBy,
+                                     BiConsumer<AggregateKey, MarkAggregate> sink) {
+        boolean byStudent = groupBy.contains(StatisticsScope.STUDENT);
+        boolean bySubject = groupBy.contains(StatisticsScope.SUBJECT);
+        boolean byGroup = groupBy.contains(StatisticsScope.GROUP);
+
+        markJdbcRepository.aggregate(filter, groupBy, rs -> {
+            int column = 1;
+            Long studentId = byStudent ? rs.getObject(column++, Long.class) : null;
+            Long subjectId = bySubject ? rs.getObject(column++, Long.class) : null;
+            Long groupId = byGroup ? rs.getObject(column++, Long.class) : null;
+            long count = rs.getLong(column++);
+            long sum = rs.getLong(column++);
+            Integer min = rs.getObject(column++, Integer.class);
+            Integer max = rs.getObject(column, Integer.class);
+
+            sink.accept(new AggregateKey(studentId, subjectId, groupId), new MarkAggregate(
+                    count, sum, count > 0 ? (double) sum / count : null, min, max, null));
+        });
+    }
+}
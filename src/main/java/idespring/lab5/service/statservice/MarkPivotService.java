@@ -0,0 +1,11 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.PivotRow;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface MarkPivotService {
+    List<Long> getPivotSubjects(Long groupId);
+
+    void forEachPivotRow(Long groupId, List<Long> subjectIds, Consumer<PivotRow> consumer);
+}
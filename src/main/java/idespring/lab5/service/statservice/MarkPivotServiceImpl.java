@@ -0,0 +1,90 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.PivotRow;
+import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.repository.grouprepo.GroupRepository;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MarkPivotServiceImpl implements MarkPivotService {
+    private final MarkJdbcRepository markJdbcRepository;
+    private final GroupRepository groupRepository;
+    private static final Logger logger = LoggerFactory.getLogger(MarkPivotServiceImpl.class);
+
+    @Autowired
+    public MarkPivotServiceImpl(MarkJdbcRepository markJdbcRepository,
+                                GroupRepository groupRepository) {
+        this.markJdbcRepository = markJdbcRepository;
+        this.groupRepository = groupRepository;
+    }
+
+    @Override
+    public List<Long> getPivotSubjects(Long groupId) {
+        if (groupId != null && !groupRepository.existsById(groupId)) {
+            throw new EntityNotFoundException("Group not found with id: " + groupId);
+        }
+        return markJdbcRepository.findPivotSubjectIds(groupId);
+    }
+
+    @Override
+    public void forEachPivotRow(Long groupId, List<Long> subjectIds,
+                                Consumer<PivotRow> consumer) {
+        final long start = System.nanoTime();
+        Map<Long, Integer> columns = new HashMap<>();
+        for (int i = 0; i < subjectIds.size(); i++) {
+            columns.put(subjectIds.get(i), i);
+        }
+
+        // Cells arrive ordered by student, so a row is complete once the student id changes.
+        RowAssembler assembler = new RowAssembler(subjectIds.size(), consumer);
+        markJdbcRepository.forEachPivotCell(groupId, rs -> {
+            Integer column = columns.get(rs.getLong(2));
+            if (column != null) {
+                assembler.add(rs.getLong(1), column, rs.getObject(3, Double.class));
+            }
+        });
+        assembler.flush();
+
+        long end = System.nanoTime();
+        logger.info("Streamed {} pivot rows for group {} in {} ms",
+                assembler.rows, groupId, (end - start) / 1_000_000);
+    }
+
+    private static class RowAssembler {
+        private final int width;
+        private final Consumer<PivotRow> consumer;
+        private long studentId;
+        private Double[] averages;
+        private int rows;
+
+        public RowAssembler(int width, Consumer<PivotRow> consumer) {
+            this.width = width;
+            this.consumer = consumer;
+        }
+
+        public void add(long studentId, int column, Double average) {
+            if (averages == null || studentId != this.studentId) {
+                flush();
+                this.studentId = studentId;
+                this.averages = new Double[width];
+            }
+            averages[column] = average;
+        }
+
+        public void flush() {
+            if (averages != null) {
+                consumer.accept(new PivotRow(studentId, averages));
+                averages = null;
+                rows++;
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.dto.LeaderboardPage;
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.RankedStudent;
+
+public interface MarkStatisticsService {
+    boolean isReady();
+
+    void reload();
+
+    void invalidate();
+
+    void recordMarkAdded(Long studentId, Long subjectId, int value);
+
+    void recordMarkRemoved(Long studentId, Long subjectId, int value);
+
+    void recordStudentGroupChanged(Long studentId, Long groupId);
+
+    Double getStudentAverage(Long studentId);
+
+    Double getSubjectAverage(Long subjectId);
+
+    MarkDistribution getDistribution(StatisticsScope scope, Long id);
+
+    Integer getPercentile(StatisticsScope scope, Long id, double percent);
+
+    LeaderboardPage getTopStudents(int offset, int limit);
+
+    LeaderboardPage getTopStudents(StatisticsScope scope, Long id, int offset, int limit);
+
+    RankedStudent getStudentRank(Long studentId);
+
+    RankedStudent getStudentRank(StatisticsScope scope, Long id, Long studentId);
+}
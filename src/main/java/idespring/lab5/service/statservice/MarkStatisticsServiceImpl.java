@@ -0,0 +1,323 @@
+package idespring.lab5.service.statservice;
+
+import idespring.lab5.config.ReplicaRoutingDataSource;
+import idespring.lab5.dto.LeaderboardPage;
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.RankedStudent;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.repository.markrepo.MarkRepository;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MarkStatisticsServiceImpl implements MarkStatisticsService {
+    private final MarkRepository markRepository;
+    private final StudentRepository studentRepository;
+    private volatile Counters counters = new Counters();
+    private final CommitGate commitGate = new CommitGate();
+    private volatile boolean ready;
+    private static final Logger logger = LoggerFactory.getLogger(MarkStatisticsServiceImpl.class);
+
+    @Autowired
+    public MarkStatisticsServiceImpl(MarkRepository markRepository,
+                                     StudentRepository studentRepository) {
+        this.markRepository = markRepository;
+        this.studentRepository = studentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reload();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void reload() {
+        final long start = System.nanoTime();
+        commitGate.rebuild(() -> ReplicaRoutingDataSource.onPrimary(() -> {
+            ready = false;
+            Counters fresh = new Counters();
+
+            for (Object[] row : studentRepository.findGroupAssignments()) {
+                fresh.studentGroups.put(((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue());
+            }
+
+            List<Object[]> rows = markRepository.countMarksByStudentSubjectAndValue();
+            for (Object[] row : rows) {
+                long studentId = ((Number) row[0]).longValue();
+                long subjectId = ((Number) row[1]).longValue();
+                int value = ((Number) row[2]).intValue();
+                int count = ((Number) row[3]).intValue();
+
+                fresh.count(studentId, subjectId, value, count);
+            }
+            fresh.rankAll();
+            counters = fresh;
+            ready = true;
+        }));
+
+        long end = System.nanoTime();
+        logger.info("Mark statistics loaded for {} students, {} subjects and {} groups in {} ms",
+                counters.students.size(), counters.subjects.size(), counters.groups.size(),
+                (end - start) / 1_000_000);
+    }
+
+    @Override
+    public void invalidate() {
+        ready = false;
+        commitGate.afterCompletion(this::reload);
+    }
+
+    @Override
+    public void recordMarkAdded(Long studentId, Long subjectId, int value) {
+        applyOnCommit(() -> counters.add(studentId, subjectId, value, 1));
+    }
+
+    @Override
+    public void recordMarkRemoved(Long studentId, Long subjectId, int value) {
+        applyOnCommit(() -> counters.add(studentId, subjectId, value, -1));
+    }
+
+    @Override
+    public void recordStudentGroupChanged(Long studentId, Long groupId) {
+        applyOnCommit(() -> counters.moveStudent(studentId, groupId));
+    }
+
+    @Override
+    public Double getStudentAverage(Long studentId) {
+        MarkCounter counter = counters.students.get(studentId);
+        return counter != null ? counter.average() : null;
+    }
+
+    @Override
+    public Double getSubjectAverage(Long subjectId) {
+        MarkCounter counter = counters.subjects.get(subjectId);
+        return counter != null ? counter.average() : null;
+    }
+
+    @Override
+    public MarkDistribution getDistribution(StatisticsScope scope, Long id) {
+        return MarkDistribution.of(histogram(scope, id));
+    }
+
+    @Override
+    public Integer getPercentile(StatisticsScope scope, Long id, double percent) {
+        int[] histogram = histogram(scope, id);
+        long count = 0;
+        for (int value : histogram) {
+            count += value;
+        }
+        return MarkDistribution.percentile(histogram, count, percent);
+    }
+
+    @Override
+    public LeaderboardPage getTopStudents(int offset, int limit) {
+        ensureLoaded();
+        return counters.overall.page(offset, limit);
+    }
+
+    @Override
+    public LeaderboardPage getTopStudents(StatisticsScope scope, Long id, int offset, int limit) {
+        Leaderboard leaderboard = leaderboard(scope, id);
+        return leaderboard != null
+                ? leaderboard.page(offset, limit)
+                : new LeaderboardPage(0, offset, List.of());
+    }
+
+    @Override
+    public RankedStudent getStudentRank(Long studentId) {
+        ensureLoaded();
+        return counters.overall.rank(studentId);
+    }
+
+    @Override
+    public RankedStudent getStudentRank(StatisticsScope scope, Long id, Long studentId) {
+        Leaderboard leaderboard = leaderboard(scope, id);
+        return leaderboard != null ? leaderboard.rank(studentId) : null;
+    }
+
+    private Leaderboard leaderboard(StatisticsScope scope, Long id) {
+        ensureLoaded();
+        return switch (scope) {
+            case SUBJECT -> counters.subjectBoards.get(id);
+            case GROUP -> counters.groupBoards.get(id);
+            case STUDENT -> throw new ValidationException(
+                    "Leaderboards are available overall, per subject or per group");
+        };
+    }
+
+    private void ensureLoaded() {
+        // Unlike histograms there is no cheap query fallback for ranks, so load on demand.
+        if (!ready) {
+            synchronized (this) {
+                if (!ready) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private int[] histogram(StatisticsScope scope, Long id) {
+        if (ready) {
+            MarkCounter counter = counters.byScope(scope).get(id);
+            return counter != null ? counter.histogram() : new int[MarkCounter.SLOTS];
+        }
+
+        logger.info("Mark statistics not loaded, counting {} {} marks in database", scope, id);
+        List<Object[]> rows = switch (scope) {
+            case STUDENT -> markRepository.countMarksByValueForStudent(id);
+            case SUBJECT -> markRepository.countMarksByValueForSubject(id);
+            case GROUP -> markRepository.countMarksByValueForGroup(id);
+        };
+
+        int[] histogram = new int[MarkCounter.SLOTS];
+        for (Object[] row : rows) {
+            histogram[((Number) row[0]).intValue()] += ((Number) row[1]).intValue();
+        }
+        return histogram;
+    }
+
+    private void applyOnCommit(Runnable delta) {
+        commitGate.applyOnCommit(() -> {
+            // Until the first snapshot is loaded the database is the source of truth.
+            if (ready) {
+                delta.run();
+            }
+        });
+    }
+
+    private static class Counters {
+        private final Map<Long, MarkCounter> students = new ConcurrentHashMap<>();
+        private final Map<Long, MarkCounter> subjects = new ConcurrentHashMap<>();
+        private final Map<Long, MarkCounter> groups = new ConcurrentHashMap<>();
+        private final Map<Long, Map<Long, MarkCounter>> cells = new ConcurrentHashMap<>();
+        private final Map<Long, Long> studentGroups = new ConcurrentHashMap<>();
+        private final Leaderboard overall = new Leaderboard();
+        private final Map<Long, Leaderboard> subjectBoards = new ConcurrentHashMap<>();
+        private final Map<Long, Leaderboard> groupBoards = new ConcurrentHashMap<>();
+
+        public Map<Long, MarkCounter> byScope(StatisticsScope scope) {
+            return switch (scope) {
+                case STUDENT -> students;
+                case SUBJECT -> subjects;
+                case GROUP -> groups;
+            };
+        }
+
+        public void count(Long studentId, Long subjectId, int value, int times) {
+            counter(students, studentId).add(value, times);
+            counter(subjects, subjectId).add(value, times);
+            counter(cells.computeIfAbsent(subjectId, key -> new ConcurrentHashMap<>()),
+                    studentId).add(value, times);
+
+            Long groupId = studentGroups.get(studentId);
+            if (groupId != null) {
+                counter(groups, groupId).add(value, times);
+            }
+        }
+
+        // Counting and ranking hold the student's counter, so concurrent commits for one
+        // student cannot leave a board on an average older than the counter's.
+        public void add(Long studentId, Long subjectId, int value, int times) {
+            synchronized (counter(students, studentId)) {
+                count(studentId, subjectId, value, times);
+                rankStudent(studentId);
+                board(subjectBoards, subjectId)
+                        .update(studentId, cells.get(subjectId).get(studentId).average());
+            }
+        }
+
+        public void rankAll() {
+            for (Long studentId : students.keySet()) {
+                rankStudent(studentId);
+            }
+            cells.forEach((subjectId, bySubject) -> {
+                Leaderboard board = board(subjectBoards, subjectId);
+                bySubject.forEach((studentId, cell) -> board.update(studentId, cell.average()));
+            });
+        }
+
+        public void moveStudent(Long studentId, Long groupId) {
+            MarkCounter student = counter(students, studentId);
+            synchronized (student) {
+                Long previous = groupId != null
+                        ? studentGroups.put(studentId, groupId)
+                        : studentGroups.remove(studentId);
+                if (previous != null && previous.equals(groupId)) {
+                    return;
+                }
+
+                int[] histogram = student.histogram();
+                if (previous != null) {
+                    counter(groups, previous).addAll(histogram, -1);
+                    board(groupBoards, previous).update(studentId, null);
+                }
+                if (groupId != null) {
+                    counter(groups, groupId).addAll(histogram, 1);
+                }
+                rankStudent(studentId);
+            }
+        }
+
+        private void rankStudent(Long studentId) {
+            Double average = students.get(studentId).average();
+            overall.update(studentId, average);
+
+            Long groupId = studentGroups.get(studentId);
+            if (groupId != null) {
+                board(groupBoards, groupId).update(studentId, average);
+            }
+        }
+
+        private static MarkCounter counter(Map<Long, MarkCounter> counters, Long id) {
+            return counters.computeIfAbsent(id, key -> new MarkCounter());
+        }
+
+        private static Leaderboard board(Map<Long, Leaderboard> boards, Long id) {
+            return boards.computeIfAbsent(id, key -> new Leaderboard());
+        }
+    }
+
+    private static class MarkCounter {
+        public static final int SLOTS = MarkDistribution.MAX_VALUE + 1;
+
+        private final int[] histogram = new int[SLOTS];
+        private long sum;
+        private long count;
+
+        public synchronized void add(int value, int times) {
+            histogram[value] += times;
+            sum += (long) value * times;
+            count += times;
+        }
+
+        public synchronized void addAll(int[] values, int sign) {
+            for (int value = 1; value < SLOTS; value++) {
+                histogram[value] += sign * values[value];
+                sum += (long) sign * value * values[value];
+                count += (long) sign * values[value];
+            }
+        }
+
+        public synchronized Double average() {
+            return count > 0 ? (double) sum / count : null;
+        }
+
+        public synchronized int[] histogram() {
+            return histogram.clone();
+        }
+    }
+}
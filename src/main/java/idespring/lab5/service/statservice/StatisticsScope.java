@@ -0,0 +1,7 @@
+package idespring.lab5.service.statservice;
+
+public enum StatisticsScope {
+    STUDENT,
+    SUBJECT,
+    GROUP
+}
@@ -1,18 +1,22 @@
 package idespring.lab5.service.studentsubjserv;
 
+import idespring.lab5.dto.Enrollment;
+import idespring.lab5.dto.EnrollmentResult;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
 import java.util.List;
-import java.util.Set;
 
 public interface StudentSubjectService {
     void addSubjectToStudent(Long studentId, Long subjectId);
 
+    EnrollmentResult enroll(List<Enrollment> enrollments);
+
     void removeSubjectFromStudent(Long studentId, Long subjectId);
 
     List<Subject> getSubjectsByStudent(Long studentId);
 
-    Set<Student> getStudentsBySubject(Long subjectId);
+    List<StudentView> getStudentsBySubject(Long subjectId, String view);
 
     Student findStudentWithSubjects(Long studentId);
 
@@ -1,24 +1,39 @@
 package idespring.lab5.service.studentsubjserv;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.Enrollment;
+import idespring.lab5.dto.EnrollmentResult;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.ValidationException;
 import idespring.lab5.model.Student;
+import idespring.lab5.model.StudentFetchProfile;
 import idespring.lab5.model.Subject;
+import idespring.lab5.repository.studentrepo.StudentReadRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.repository.studentrepo.StudentSubjectJdbcRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
-import jakarta.transaction.Transactional;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class StudentSubjectServiceImpl implements StudentSubjectService {
     private final StudentRepository studentRepository;
+    private final StudentReadRepository studentReadRepository;
     private final SubjectRepository subjectRepository;
     private final CacheConfig<String, Object> cache;
+    private final StudentSubjectJdbcRepository studentSubjectJdbcRepository;
+    private final MarkEventLog markEventLog;
     private static final String STUDENT_ERR = "Student not found";
     private static final String SUBJECT_ERR = "Subject not found";
     private static final Logger logger = LoggerFactory.getLogger(StudentSubjectServiceImpl.class);
@@ -26,15 +41,21 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     @Autowired
     public StudentSubjectServiceImpl(StudentRepository studentRepository,
                                      SubjectRepository subjectRepository,
-                                     CacheConfig<String, Object> cache) {
+                                     CacheConfig<String, Object> cache,
+                                     StudentSubjectJdbcRepository studentSubjectJdbcRepository,
+                                     MarkEventLog markEventLog,
+                                     StudentReadRepository studentReadRepository) {
         this.studentRepository = studentRepository;
         this.subjectRepository = subjectRepository;
         this.cache = cache;
+        this.studentSubjectJdbcRepository = studentSubjectJdbcRepository;
+        this.markEventLog = markEventLog;
+        this.studentReadRepository = studentReadRepository;
     }
 
     private void clearCaches(Long studentId, Long subjectId) {
         cache.remove("subjects-" + studentId);
-        cache.remove("students-" + subjectId);
+        removeStudentsOfSubject(subjectId);
 
         cache.remove("student-with-subjects-" + studentId);
         cache.remove("subject-with-students-" + subjectId);
@@ -42,6 +63,12 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
         logger.debug("Cleared caches for student {} and subject {}", studentId, subjectId);
     }
 
+    private void removeStudentsOfSubject(Long subjectId) {
+        for (StudentFetchProfile profile : StudentFetchProfile.values()) {
+            cache.remove("students-" + subjectId + profile.cacheSuffix());
+        }
+    }
+
     @Override
     @Transactional
     public void addSubjectToStudent(Long studentId, Long subjectId) {
@@ -53,10 +80,78 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
                 .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR));
 
         studentRepository.addSubject(studentId, subjectId);
+        markEventLog.record(MarkEvent.Type.ENROLLED, studentId, subjectId, 0);
         clearCaches(studentId, subjectId);
         logger.info("Subject {} added to student {}", subjectId, studentId);
     }
 
+    @Override
+    @Transactional
+    public EnrollmentResult enroll(List<Enrollment> enrollments) {
+        long start = System.nanoTime();
+        logger.info("Enrolling {} student-subject pairs", enrollments.size());
+
+        Set<Enrollment> pairs = new LinkedHashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            if (enrollment.studentId() == null || enrollment.subjectId() == null) {
+                throw new ValidationException("Every enrollment needs a student and a subject id");
+            }
+            pairs.add(enrollment);
+            studentIds.add(enrollment.studentId());
+            subjectIds.add(enrollment.subjectId());
+        }
+        if (pairs.isEmpty()) {
+            return new EnrollmentResult(List.of(), List.of());
+        }
+
+        Set<Long> missingStudents = new HashSet<>(studentIds);
+        studentSubjectJdbcRepository.findExistingStudentIds(studentIds)
+                .forEach(missingStudents::remove);
+        if (!missingStudents.isEmpty()) {
+            throw new EntityNotFoundException("Students not found with ids: " + missingStudents);
+        }
+        Set<Long> missingSubjects = new HashSet<>(subjectIds);
+        studentSubjectJdbcRepository.findExistingSubjectIds(subjectIds)
+                .forEach(missingSubjects::remove);
+        if (!missingSubjects.isEmpty()) {
+            throw new EntityNotFoundException("Subjects not found with ids: " + missingSubjects);
+        }
+
+        List<Enrollment> enrolled =
+                studentSubjectJdbcRepository.insertEnrollments(new ArrayList<>(pairs));
+        Set<Enrollment> inserted = new HashSet<>(enrolled);
+        List<Enrollment> alreadyEnrolled = new ArrayList<>();
+        for (Enrollment pair : pairs) {
+            if (!inserted.contains(pair)) {
+                alreadyEnrolled.add(pair);
+            }
+        }
+
+        Set<Long> changedStudents = new HashSet<>();
+        Set<Long> changedSubjects = new HashSet<>();
+        for (Enrollment enrollment : enrolled) {
+            markEventLog.record(MarkEvent.Type.ENROLLED, enrollment.studentId(),
+                    enrollment.subjectId(), 0);
+            changedStudents.add(enrollment.studentId());
+            changedSubjects.add(enrollment.subjectId());
+        }
+        changedStudents.forEach(studentId -> {
+            cache.remove("subjects-" + studentId);
+            cache.remove("student-with-subjects-" + studentId);
+        });
+        changedSubjects.forEach(subjectId -> {
+            removeStudentsOfSubject(subjectId);
+            cache.remove("subject-with-students-" + subjectId);
+        });
+
+        long end = System.nanoTime();
+        logger.info("Enrolled {} new pairs, {} already present; execution time: {} ms",
+                enrolled.size(), alreadyEnrolled.size(), (end - start) / 1_000_000);
+        return new EnrollmentResult(enrolled, alreadyEnrolled);
+    }
+
     @Override
     @Transactional
     public void removeSubjectFromStudent(Long studentId, Long subjectId) {
@@ -68,11 +163,13 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
                 .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR));
 
         studentRepository.removeSubject(studentId, subjectId);
+        markEventLog.record(MarkEvent.Type.UNENROLLED, studentId, subjectId, 0);
         clearCaches(studentId, subjectId);
         logger.info("Subject {} removed from student {}", subjectId, studentId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Subject> getSubjectsByStudent(Long studentId) {
         long start = System.nanoTime();
         logger.info("Fetching subjects for student {}", studentId);
@@ -90,18 +187,21 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     }
 
     @Override
-    public Set<Student> getStudentsBySubject(Long subjectId) {
+    @Transactional(readOnly = true)
+    public List<StudentView> getStudentsBySubject(Long subjectId, String view) {
         long start = System.nanoTime();
         logger.info("Fetching students for subject {}", subjectId);
+        StudentFetchProfile profile = StudentFetchProfile.of(view);
+        String cacheKey = "students-" + subjectId + profile.cacheSuffix();
 
         @SuppressWarnings("unchecked")
-        Set<Student> students = (Set<Student>) cache.get("students-" + subjectId);
+        List<StudentView> students = (List<StudentView>) cache.get(cacheKey);
         if (students == null) {
-            Subject subject = subjectRepository.findByIdWithStudents(subjectId)
-                    .orElseThrow(() ->
-                            new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR));
-            students = subject.getStudents();
-            cache.put("students-" + subjectId, students);
+            if (!subjectRepository.existsById(subjectId)) {
+                throw new jakarta.persistence.EntityNotFoundException(SUBJECT_ERR);
+            }
+            students = studentReadRepository.findBySubjectId(subjectId, profile);
+            cache.put(cacheKey, students);
         }
 
         long end = System.nanoTime();
@@ -110,6 +210,7 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Student findStudentWithSubjects(Long studentId) {
         long start = System.nanoTime();
         logger.info("Fetching student with subjects for ID: {}", studentId);
@@ -128,6 +229,7 @@ public class StudentSubjectServiceImpl implements StudentSubjectService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Subject findSubjectWithStudents(Long subjectId) {
         long start = System.nanoTime();
         logger.info("Fetching subject with students for ID: {}", subjectId);
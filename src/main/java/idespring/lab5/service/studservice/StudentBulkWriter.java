@@ -0,0 +1,100 @@
+package idespring.lab5.service.studservice;
+
+import idespring.lab5.model.Student;
+import idespring.lab5.repository.studentrepo.StudentJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Splits a batch of new students into chunks of {@code students.bulk.chunk-size} and inserts
+ * them on {@code students.bulk.workers} threads, each chunk in its own transaction. Chunks
+ * commit independently: when one fails the others may already be committed.
+ */
+@Component
+public class StudentBulkWriter {
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private static final Logger logger = LoggerFactory.getLogger(StudentBulkWriter.class);
+
+    @Autowired
+    public StudentBulkWriter(StudentJdbcRepository studentJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${students.bulk.workers:0}") int workers,
+                             @Value("${students.bulk.chunk-size:100}") int chunkSize) {
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.executor = Executors.newFixedThreadPool(
+                workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "student-bulk-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Inserts every student and runs {@code inTransaction} with each chunk before it commits.
+     */
+    public void write(List<Student> students, Consumer<List<Student>> inTransaction) {
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < students.size(); from += chunkSize) {
+            List<Student> chunk = students.subList(from,
+                    Math.min(from + chunkSize, students.size()));
+            chunks.add(executor.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                studentJdbcRepository.insertStudents(chunk);
+                inTransaction.accept(chunk);
+            })));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chunks.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while inserting students", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime
+                            ? runtime
+                            : new IllegalStateException("Student chunk failed", e.getCause());
+                    logger.error("Student chunk failed, cancelling pending chunks", e.getCause());
+                    chunks.forEach(pending -> pending.cancel(false));
+                }
+            } catch (CancellationException e) {
+                // Cancelled after an earlier chunk failed.
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package idespring.lab5.service.studservice;
+
+import idespring.lab5.dto.StudentExportRow;
+import java.util.function.Consumer;
+
+public interface StudentExportService {
+    long exportStudents(Long groupId, Consumer<StudentExportRow> consumer);
+}
@@ -0,0 +1,42 @@
+package idespring.lab5.service.studservice;
+
+import idespring.lab5.dto.StudentExportRow;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class StudentExportServiceImpl implements StudentExportService {
+    private final StudentRepository studentRepository;
+    private static final Logger logger = LoggerFactory.getLogger(StudentExportServiceImpl.class);
+
+    @Autowired
+    public StudentExportServiceImpl(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportStudents(Long groupId, Consumer<StudentExportRow> consumer) {
+        final long start = System.nanoTime();
+        long count = 0;
+        try (Stream<StudentExportRow> rows = studentRepository.streamForExport(groupId)) {
+            Iterator<StudentExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+
+        long end = System.nanoTime();
+        logger.info("Exported {} students for group: {} in {} ms",
+                count, groupId, (end - start) / 1_000_000);
+        return count;
+    }
+}
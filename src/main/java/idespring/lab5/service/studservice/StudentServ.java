@@ -1,17 +1,30 @@
 package idespring.lab5.service.studservice;
 
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.model.Student;
 import java.util.List;
 
 public interface StudentServ {
-    List<Student> readStudents(Integer age, String sort, Long id);
+    List<StudentView> readStudents(Integer age, String sort, Long id, String view);
 
-    List<Student> findByGroupId(Long groupId);
+    KeysetPage<StudentView> readStudentsPage(Integer age, String sort, String cursor, int limit,
+                                         String view);
 
-    Student findById(Long id);
+    List<StudentView> findByGroupId(Long groupId, String view);
+
+    List<StudentView> searchByName(String namePattern, String view);
+
+    StudentView findById(Long id);
 
     Student addStudent(Student student);
 
+    /**
+     * Inserts new students in parallel chunks, each committed on its own. Students may name
+     * existing subjects and a group but must not carry marks, which this path cannot insert.
+     */
+    List<Student> addStudents(List<Student> students);
+
     void updateStudent(String name, int age, long id);
 
     void deleteStudent(long id);
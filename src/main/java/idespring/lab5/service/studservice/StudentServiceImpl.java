@@ -1,55 +1,92 @@
 package idespring.lab5.service.studservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.ValidationException;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
+import idespring.lab5.model.StudentFetchProfile;
 import idespring.lab5.model.Subject;
+import idespring.lab5.repository.grouprepo.GroupRepository;
+import idespring.lab5.repository.studentrepo.StudentReadRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
-import jakarta.transaction.Transactional;
+import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class StudentServiceImpl implements StudentServ {
     private final StudentRepository studentRepository;
+    private final StudentReadRepository studentReadRepository;
     private final CacheConfig<String, Object> cache;
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
+    private final MarkStatisticsService markStatisticsService;
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkEventLog markEventLog;
+    private final SubjectRepository subjectRepository;
+    private final GroupRepository groupRepository;
+    private final StudentBulkWriter studentBulkWriter;
+    private final NameIndex nameIndex;
     private static final String NOTFOUND = "Student not found with id: ";
     private static final Logger logger = LoggerFactory.getLogger(StudentServiceImpl.class);
 
     @Autowired
     public StudentServiceImpl(StudentRepository studentRepository,
-                              CacheConfig<String, Object> cache) {
+                              StudentReadRepository studentReadRepository,
+                              CacheConfig<String, Object> cache,
+                              MarkStatisticsService markStatisticsService,
+                              ColumnarMarkStore columnarMarkStore,
+                              MarkEventLog markEventLog,
+                              SubjectRepository subjectRepository,
+                              GroupRepository groupRepository,
+                              StudentBulkWriter studentBulkWriter,
+                              NameIndex nameIndex) {
         this.studentRepository = studentRepository;
+        this.studentReadRepository = studentReadRepository;
         this.cache = cache;
+        this.markStatisticsService = markStatisticsService;
+        this.columnarMarkStore = columnarMarkStore;
+        this.markEventLog = markEventLog;
+        this.subjectRepository = subjectRepository;
+        this.groupRepository = groupRepository;
+        this.studentBulkWriter = studentBulkWriter;
+        this.nameIndex = nameIndex;
     }
 
     @Override
-    public List<Student> readStudents(Integer age, String sort, Long id) {
+    @Transactional(readOnly = true)
+    public List<StudentView> readStudents(Integer age, String sort, Long id, String view) {
         long start = System.nanoTime();
-        String cacheKey = age + "-" + sort + "-" + id;
-        logger.info("Fetching students with age: {}, sort: {}, id: {}", age, sort, id);
+        StudentFetchProfile profile = StudentFetchProfile.of(view);
+        String cacheKey = age + "-" + sort + "-" + id + profile.cacheSuffix();
+        logger.info("Fetching students with age: {}, sort: {}, id: {}, view: {}", age, sort, id,
+                profile.getView());
 
         @SuppressWarnings("unchecked")
-        List<Student> students = (List<Student>) cache.get(cacheKey);
+        List<StudentView> students = (List<StudentView>) cache.get(cacheKey);
         if (students == null) {
             if (id != null) {
                 students = Collections.singletonList(
-                        studentRepository.findById(id)
+                        studentReadRepository.findById(id, profile)
                                 .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id))
                 );
-            } else if (age != null && sort != null) {
-                students = studentRepository.findByAgeAndSortByName(age, sort);
-            } else if (age != null) {
-                students = studentRepository.findByAge(age).stream().toList();
-            } else if (sort != null) {
-                students = studentRepository.sortByName(sort);
             } else {
-                students = studentRepository.findAll();
+                students = studentReadRepository.findStudents(age, sort, profile);
             }
             cache.put(cacheKey, students);
         }
@@ -60,27 +97,74 @@ public class StudentServiceImpl implements StudentServ {
     }
 
     @Override
-    public List<Student> findByGroupId(Long groupId) {
+    @Transactional(readOnly = true)
+    public KeysetPage<StudentView> readStudentsPage(Integer age, String sort, String cursor,
+                                                int limit, String view) {
+        long start = System.nanoTime();
+        StudentFetchProfile profile = StudentFetchProfile.of(view);
+        String cacheKey = "students-page-" + age + "-" + sort + "-" + cursor + "-" + limit
+                + profile.cacheSuffix();
+
+        @SuppressWarnings("unchecked")
+        KeysetPage<StudentView> page = (KeysetPage<StudentView>) cache.get(cacheKey);
+        if (page == null) {
+            List<StudentView> rows = studentReadRepository.findPage(age, sort,
+                    PageCursor.decode(cursor), limit, profile);
+            page = KeysetPage.of(rows, limit, student -> new PageCursor(
+                    sort != null ? student.name() : null, student.id()));
+            cache.put(cacheKey, page);
+            pageCacheKeys.add(cacheKey);
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for readStudentsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentView> findByGroupId(Long groupId, String view) {
         logger.info("Fetching students from group ID: {}", groupId);
-        String cacheKey = "group-" + groupId;
+        StudentFetchProfile profile = StudentFetchProfile.of(view);
+        String cacheKey = "group-" + groupId + profile.cacheSuffix();
 
         @SuppressWarnings("unchecked")
-        List<Student> students = (List<Student>) cache.get(cacheKey);
+        List<StudentView> students = (List<StudentView>) cache.get(cacheKey);
         if (students == null) {
-            students = studentRepository.findByGroupId(groupId).stream().toList();
+            students = studentReadRepository.findByGroupId(groupId, profile);
             cache.put(cacheKey, students);
         }
         return students;
     }
 
     @Override
-    public Student findById(Long id) {
+    @Transactional(readOnly = true)
+    public List<StudentView> searchByName(String namePattern, String view) {
+        if (namePattern == null || namePattern.isEmpty()) {
+            throw new ValidationException("namePattern must not be empty");
+        }
+        StudentFetchProfile profile = StudentFetchProfile.of(view);
+        long start = System.nanoTime();
+
+        List<StudentView> students = nameIndex.canSearch(namePattern)
+                ? studentReadRepository.findByIds(
+                        nameIndex.search(NameKind.STUDENT, namePattern), profile)
+                : studentReadRepository.findByNameContaining(namePattern, profile);
+
+        long end = System.nanoTime();
+        logger.info("Execution time for searchByName: {} ms", (end - start) / 1_000_000);
+        return students;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentView findById(Long id) {
         long start = System.nanoTime();
         logger.info("Fetching student from database with id: {}", id);
 
-        Student student = (Student) cache.get(id.toString());
+        StudentView student = (StudentView) cache.get(id.toString());
         if (student == null) {
-            student = studentRepository.findById(id)
+            student = studentReadRepository.findById(id, StudentFetchProfile.FULL)
                     .orElseThrow(() -> new EntityNotFoundException(NOTFOUND + id));
             cache.put(id.toString(), student);
         }
@@ -106,10 +190,31 @@ public class StudentServiceImpl implements StudentServ {
 
         student.setSubjects(new HashSet<>());
         Student savedStudent = studentRepository.save(student);
-        cache.put(savedStudent.getId().toString(), savedStudent);
+        // findById caches a StudentView under this key, not the entity; drop whatever is
+        // there and let the next read build the view.
+        cache.remove(savedStudent.getId().toString());
+        nameIndex.recordSaved(NameKind.STUDENT, savedStudent.getId(), savedStudent.getName());
 
         for (Long subjectId : subjectIds) {
             studentRepository.addSubject(savedStudent.getId(), subjectId);
+            markEventLog.record(MarkEvent.Type.ENROLLED, savedStudent.getId(), subjectId, 0);
+        }
+
+        if (savedStudent.getGroup() != null) {
+            markStatisticsService.recordStudentGroupChanged(savedStudent.getId(),
+                    savedStudent.getGroup().getId());
+            columnarMarkStore.recordStudentGroupChanged(savedStudent.getId(),
+                    savedStudent.getGroup().getId());
+        }
+        for (Mark mark : savedStudent.getMarks()) {
+            if (mark.getSubjectId() != null) {
+                markStatisticsService.recordMarkAdded(savedStudent.getId(),
+                        mark.getSubjectId(), mark.getValue());
+                columnarMarkStore.recordMarkAdded(savedStudent.getId(),
+                        mark.getSubjectId(), mark.getValue());
+                markEventLog.record(MarkEvent.Type.MARK_ADDED, savedStudent.getId(),
+                        mark.getSubjectId(), mark.getValue());
+            }
         }
 
         clearRelatedCaches(savedStudent);
@@ -119,13 +224,82 @@ public class StudentServiceImpl implements StudentServ {
         return savedStudent;
     }
 
+    @Override
+    public List<Student> addStudents(List<Student> students) {
+        final long start = System.nanoTime();
+        logger.info("Saving {} students in parallel chunks", students.size());
+
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Long> groupIds = new HashSet<>();
+        for (Student student : students) {
+            if (!student.getMarks().isEmpty()) {
+                throw new ValidationException("Marks cannot be created with bulk students");
+            }
+            for (Subject subject : student.getSubjects()) {
+                if (subject.getId() == null) {
+                    throw new ValidationException("Every subject needs an id");
+                }
+                subjectIds.add(subject.getId());
+            }
+            if (student.getGroup() != null) {
+                groupIds.add(student.getGroup().getId());
+            }
+        }
+        if (!subjectIds.isEmpty()) {
+            Set<Long> missing = new HashSet<>(subjectIds);
+            subjectRepository.findExistingIds(subjectIds).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                throw new EntityNotFoundException("Subjects not found with ids: " + missing);
+            }
+        }
+        if (!groupIds.isEmpty()) {
+            Set<Long> missing = new HashSet<>(groupIds);
+            groupRepository.findExistingIds(groupIds).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                throw new EntityNotFoundException("Groups not found with ids: " + missing);
+            }
+        }
+
+        try {
+            studentBulkWriter.write(students, chunk -> {
+                for (Student student : chunk) {
+                    nameIndex.recordSaved(NameKind.STUDENT, student.getId(), student.getName());
+                    student.getSubjects().stream().map(Subject::getId).distinct()
+                            .forEach(subjectId -> markEventLog.record(MarkEvent.Type.ENROLLED,
+                                    student.getId(), subjectId, 0));
+                    if (student.getGroup() != null) {
+                        markStatisticsService.recordStudentGroupChanged(student.getId(),
+                                student.getGroup().getId());
+                        columnarMarkStore.recordStudentGroupChanged(student.getId(),
+                                student.getGroup().getId());
+                    }
+                }
+            });
+        } finally {
+            // Chunks commit independently, so a failure can leave earlier chunks committed.
+            Set<Integer> ages = new HashSet<>();
+            for (Student student : students) {
+                ages.add(student.getAge());
+            }
+            ages.forEach(this::clearCachesByAge);
+            groupIds.forEach(this::clearGroupCache);
+            clearListCaches();
+        }
+
+        long end = System.nanoTime();
+        logger.info("Execution time for addStudents: {} ms", (end - start) / 1_000_000);
+        return students;
+    }
+
     @Override
     public void updateStudent(String name, int age, long id) {
         logger.info("Updating student with id: {}", id);
-        Student student = findById(id);
+        StudentView student = findById(id);
         studentRepository.update(name, age, id);
+        nameIndex.recordSaved(NameKind.STUDENT, id, name);
         clearStudentCache(id);
-        clearRelatedCaches(student);
+        clearRelatedCaches(id, student.age(),
+                student.group() != null ? student.group().id() : null);
         logger.info("Student with id {} updated", id);
     }
 
@@ -140,6 +314,10 @@ public class StudentServiceImpl implements StudentServ {
         student.getSubjects().clear();
         studentRepository.saveAndFlush(student);
         studentRepository.delete(student);
+        markEventLog.record(MarkEvent.Type.STUDENT_REMOVED, id, 0, 0);
+        nameIndex.recordRemoved(NameKind.STUDENT, List.of(id));
+        markStatisticsService.invalidate();
+        columnarMarkStore.invalidate();
 
         clearStudentCache(id);
         clearCachesByAge(age);
@@ -157,8 +335,9 @@ public class StudentServiceImpl implements StudentServ {
     }
 
     public void clearGroupCache(Long groupId) {
-        String groupCacheKey = "group-" + groupId;
-        cache.remove(groupCacheKey);
+        for (StudentFetchProfile profile : StudentFetchProfile.values()) {
+            cache.remove("group-" + groupId + profile.cacheSuffix());
+        }
         cache.remove("students-in-group-" + groupId);
         logger.info("Cleared cache for group id: {}", groupId);
     }
@@ -186,22 +365,32 @@ public class StudentServiceImpl implements StudentServ {
 
     public void clearCachesByAge(int age) {
         // Удаляем все возможные комбинации ключей с указанным возрастом
-        cache.remove(age + "-null-null");
-        cache.remove(age + "-asc-null");
-        cache.remove(age + "-desc-null");
+        for (StudentFetchProfile profile : StudentFetchProfile.values()) {
+            String suffix = profile.cacheSuffix();
+            cache.remove(age + "-null-null" + suffix);
+            cache.remove(age + "-asc-null" + suffix);
+            cache.remove(age + "-desc-null" + suffix);
+        }
         logger.info("Cleared caches for age: {}", age);
     }
 
     public void clearListCaches() {
         List<String> keysToRemove = new ArrayList<>();
 
-        keysToRemove.add("null-null-null");
-        keysToRemove.add("null-asc-null");
-        keysToRemove.add("null-desc-null");
+        for (StudentFetchProfile profile : StudentFetchProfile.values()) {
+            String suffix = profile.cacheSuffix();
+            keysToRemove.add("null-null-null" + suffix);
+            keysToRemove.add("null-asc-null" + suffix);
+            keysToRemove.add("null-desc-null" + suffix);
+        }
 
         for (String key : keysToRemove) {
             cache.remove(key);
         }
+        for (String key : pageCacheKeys) {
+            cache.remove(key);
+            pageCacheKeys.remove(key);
+        }
 
         logger.info("Cleared list caches");
     }
@@ -211,15 +400,17 @@ public class StudentServiceImpl implements StudentServ {
             return;
         }
 
-        int age = student.getAge();
-        Long groupId = student.getGroup() != null ? student.getGroup().getId() : null;
+        clearRelatedCaches(student.getId(), student.getAge(),
+                student.getGroup() != null ? student.getGroup().getId() : null);
+    }
 
+    private void clearRelatedCaches(Long studentId, int age, Long groupId) {
         clearCachesByAge(age);
         if (groupId != null) {
             clearGroupCache(groupId);
         }
         clearListCaches();
 
-        logger.info("Cleared all related caches for student: {}", student.getId());
+        logger.info("Cleared all related caches for student: {}", studentId);
     }
 }
@@ -1,11 +1,15 @@
 package idespring.lab5.service.subjectservice;
 
+import idespring.lab5.dto.KeysetPage;
 import idespring.lab5.model.Subject;
 import java.util.List;
 
 public interface SubjectService {
     List<Subject> readSubjects(String namePattern, String sort);
 
+    KeysetPage<Subject> readSubjectsPage(String namePattern, String sort, String cursor,
+                                         int limit);
+
     Subject findById(Long id);
 
     Subject findByName(String name);
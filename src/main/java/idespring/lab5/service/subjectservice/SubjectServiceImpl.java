@@ -1,13 +1,22 @@
 package idespring.lab5.service.subjectservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Subject;
 import idespring.lab5.repository.markrepo.MarkRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,20 +29,40 @@ public class SubjectServiceImpl implements SubjectService {
     private final SubjectRepository subjectRepository;
     private final MarkRepository markRepository;
     private final CacheConfig<String, Object> cache;
+    private final Set<String> pageCacheKeys = ConcurrentHashMap.newKeySet();
+    private final MarkStatisticsService markStatisticsService;
+    private final ColumnarMarkStore columnarMarkStore;
+    private final MarkEventLog markEventLog;
+    private final NameIndex nameIndex;
     private static final String NOTFOUND = "Subject not found with id: ";
     private static final Logger logger = LoggerFactory.getLogger(SubjectServiceImpl.class);
 
     @Autowired
     public SubjectServiceImpl(SubjectRepository subjectRepository,
                               MarkRepository markRepository,
-                              CacheConfig<String, Object> cache) {
+                              CacheConfig<String, Object> cache,
+                              MarkStatisticsService markStatisticsService,
+                              ColumnarMarkStore columnarMarkStore,
+                              MarkEventLog markEventLog,
+                              NameIndex nameIndex) {
         this.subjectRepository = subjectRepository;
         this.markRepository = markRepository;
         this.cache = cache;
+        this.markStatisticsService = markStatisticsService;
+        this.columnarMarkStore = columnarMarkStore;
+        this.markEventLog = markEventLog;
+        this.nameIndex = nameIndex;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Subject> readSubjects(String namePattern, String sort) {
+        // Index answers are cheap enough not to give every pattern its own cache entry.
+        if (namePattern != null && nameIndex.canSearch(namePattern)) {
+            return subjectRepository.findAllById(
+                    nameIndex.search(NameKind.SUBJECT, namePattern));
+        }
+
         String cacheKey = namePattern + "-" + (sort != null ? sort : "default");
         if (cache.get(cacheKey) != null) {
             return (List<Subject>) cache.get(cacheKey);
@@ -59,6 +88,29 @@ public class SubjectServiceImpl implements SubjectService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Subject> readSubjectsPage(String namePattern, String sort, String cursor,
+                                                int limit) {
+        String cacheKey = "subjects-page-" + namePattern + "-" + sort + "-" + cursor + "-" + limit;
+        if (cache.get(cacheKey) != null) {
+            return (KeysetPage<Subject>) cache.get(cacheKey);
+        }
+
+        final long start = System.nanoTime();
+        List<Subject> rows = subjectRepository.findPage(namePattern, sort,
+                PageCursor.decode(cursor), limit);
+        KeysetPage<Subject> page = KeysetPage.of(rows, limit, subject -> new PageCursor(
+                sort != null ? subject.getName() : null, subject.getId()));
+
+        cache.put(cacheKey, page);
+        pageCacheKeys.add(cacheKey);
+        long end = System.nanoTime();
+        logger.info("Execution time for readSubjectsPage: {} ms", (end - start) / 1_000_000);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Subject findById(Long id) {
         String cacheKey = "subject-" + id;
         if (cache.get(cacheKey) != null) {
@@ -78,6 +130,7 @@ public class SubjectServiceImpl implements SubjectService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Subject findByName(String name) {
         String cacheKey = "subject-" + name;
         if (cache.get(cacheKey) != null) {
@@ -105,6 +158,8 @@ public class SubjectServiceImpl implements SubjectService {
         Subject savedSubject = subjectRepository.save(subject);
         cache.put("subject-" + savedSubject.getId(), savedSubject);
         cache.put("subject-" + savedSubject.getName(), savedSubject);
+        nameIndex.recordSaved(NameKind.SUBJECT, savedSubject.getId(), savedSubject.getName());
+        clearPageCaches();
 
         long end = System.nanoTime();
         logger.info("Execution time for addSubject: {} ms", (end - start) / 1_000_000);
@@ -121,6 +176,10 @@ public class SubjectServiceImpl implements SubjectService {
         clearCacheForSubject(subject);
 
         subjectRepository.deleteById(id);
+        nameIndex.recordRemoved(NameKind.SUBJECT, List.of(id));
+        markEventLog.record(MarkEvent.Type.SUBJECT_REMOVED, 0, id, 0);
+        markStatisticsService.invalidate();
+        columnarMarkStore.invalidate();
         logger.info("Subject with id {} deleted", id);
     }
 
@@ -135,10 +194,15 @@ public class SubjectServiceImpl implements SubjectService {
         clearCacheForSubject(subject);
 
         subjectRepository.deleteByName(name);
+        nameIndex.recordRemoved(NameKind.SUBJECT, List.of(subject.getId()));
+        markEventLog.record(MarkEvent.Type.SUBJECT_REMOVED, 0, subject.getId(), 0);
+        markStatisticsService.invalidate();
+        columnarMarkStore.invalidate();
         logger.info("Subject with name {} deleted", name);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByName(String name) {
         logger.info("Checking existence of subject with name: {}", name);
         return subjectRepository.existsByName(name);
@@ -151,6 +215,7 @@ public class SubjectServiceImpl implements SubjectService {
         cache.remove("subject-" + subject.getName());
 
         cache.remove("avg-subject-" + subjectId);
+        clearPageCaches();
 
         List<Mark> subjectMarks = markRepository.findBySubjectId(subjectId);
 
@@ -167,4 +232,11 @@ public class SubjectServiceImpl implements SubjectService {
             cache.remove("mark-" + mark.getId());
         }
     }
-}
\ No newline at end of file
+
+    private void clearPageCaches() {
+        for (String key : pageCacheKeys) {
+            cache.remove(key);
+            pageCacheKeys.remove(key);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- Moves students, subjects, groups and marks from identity columns to sequences that
+-- Hibernate's pooled optimizer can allocate from in blocks. INCREMENT BY has to equal
+-- ids.allocation-size (default 50).
+--
+-- Each nextval() hands out the top of a block and Hibernate uses the ids below it, so rows
+-- inserted with the column default (JDBC batches, COPY imports) never collide with
+-- Hibernate's ids; they just leave gaps.
+
+DO $$
+DECLARE
+    t text;
+    allocation_size constant int := 50;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['students', 'subjects', 'groups', 'marks'] LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS studentmanagement.%I INCREMENT BY %s',
+                       t || '_seq', allocation_size);
+        EXECUTE format('ALTER TABLE studentmanagement.%I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('ALTER TABLE studentmanagement.%I ALTER COLUMN id SET DEFAULT '
+                       || 'nextval(''studentmanagement.%I'')', t, t || '_seq');
+        EXECUTE format('ALTER SEQUENCE studentmanagement.%I OWNED BY studentmanagement.%I.id',
+                       t || '_seq', t);
+        -- The first nextval() returns MAX(id) + allocation_size, whose block starts right
+        -- after the existing rows.
+        EXECUTE format('SELECT setval(''studentmanagement.%I'', '
+                       || 'COALESCE((SELECT MAX(id) FROM studentmanagement.%I), 0) + %s, false)',
+                       t || '_seq', t, allocation_size);
+    END LOOP;
+END $$;
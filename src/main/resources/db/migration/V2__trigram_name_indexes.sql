@@ -0,0 +1,15 @@
+-- Trigram GIN indexes so that name LIKE '%pattern%' is an index scan instead of a sequential
+-- scan. The application answers most substring searches from its own in-memory trigram
+-- index; these serve the database path, which still handles patterns containing LIKE
+-- wildcards, searches made before the index has loaded, and the paged name filters.
+--
+-- pg_trgm only uses the index for patterns of at least three characters.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS groups_name_trgm
+    ON studentmanagement.groups USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS subjects_name_trgm
+    ON studentmanagement.subjects USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS students_name_trgm
+    ON studentmanagement.students USING gin (name gin_trgm_ops);
@@ -0,0 +1,8 @@
+-- Highest write-behind journal sequence already inserted into marks, one row per journal
+-- directory. The buffer updates it in the same transaction as each batch of marks, so after a
+-- crash the journal is replayed from exactly the first sequence that never committed.
+
+CREATE TABLE IF NOT EXISTS studentmanagement.mark_journal_checkpoints (
+    journal  varchar(1024) PRIMARY KEY,
+    sequence bigint        NOT NULL
+);
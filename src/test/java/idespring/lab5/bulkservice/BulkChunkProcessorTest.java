@@ -0,0 +1,182 @@
+package idespring.lab5.bulkservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.model.Mark;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkChunkProcessorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ValidatorFactory validatorFactory;
+
+    private BulkChunkProcessor processor;
+
+    private final List<List<Integer>> handled = new ArrayList<>();
+
+    private final Recorder recorder = new Recorder();
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        processor = new BulkChunkProcessor(new ObjectMapper(), validatorFactory.getValidator(),
+                transactionManager, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String marks(int... values) {
+        List<String> elements = new ArrayList<>();
+        for (int value : values) {
+            elements.add("{\"value\":" + value + ",\"studentId\":1,\"subjectId\":2}");
+        }
+        return String.join(",", elements);
+    }
+
+    private final Function<List<Mark>, List<Integer>> recordValues = chunk -> {
+        List<Integer> values = chunk.stream().map(Mark::getValue).toList();
+        handled.add(values);
+        return values;
+    };
+
+    private static final class Recorder implements BulkChunkProcessor.ChunkListener<Integer> {
+        private final List<String> events = new ArrayList<>();
+        private RuntimeException error;
+
+        @Override
+        public void committed(int chunk, long offset, int size, List<Integer> created) {
+            events.add("committed " + chunk + "@" + offset + " " + created);
+        }
+
+        @Override
+        public void failed(int chunk, long offset, RuntimeException error) {
+            events.add("failed " + chunk + "@" + offset);
+            this.error = error;
+        }
+    }
+
+    @Test
+    void process_ExactMultipleOfChunkSize_ShouldCommitFullChunksOnly() throws IOException {
+        processor.process(body("[" + marks(1, 2, 3, 4) + "]"), Mark.class, recordValues,
+                recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "committed 1@2 [3, 4]"), recorder.events);
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4)), handled);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void process_PartialLastChunk_ShouldCommitRemainder() throws IOException {
+        processor.process(body("[" + marks(1, 2, 3) + "]"), Mark.class, recordValues,
+                recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "committed 1@2 [3]"), recorder.events);
+    }
+
+    @Test
+    void process_EmptyArray_ShouldDoNothing() throws IOException {
+        processor.process(body("[]"), Mark.class, recordValues, recorder);
+
+        assertTrue(recorder.events.isEmpty());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void process_NonArrayBody_ShouldReject() {
+        assertThrows(ValidationException.class, () -> processor.process(
+                body("{" + marks(1).substring(1)), Mark.class, recordValues, recorder));
+
+        assertTrue(handled.isEmpty());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void process_MalformedJsonMidStream_ShouldKeepEarlierChunksAndReportOffset()
+            throws IOException {
+        processor.process(body("[" + marks(1, 2, 3) + ",{\"value\":4,,}]"), Mark.class,
+                recordValues, recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "failed 1@2"), recorder.events);
+        assertInstanceOf(ValidationException.class, recorder.error);
+        assertTrue(recorder.error.getMessage().startsWith("Malformed bulk request body"));
+        assertEquals(List.of(List.of(1, 2)), handled);
+    }
+
+    @Test
+    void process_TruncatedBody_ShouldReportFailure() throws IOException {
+        processor.process(body("[" + marks(1, 2, 3)), Mark.class, recordValues, recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "failed 1@2"), recorder.events);
+        assertInstanceOf(ValidationException.class, recorder.error);
+    }
+
+    @Test
+    void process_InvalidElement_ShouldFailItsChunkBeforeHandling() throws IOException {
+        processor.process(body("[" + marks(1, 2, 3, 11) + "]"), Mark.class, recordValues,
+                recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "failed 1@2"), recorder.events);
+        assertInstanceOf(ConstraintViolationException.class, recorder.error);
+        assertEquals(List.of(List.of(1, 2)), handled);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void process_LaterChunkFails_ShouldRollBackOnlyThatChunkAndStop() throws IOException {
+        Function<List<Mark>, List<Integer>> failOnSecond = chunk -> {
+            if (!handled.isEmpty()) {
+                throw new IllegalStateException("duplicate key");
+            }
+            return recordValues.apply(chunk);
+        };
+
+        processor.process(body("[" + marks(1, 2, 3, 4, 5) + "]"), Mark.class, failOnSecond,
+                recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "failed 1@2"), recorder.events);
+        assertEquals("duplicate key", recorder.error.getMessage());
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void process_SelfCommittingHandler_ShouldRunWithoutTransaction() throws IOException {
+        processor.process(body("[" + marks(1, 2, 3) + "]"), Mark.class,
+                BulkChunkProcessor.selfCommitting(recordValues), recorder);
+
+        assertEquals(List.of("committed 0@0 [1, 2]", "committed 1@2 [3]"), recorder.events);
+        verifyNoInteractions(transactionManager);
+    }
+}
@@ -0,0 +1,106 @@
+package idespring.lab5.bulkservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import idespring.lab5.controller.BulkRequests;
+import idespring.lab5.exceptions.ValidationException;
+import idespring.lab5.model.Mark;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
+import idespring.lab5.service.jobservice.BulkJobService;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkRequestsTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BulkJobService bulkJobService;
+
+    private ValidatorFactory validatorFactory;
+
+    private BulkRequests bulkRequests;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        BulkChunkProcessor processor = new BulkChunkProcessor(objectMapper,
+                validatorFactory.getValidator(), transactionManager, 2);
+        bulkRequests = new BulkRequests(processor, bulkJobService, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private static MockHttpServletRequest request(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/marks/bulk");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static final Function<List<Mark>, List<Integer>> VALUES =
+            chunk -> chunk.stream().map(Mark::getValue).toList();
+
+    @Test
+    void process_ShouldStreamOneEntryPerCommittedChunk() throws Exception {
+        bulkRequests.process("marks", false,
+                request("[{\"value\":1},{\"value\":2},{\"value\":3}]"), response, Mark.class,
+                VALUES);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("[{\"chunk\":0,\"offset\":0,\"created\":[1,2]},"
+                + "{\"chunk\":1,\"offset\":2,\"created\":[3]}]", response.getContentAsString());
+        verifyNoInteractions(bulkJobService);
+    }
+
+    @Test
+    void process_LaterChunkFails_ShouldAppendErrorEntryAfterCommittedChunks() throws Exception {
+        bulkRequests.process("marks", false,
+                request("[{\"value\":1},{\"value\":2},{\"value\":3},{\"value\":0}]"), response,
+                Mark.class, VALUES);
+
+        assertEquals(201, response.getStatus());
+        String body = response.getContentAsString();
+        assertTrue(body.startsWith("[{\"chunk\":0,\"offset\":0,\"created\":[1,2]},"
+                + "{\"chunk\":1,\"offset\":2,\"error\":\""), body);
+        assertTrue(body.contains("Mark value must be at least 1"), body);
+        assertTrue(body.endsWith("\"}]"), body);
+    }
+
+    @Test
+    void process_FirstChunkFails_ShouldThrowWithoutWritingBody() throws Exception {
+        assertThrows(ValidationException.class, () -> bulkRequests.process("marks", false,
+                request("[{\"value\":1},"), response, Mark.class, VALUES));
+
+        assertEquals("", response.getContentAsString());
+        assertFalse(response.isCommitted());
+    }
+
+    @Test
+    void process_NonArrayBody_ShouldThrow() {
+        assertThrows(ValidationException.class, () -> bulkRequests.process("marks", false,
+                request("{\"value\":1}"), response, Mark.class, VALUES));
+    }
+}
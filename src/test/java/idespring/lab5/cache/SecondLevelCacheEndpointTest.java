@@ -0,0 +1,68 @@
+package idespring.lab5.cache;
+
+import idespring.lab5.config.SecondLevelCacheEndpoint;
+import idespring.lab5.dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecondLevelCacheEndpointTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Statistics statistics;
+
+    private SecondLevelCacheEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.getSecondLevelCacheRegionNames())
+                .thenReturn(new String[] {"subjects", "groups"});
+        endpoint = new SecondLevelCacheEndpoint(entityManagerFactory);
+    }
+
+    private void region(String name, long hits, long misses, long puts, long entries) {
+        CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+        when(region.getHitCount()).thenReturn(hits);
+        when(region.getMissCount()).thenReturn(misses);
+        when(region.getPutCount()).thenReturn(puts);
+        when(region.getElementCountInMemory()).thenReturn(entries);
+        when(statistics.getDomainDataRegionStatistics(name)).thenReturn(region);
+    }
+
+    @Test
+    void regions_ShouldReportEveryRegionByName() {
+        region("subjects", 40, 2, 2, 2);
+        region("groups", 9, 1, 1, 1);
+
+        List<CacheRegionStats> regions = endpoint.regions();
+
+        assertEquals(List.of(new CacheRegionStats("groups", 9, 1, 1, 1),
+                new CacheRegionStats("subjects", 40, 2, 2, 2)), regions);
+    }
+
+    @Test
+    void region_Unknown_ShouldReturnNull() {
+        assertNull(endpoint.region("marks"));
+        verify(statistics, never()).getDomainDataRegionStatistics("marks");
+    }
+}
@@ -0,0 +1,220 @@
+package idespring.lab5.datasource;
+
+import idespring.lab5.config.CacheConfig;
+import idespring.lab5.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replicaA;
+
+    @Mock
+    private DataSource replicaB;
+
+    @Mock
+    private Connection primaryConnection;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replicaA);
+        replicas.put("replica-1", replicaB);
+        routing = new ReplicaRoutingDataSource(primary, replicas, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.pinToPrimary(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Each getConnection answers the lag query first, then hands out the returned connection.
+    private Connection replicaWithLag(DataSource replica, long lagMillis) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.getLong(1)).thenReturn(lagMillis);
+        return connection;
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldRoundRobinOverHealthyReplicas() throws SQLException {
+        Connection a = replicaWithLag(replicaA, 0);
+        Connection b = replicaWithLag(replicaB, 200);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(a, routing.getConnection());
+        assertSame(b, routing.getConnection());
+        assertSame(a, routing.getConnection());
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void writeTransaction_ShouldUsePrimary() throws SQLException {
+        replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void laggingOrUnreachableReplicas_ShouldFallBackToPrimary() throws SQLException {
+        replicaWithLag(replicaA, 5_000);
+        when(replicaB.getConnection()).thenThrow(new SQLException("connection refused"));
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(5_000, routing.getReplicaStatus().get(0).lagMillis());
+        assertFalse(routing.getReplicaStatus().get(1).usable());
+    }
+
+    @Test
+    void pinnedThread_ShouldReadFromPrimary() throws SQLException {
+        replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRoutingDataSource.pinToPrimary(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void onPrimary_ShouldReadFromPrimaryAndRestorePin() throws SQLException {
+        Connection a = replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                assertSame(primaryConnection, routing.getConnection());
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(a, routing.getConnection());
+    }
+
+    @Test
+    void replicaRead_ShouldBeFlaggedUntilTransactionCompletes() throws SQLException {
+        replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertFalse(ReplicaRoutingDataSource.isReplicaRead());
+        routing.getConnection();
+        assertTrue(ReplicaRoutingDataSource.isReplicaRead());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertFalse(ReplicaRoutingDataSource.isReplicaRead());
+    }
+
+    private void completeTransaction() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private void readOnReplica(Runnable action) throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        TransactionSynchronizationManager.initSynchronization();
+        routing.getConnection();
+        action.run();
+        completeTransaction();
+    }
+
+    @Test
+    void replicaRead_ShouldStillBeServedFromCache() throws SQLException {
+        replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+        CacheConfig<String, String> cache = new CacheConfig<>(60_000, 100);
+
+        readOnReplica(() -> cache.put("subject-1", "Math"));
+
+        int hits = 0;
+        for (int i = 0; i < 10; i++) {
+            if (cache.get("subject-1") != null) {
+                hits++;
+            }
+        }
+        assertEquals(10, hits);
+        cache.shutdown();
+    }
+
+    @Test
+    void replicaRead_ShouldNotBeServedToPinnedThread() throws SQLException {
+        replicaWithLag(replicaA, 0);
+        replicaWithLag(replicaB, 0);
+        routing.checkReplicas();
+        CacheConfig<String, String> cache = new CacheConfig<>(60_000, 100);
+
+        readOnReplica(() -> cache.put("subject-1", "Math"));
+        ReplicaRoutingDataSource.pinToPrimary(true);
+
+        assertNull(cache.get("subject-1"));
+        cache.put("subject-1", "Physics");
+        assertEquals("Physics", cache.get("subject-1"));
+        cache.shutdown();
+    }
+
+    @Test
+    void replicaRead_ShouldExpireAfterLagBound() throws Exception {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replicaA);
+        routing = new ReplicaRoutingDataSource(primary, replicas, 20);
+        replicaWithLag(replicaA, 0);
+        routing.checkReplicas();
+        CacheConfig<String, String> cache = new CacheConfig<>(60_000, 100);
+
+        readOnReplica(() -> cache.put("subject-1", "Math"));
+        cache.put("subject-2", "Physics");
+        Thread.sleep(50);
+
+        assertNull(cache.get("subject-1"));
+        assertEquals("Physics", cache.get("subject-2"));
+        cache.shutdown();
+    }
+}
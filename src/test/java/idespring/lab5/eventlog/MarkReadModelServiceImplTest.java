@@ -0,0 +1,160 @@
+package idespring.lab5.eventlog;
+
+import idespring.lab5.dto.StudentReadModel;
+import idespring.lab5.dto.SubjectReadModel;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.repository.studentrepo.StudentSubjectJdbcRepository;
+import idespring.lab5.service.eventlog.MarkEvent;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.eventlog.MarkReadModelServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarkReadModelServiceImplTest {
+
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Mock
+    private StudentSubjectJdbcRepository studentSubjectJdbcRepository;
+
+    @TempDir
+    Path eventDir;
+
+    private MarkEventLog eventLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        eventLog = new MarkEventLog(eventDir.toString(), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLog.close();
+    }
+
+    private MarkReadModelServiceImpl newService() {
+        return new MarkReadModelServiceImpl(eventLog);
+    }
+
+    private void append(MarkEvent.Type type, long studentId, long subjectId, int value) {
+        eventLog.append(List.of(new MarkEvent(-1, type, studentId, subjectId, value)));
+    }
+
+    @Test
+    void log_ShouldRotateSegmentsAndSurviveReopen() throws Exception {
+        for (int i = 1; i <= 10; i++) {
+            append(MarkEvent.Type.MARK_ADDED, i, 2L, i);
+        }
+        eventLog.close();
+
+        eventLog = new MarkEventLog(eventDir.toString(), 4);
+        List<MarkEvent> events = new ArrayList<>();
+        long next = eventLog.read(3, 5, events::add);
+
+        assertEquals(10, eventLog.getEndOffset());
+        assertEquals(8, next);
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L),
+                events.stream().map(MarkEvent::offset).toList());
+        assertEquals(new MarkEvent(4, MarkEvent.Type.MARK_ADDED, 5L, 2L, 5), events.get(1));
+
+        append(MarkEvent.Type.ENROLLED, 1L, 3L, 0);
+        assertEquals(11, eventLog.getEndOffset());
+    }
+
+    @Test
+    void subscribe_ShouldCatchUpFromOffsetAndReceiveNewEvents() {
+        append(MarkEvent.Type.ENROLLED, 1L, 2L, 0);
+        append(MarkEvent.Type.MARK_ADDED, 1L, 2L, 8);
+        append(MarkEvent.Type.MARK_ADDED, 1L, 2L, 6);
+        List<Long> seen = new ArrayList<>();
+
+        eventLog.subscribe(1, event -> seen.add(event.offset()));
+        append(MarkEvent.Type.MARK_REMOVED, 1L, 2L, 8);
+
+        assertEquals(List.of(1L, 2L, 3L), seen);
+    }
+
+    @Test
+    void rebuild_ShouldProjectMarksAndEnrollments() {
+        append(MarkEvent.Type.ENROLLED, 1L, 10L, 0);
+        append(MarkEvent.Type.ENROLLED, 2L, 10L, 0);
+        append(MarkEvent.Type.ENROLLED, 1L, 20L, 0);
+        append(MarkEvent.Type.MARK_ADDED, 1L, 10L, 8);
+        append(MarkEvent.Type.MARK_ADDED, 2L, 10L, 4);
+        append(MarkEvent.Type.MARK_ADDED, 1L, 20L, 6);
+        MarkReadModelServiceImpl service = newService();
+
+        assertEquals(6, service.rebuild());
+        append(MarkEvent.Type.STUDENT_REMOVED, 2L, 0, 0);
+        append(MarkEvent.Type.UNENROLLED, 1L, 20L, 0);
+
+        StudentReadModel student = service.getStudent(1L);
+        assertEquals(7.0, student.marks().average());
+        assertEquals(List.of(10L), student.subjectIds());
+        SubjectReadModel subject = service.getSubject(10L);
+        assertEquals(1, subject.marks().count());
+        assertEquals(8.0, subject.marks().average());
+        assertEquals(List.of(1L), subject.studentIds());
+        assertEquals(0, service.getStudent(2L).marks().count());
+    }
+
+    @Test
+    void seed_EmptyLog_ShouldCopyDatabaseBeforeServing() throws Exception {
+        ResultSet enrollment = mock(ResultSet.class);
+        when(enrollment.getLong(1)).thenReturn(1L);
+        when(enrollment.getLong(2)).thenReturn(10L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(0).processRow(enrollment);
+            return null;
+        }).when(studentSubjectJdbcRepository).forEachEnrollment(any());
+        ResultSet mark = mock(ResultSet.class);
+        when(mark.getLong(1)).thenReturn(1L);
+        when(mark.getLong(2)).thenReturn(10L);
+        when(mark.getInt(3)).thenReturn(9);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(0).processRow(mark);
+            return null;
+        }).when(markJdbcRepository).forEachMark(any());
+        eventLog.close();
+        eventLog = new MarkEventLog(eventDir.toString(), 4, markJdbcRepository,
+                studentSubjectJdbcRepository, true);
+
+        eventLog.seed();
+        MarkReadModelServiceImpl service = newService();
+        service.start();
+
+        assertEquals(2, eventLog.getEndOffset());
+        assertEquals(9.0, service.getSubject(10L).marks().average());
+        assertEquals(List.of(10L), service.getStudent(1L).subjectIds());
+    }
+
+    @Test
+    void seed_NonEmptyLog_ShouldNotQueryDatabase() throws Exception {
+        append(MarkEvent.Type.ENROLLED, 1L, 10L, 0);
+        eventLog.close();
+        eventLog = new MarkEventLog(eventDir.toString(), 4, markJdbcRepository,
+                studentSubjectJdbcRepository, true);
+
+        eventLog.seed();
+
+        assertEquals(1, eventLog.getEndOffset());
+        verifyNoInteractions(markJdbcRepository, studentSubjectJdbcRepository);
+    }
+}
@@ -1,12 +1,18 @@
 package idespring.lab5.groupservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.KeysetPage;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.model.Group;
 import idespring.lab5.model.Student;
 import idespring.lab5.repository.grouprepo.GroupRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
 import idespring.lab5.service.groupservice.GroupServiceImpl;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import idespring.lab5.service.studservice.StudentServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +43,18 @@ public class GroupServiceImplTest {
     @Mock
     private StudentServiceImpl studentServiceImpl;
 
+    @Mock
+    private MarkStatisticsService markStatisticsService;
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
+    @Mock
+    private NameIndex nameIndex;
+
     @InjectMocks
     private GroupServiceImpl groupService;
 
@@ -121,6 +139,19 @@ public class GroupServiceImplTest {
         verify(cache).put(anyString(), eq(expectedGroups));
     }
 
+    @Test
+    void readGroups_withNamePatternAndIndex_shouldLoadIndexMatchesUncached() {
+        when(nameIndex.canSearch("est")).thenReturn(true);
+        when(nameIndex.search(NameKind.GROUP, "est")).thenReturn(List.of(1L));
+        when(groupRepository.findAllById(List.of(1L))).thenReturn(List.of(testGroup));
+
+        List<Group> result = groupService.readGroups("est", null);
+
+        assertEquals(List.of(testGroup), result);
+        verify(groupRepository, never()).findByNameContaining(anyString());
+        verifyNoInteractions(cache);
+    }
+
     @Test
     void readGroups_withSortAsc_shouldReturnSortedGroups() {
         List<Group> expectedGroups = Collections.singletonList(testGroup);
@@ -300,4 +331,21 @@ public class GroupServiceImplTest {
 
         assertThrows(EntityNotFoundException.class, () -> groupService.findById(99L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReadGroupsPage_CacheMiss_ShouldTrackKeyForInvalidation() {
+        when(groupRepository.findPage("Test", null, null, 10)).thenReturn(List.of(testGroup));
+
+        KeysetPage<Group> page = groupService.readGroupsPage("Test", null, null, 10);
+
+        assertEquals(List.of(testGroup), page.items());
+        assertNull(page.nextCursor());
+        String cacheKey = "allGroups-page-Test-null-null-10";
+        verify(cache).put(cacheKey, page);
+
+        groupService.invalidateGroupListCaches();
+
+        verify(cache).remove(cacheKey);
+        assertFalse(groupService.groupCacheKeys.contains(cacheKey));
+    }
+}
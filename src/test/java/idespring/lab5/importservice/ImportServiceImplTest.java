@@ -0,0 +1,184 @@
+package idespring.lab5.importservice;
+
+import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.ImportStatus;
+import idespring.lab5.repository.importrepo.ImportJdbcRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.importservice.ImportKind;
+import idespring.lab5.service.importservice.ImportServiceImpl;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportServiceImplTest {
+
+    @Mock
+    private ImportJdbcRepository importJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheConfig<String, Object> cache;
+
+    @Mock
+    private MarkStatisticsService markStatisticsService;
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
+    @Mock
+    private NameIndex nameIndex;
+
+    @TempDir
+    private Path rejectDir;
+
+    private ImportServiceImpl importService;
+    private List<String> staged;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ImportServiceImpl(importJdbcRepository, transactionManager, cache,
+                markStatisticsService, columnarMarkStore, markEventLog, nameIndex, 3,
+                rejectDir.toString());
+        staged = new ArrayList<>();
+    }
+
+    private void stageCopiedRows() {
+        when(importJdbcRepository.copyIntoStaging(any(), any())).thenAnswer(invocation -> {
+            ImportJdbcRepository.ChunkSource source = invocation.getArgument(1);
+            byte[] chunk;
+            while ((chunk = source.next()) != null) {
+                staged.addAll(Arrays.asList(
+                        new String(chunk, StandardCharsets.UTF_8).split("\n")));
+            }
+            return (long) staged.size();
+        });
+    }
+
+    private ImportStatus run(ImportKind kind, String csv) {
+        return importService.importCsv(kind,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "test");
+    }
+
+    @Test
+    void importCsv_Marks_ShouldStageValidRowsAndRejectTheRest() throws Exception {
+        // Arrange
+        stageCopiedRows();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(4L);
+            when(rs.getString(2)).thenReturn("9");
+            when(rs.getString(3)).thenReturn("2");
+            when(rs.getString(4)).thenReturn("7");
+            handler.processRow(rs);
+            return null;
+        }).when(importJdbcRepository).forEachUnresolved(eq(ImportKind.MARKS), any());
+        when(importJdbcRepository.insertResolved(ImportKind.MARKS)).thenReturn(2);
+
+        // Act
+        ImportStatus status = run(ImportKind.MARKS,
+                "studentId,subjectId,value\n1,2,8\n1,2,11\n9,2,7\n\n3,x,5\n2,2,4\n");
+
+        // Assert
+        staged.sort(null);
+        assertEquals(List.of("2,1,2,8", "4,9,2,7", "7,2,2,4"), staged);
+        assertEquals(ImportStatus.State.COMPLETED, status.getState());
+        assertEquals(2, status.getRowsImported());
+        assertEquals(3, status.getRowsRejected());
+
+        List<String> rejected = Files.readAllLines(Path.of(status.getRejectedFile()));
+        assertEquals(4, rejected.size());
+        assertTrue(rejected.contains("3,\"value must be between 1 and 10\",\"1,2,11\""));
+        assertTrue(rejected.contains("4,\"student does not exist or is not enrolled in subject\","
+                + "\"9,2,7\""));
+
+        verify(importJdbcRepository).createStaging(ImportKind.MARKS);
+        verify(transactionManager).commit(any());
+        verify(cache, times(1)).removeIf(any());
+        verify(markStatisticsService).reload();
+        verify(columnarMarkStore).reload();
+        verify(nameIndex, never()).reload();
+    }
+
+    @Test
+    void importCsv_StudentsWithoutRejects_ShouldQuoteNamesAndReloadGroupsAndNames() {
+        // Arrange
+        stageCopiedRows();
+        when(importJdbcRepository.insertResolved(ImportKind.STUDENTS)).thenReturn(2);
+
+        // Act
+        ImportStatus status = run(ImportKind.STUDENTS, "\"Doe, \"\"Jo\"\"\",20,3\nAnn,19\n");
+
+        // Assert
+        staged.sort(null);
+        assertEquals(List.of("1,\"Doe, \"\"Jo\"\"\",20,3", "2,\"Ann\",19,"), staged);
+        assertNull(status.getRejectedFile());
+        assertEquals(2, status.getRowsRead());
+        verify(cache).removeIf(any());
+        verify(markStatisticsService).reload();
+        verify(columnarMarkStore).reload();
+        verify(nameIndex).reload();
+    }
+
+    @Test
+    void importCsv_ManyChunks_ShouldStageEveryRowOnce() {
+        // Arrange
+        stageCopiedRows();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 23_456; i++) {
+            csv.append(i).append(",1,").append(i % 10 + 1).append('\n');
+        }
+
+        // Act
+        ImportStatus status = run(ImportKind.MARKS, csv.toString());
+
+        // Assert
+        assertEquals(23_456, staged.size());
+        assertEquals(23_456, staged.stream().map(row -> row.split(",")[0]).distinct().count());
+        assertEquals(23_456, status.getRowsRead());
+        assertEquals(0, status.getRowsRejected());
+    }
+
+    @Test
+    void importCsv_CopyFails_ShouldRollBackAndKeepCaches() {
+        // Arrange
+        when(importJdbcRepository.copyIntoStaging(any(), any()))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> run(ImportKind.MARKS, "1,2,3\n"));
+        ImportStatus status = importService.getRecentImports().get(0);
+        assertEquals(ImportStatus.State.FAILED, status.getState());
+        verify(transactionManager).rollback(any());
+        verify(importJdbcRepository, never()).insertResolved(any());
+        verifyNoInteractions(cache, markStatisticsService, columnarMarkStore);
+    }
+}
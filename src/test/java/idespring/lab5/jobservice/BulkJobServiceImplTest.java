@@ -0,0 +1,142 @@
+package idespring.lab5.jobservice;
+
+import idespring.lab5.dto.BulkJob;
+import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.JobRejectedException;
+import idespring.lab5.service.bulkservice.BulkChunkProcessor;
+import idespring.lab5.service.jobservice.BulkJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkJobServiceImplTest {
+
+    @Mock
+    private BulkChunkProcessor bulkChunkProcessor;
+
+    private BulkJobServiceImpl jobService;
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    private static InputStream payload(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final Function<List<String>, List<String>> ECHO = chunk -> chunk;
+
+    private static void awaitFinished(BulkJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ShouldRunChunksInBackgroundAndReportProgress() throws Exception {
+        // Arrange
+        jobService = new BulkJobServiceImpl(bulkChunkProcessor, 1, 1);
+        doAnswer(invocation -> {
+            InputStream input = invocation.getArgument(0);
+            assertEquals("[\"a\",\"b\",\"c\"]",
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            BulkChunkProcessor.ChunkListener<String> listener = invocation.getArgument(3);
+            listener.committed(0, 0, 2, List.of("a", "b"));
+            listener.committed(1, 2, 1, List.of("c"));
+            return null;
+        }).when(bulkChunkProcessor).process(any(), eq(String.class), eq(ECHO), any());
+        List<BulkJob.State> events = new CopyOnWriteArrayList<>();
+
+        // Act
+        BulkJob job = jobService.submit("subjects", payload("[\"a\",\"b\",\"c\"]"),
+                String.class, ECHO);
+        jobService.subscribe(job.getId(), update -> events.add(update.getState()));
+        awaitFinished(job);
+
+        // Assert
+        assertEquals(BulkJob.State.COMPLETED, job.getState());
+        assertEquals(3, job.getProcessed());
+        assertEquals(3, job.getCreated());
+        assertEquals(2, job.getChunks());
+        assertNull(job.getError());
+        assertSame(job, jobService.getJob(job.getId()));
+        assertEquals(BulkJob.State.COMPLETED, events.get(events.size() - 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ChunkFails_ShouldRecordErrorWithOffset() throws Exception {
+        // Arrange
+        jobService = new BulkJobServiceImpl(bulkChunkProcessor, 1, 1);
+        doAnswer(invocation -> {
+            BulkChunkProcessor.ChunkListener<String> listener = invocation.getArgument(3);
+            listener.committed(0, 0, 500, List.of());
+            listener.failed(1, 500, new IllegalStateException("Student not found"));
+            return null;
+        }).when(bulkChunkProcessor).process(any(), any(), any(), any());
+
+        // Act
+        BulkJob job = jobService.submit("marks", payload("[]"), String.class, ECHO);
+        awaitFinished(job);
+
+        // Assert
+        assertEquals(BulkJob.State.FAILED, job.getState());
+        assertEquals(500, job.getProcessed());
+        assertEquals("Chunk 1 at offset 500: Student not found", job.getError());
+    }
+
+    @Test
+    void submit_QueueFull_ShouldReject() throws Exception {
+        // Arrange
+        jobService = new BulkJobServiceImpl(bulkChunkProcessor, 1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(bulkChunkProcessor).process(any(), any(), any(), any());
+
+        // Act
+        BulkJob first = jobService.submit("marks", payload("[]"), String.class, ECHO);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        BulkJob queued = jobService.submit("marks", payload("[]"), String.class, ECHO);
+
+        // Assert
+        assertEquals(BulkJob.State.QUEUED, queued.getState());
+        assertThrows(JobRejectedException.class,
+                () -> jobService.submit("marks", payload("[]"), String.class, ECHO));
+        release.countDown();
+        awaitFinished(first);
+        awaitFinished(queued);
+        assertEquals(2, jobService.getJobs().size());
+    }
+
+    @Test
+    void getJob_Unknown_ShouldThrow() {
+        jobService = new BulkJobServiceImpl(bulkChunkProcessor, 1, 1);
+
+        assertThrows(EntityNotFoundException.class, () -> jobService.getJob("missing"));
+    }
+}
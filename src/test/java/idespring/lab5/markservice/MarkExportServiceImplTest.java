@@ -0,0 +1,58 @@
+package idespring.lab5.markservice;
+
+import idespring.lab5.dto.MarkExportRow;
+import idespring.lab5.repository.markrepo.MarkRepository;
+import idespring.lab5.service.markservice.MarkExportServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkExportServiceImplTest {
+
+    @Mock
+    private MarkRepository markRepository;
+
+    @InjectMocks
+    private MarkExportServiceImpl exportService;
+
+    @Test
+    void exportMarks_ShouldHandEveryRowToConsumerAndCloseStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<MarkExportRow> rows = List.of(
+                new MarkExportRow(1L, 8, 10L, 20L),
+                new MarkExportRow(2L, 5, 10L, 21L));
+        when(markRepository.streamForExport(10L, null))
+                .thenReturn(rows.stream().onClose(() -> closed.set(true)));
+
+        List<MarkExportRow> written = new ArrayList<>();
+        long count = exportService.exportMarks(10L, null, written::add);
+
+        assertEquals(2, count);
+        assertEquals(rows, written);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportMarks_ConsumerFails_ShouldStillCloseStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(markRepository.streamForExport(null, null)).thenReturn(
+                Stream.of(new MarkExportRow(1L, 8, 10L, 20L)).onClose(() -> closed.set(true)));
+
+        assertThrows(IllegalStateException.class, () -> exportService.exportMarks(null, null,
+                row -> {
+                    throw new IllegalStateException("client disconnected");
+                }));
+        assertTrue(closed.get());
+    }
+}
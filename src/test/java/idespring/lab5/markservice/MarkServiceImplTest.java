@@ -1,15 +1,22 @@
 package idespring.lab5.markservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.BatchAverages;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.exceptions.SubjectNotAssignedException;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
 import idespring.lab5.repository.markrepo.MarkRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
 import idespring.lab5.service.markservice.MarkServiceImpl;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import idespring.lab5.service.studentsubjserv.StudentSubjectService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +28,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +39,9 @@ public class MarkServiceImplTest {
     @Mock
     private MarkRepository markRepository;
 
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
     @Mock
     private StudentRepository studentRepository;
 
@@ -40,6 +51,15 @@ public class MarkServiceImplTest {
     @Mock
     private StudentSubjectService studentSubjectService;
 
+    @Mock
+    private MarkStatisticsService markStatisticsService;
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
     @Mock
     private CacheConfig<String, Object> cache;
 
@@ -294,26 +314,28 @@ public class MarkServiceImplTest {
     @Test
     void testAddMark() {
         // Arrange
-        when(studentRepository.findById(student.getId())).thenReturn(Optional.of(student));
-        when(subjectRepository.findById(subject.getId())).thenReturn(Optional.of(subject));
-        when(studentSubjectService.getSubjectsByStudent(student.getId()))
-                .thenReturn(List.of(subject));
-        when(markRepository.save(mark)).thenReturn(mark);
+        when(markJdbcRepository.insertMarkIfEnrolled(5, student.getId(), subject.getId()))
+                .thenReturn(Optional.of(7L));
 
         // Act
         Mark savedMark = markService.addMark(mark);
 
         // Assert
         assertEquals(mark, savedMark);
+        assertEquals(7L, savedMark.getId());
+        verify(cache).remove("marks-" + student.getId() + "-" + subject.getId());
+        verify(cache).remove("avg-subject-" + subject.getId());
+        verify(markRepository, never()).findBySubjectId(anyLong());
+        verify(markRepository, never()).findByStudentId(anyLong());
     }
 
     @Test
     void testAddMark_SubjectNotAssigned() {
         // Arrange
-        when(studentRepository.findById(student.getId())).thenReturn(Optional.of(student));
-        when(subjectRepository.findById(subject.getId())).thenReturn(Optional.of(subject));
-        when(studentSubjectService.getSubjectsByStudent(student.getId()))
-                .thenReturn(List.of());
+        when(markJdbcRepository.insertMarkIfEnrolled(5, student.getId(), subject.getId()))
+                .thenReturn(Optional.empty());
+        when(studentRepository.existsById(student.getId())).thenReturn(true);
+        when(subjectRepository.existsById(subject.getId())).thenReturn(true);
 
         // Act & Assert
         assertThrows(SubjectNotAssignedException.class,
@@ -563,15 +585,19 @@ public class MarkServiceImplTest {
 
     @Test
     void testAddMark_StudentNotFound() {
-        when(studentRepository.findById(student.getId())).thenReturn(Optional.empty());
+        when(markJdbcRepository.insertMarkIfEnrolled(5, student.getId(), subject.getId()))
+                .thenReturn(Optional.empty());
+        when(studentRepository.existsById(student.getId())).thenReturn(false);
 
         assertThrows(EntityNotFoundException.class, () -> markService.addMark(mark));
     }
 
     @Test
     void testAddMark_SubjectNotFound() {
-        when(studentRepository.findById(student.getId())).thenReturn(Optional.of(student));
-        when(subjectRepository.findById(subject.getId())).thenReturn(Optional.empty());
+        when(markJdbcRepository.insertMarkIfEnrolled(5, student.getId(), subject.getId()))
+                .thenReturn(Optional.empty());
+        when(studentRepository.existsById(student.getId())).thenReturn(true);
+        when(subjectRepository.existsById(subject.getId())).thenReturn(false);
 
         assertThrows(EntityNotFoundException.class, () -> markService.addMark(mark));
     }
@@ -649,4 +675,189 @@ public class MarkServiceImplTest {
         assertEquals(1, result.size());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void testGetAverageMarkByStudentId_StatisticsReady() {
+        when(markStatisticsService.isReady()).thenReturn(true);
+        when(markStatisticsService.getStudentAverage(1L)).thenReturn(7.5);
+
+        Double avg = markService.getAverageMarkByStudentId(1L);
+
+        assertEquals(7.5, avg);
+        verify(markRepository, never()).getAverageMarkByStudentId(anyLong());
+        verify(cache, never()).get(anyString());
+    }
+
+    @Test
+    void testGetAverageMarkBySubjectId_StatisticsReady() {
+        when(markStatisticsService.isReady()).thenReturn(true);
+        when(markStatisticsService.getSubjectAverage(2L)).thenReturn(6.0);
+
+        Double avg = markService.getAverageMarkBySubjectId(2L);
+
+        assertEquals(6.0, avg);
+        verify(markRepository, never()).getAverageMarkBySubjectId(anyLong());
+    }
+
+    @Test
+    void testAddMark_RecordsStatistics() {
+        when(markJdbcRepository.insertMarkIfEnrolled(5, student.getId(), subject.getId()))
+                .thenReturn(Optional.of(7L));
+
+        markService.addMark(mark);
+
+        verify(markStatisticsService).recordMarkAdded(student.getId(), subject.getId(), 5);
+        verify(columnarMarkStore).recordMarkAdded(student.getId(), subject.getId(), 5);
+    }
+
+    @Test
+    void testDeleteMark_RecordsStatistics() {
+        when(markRepository.findById(mark.getId())).thenReturn(Optional.of(mark));
+
+        markService.deleteMark(mark.getId());
+
+        verify(markStatisticsService).recordMarkRemoved(student.getId(), subject.getId(), 5);
+        verify(columnarMarkStore).recordMarksRemoved(student.getId(), subject.getId(), 5, 1);
+    }
+
+    @Test
+    void testGetAverageMarksByStudentIds_MergesCacheWithSingleQuery() {
+        when(cache.get("avg-student-1")).thenReturn(4.0);
+        when(cache.get("avg-student-2")).thenReturn(null);
+        when(cache.get("avg-student-3")).thenReturn(null);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {2L, 7.5});
+        when(markRepository.getAverageMarksByStudentIds(Set.of(2L, 3L))).thenReturn(rows);
+
+        BatchAverages result = markService.getAverageMarksByStudentIds(List.of(1L, 2L, 3L));
+
+        assertArrayEquals(new long[] {1L, 2L, 3L}, result.ids());
+        assertArrayEquals(new Double[] {4.0, 7.5, null}, result.averages());
+        verify(markRepository, times(1)).getAverageMarksByStudentIds(any());
+        verify(cache).put("avg-student-2", 7.5);
+    }
+
+    @Test
+    void testGetAverageMarksBySubjectIds_AllCached_ShouldNotQuery() {
+        when(cache.get("avg-subject-2")).thenReturn(6.0);
+
+        BatchAverages result = markService.getAverageMarksBySubjectIds(List.of(2L));
+
+        assertArrayEquals(new Double[] {6.0}, result.averages());
+        verify(markRepository, never()).getAverageMarksBySubjectIds(any());
+    }
+
+    @Test
+    void testGetAverageMarksByStudentIds_StatisticsReady() {
+        when(markStatisticsService.isReady()).thenReturn(true);
+        when(markStatisticsService.getStudentAverage(1L)).thenReturn(9.0);
+        when(markStatisticsService.getStudentAverage(5L)).thenReturn(null);
+
+        BatchAverages result = markService.getAverageMarksByStudentIds(List.of(1L, 5L));
+
+        assertArrayEquals(new Double[] {9.0, null}, result.averages());
+        verifyNoInteractions(markRepository);
+    }
+
+    @Test
+    void testReadMarksPage_MoreRows_ShouldReturnCursorToLastItem() {
+        Mark next = new Mark();
+        next.setId(4L);
+        Mark lookAhead = new Mark();
+        lookAhead.setId(5L);
+        when(markRepository.findPage(1L, null, null, 2)).thenReturn(List.of(mark, next, lookAhead));
+
+        KeysetPage<Mark> page = markService.readMarksPage(1L, null, null, 2);
+
+        assertEquals(List.of(mark, next), page.items());
+        assertEquals(new PageCursor(null, 4L), PageCursor.decode(page.nextCursor()));
+        verify(cache).put("marks-page-1-null-null-2", page);
+    }
+
+    @Test
+    void testReadMarksPage_WithCursor_ShouldSeekPastIt() {
+        String cursor = new PageCursor(null, 4L).encode();
+        when(markRepository.findPage(null, 2L, new PageCursor(null, 4L), 10))
+                .thenReturn(List.of(mark));
+
+        KeysetPage<Mark> page = markService.readMarksPage(null, 2L, cursor, 10);
+
+        assertEquals(List.of(mark), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testReadMarksPage_CachedPage_ShouldSkipRepository() {
+        KeysetPage<Mark> cached = new KeysetPage<>(List.of(mark), null);
+        when(cache.get("marks-page-null-null-null-10")).thenReturn(cached);
+
+        assertSame(cached, markService.readMarksPage(null, null, null, 10));
+        verify(markRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testAddMarks_ShouldInsertBatchAndInvalidateOnce() {
+        // Arrange
+        Mark second = new Mark();
+        second.setStudent(student);
+        second.setSubject(subject);
+        second.setValue(7);
+        List<Mark> batch = List.of(mark, second);
+        when(studentRepository.findExistingIds(Set.of(1L))).thenReturn(List.of(1L));
+        when(subjectRepository.findExistingIds(Set.of(2L))).thenReturn(List.of(2L));
+        List<Object[]> enrollments = new ArrayList<>();
+        enrollments.add(new Object[] {1L, 2L});
+        when(studentRepository.findEnrollments(Set.of(1L), Set.of(2L))).thenReturn(enrollments);
+
+        // Act
+        List<Mark> result = markService.addMarks(batch);
+
+        // Assert
+        assertEquals(batch, result);
+        verify(markJdbcRepository).insertMarks(batch);
+        verify(markStatisticsService).recordMarkAdded(1L, 2L, 5);
+        verify(markStatisticsService).recordMarkAdded(1L, 2L, 7);
+        verify(cache, times(1)).remove("marks-1-2");
+        verify(cache, times(1)).remove("avg-student-1");
+        verify(markRepository, never()).save(any());
+    }
+
+    @Test
+    void testAddMarks_MissingStudent_ShouldRejectWholeBatch() {
+        // Arrange
+        when(studentRepository.findExistingIds(Set.of(1L))).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> markService.addMarks(List.of(mark)));
+        verify(markJdbcRepository, never()).insertMarks(any());
+    }
+
+    @Test
+    void testAddMarks_NotEnrolled_ShouldRejectWholeBatch() {
+        // Arrange
+        when(studentRepository.findExistingIds(Set.of(1L))).thenReturn(List.of(1L));
+        when(subjectRepository.findExistingIds(Set.of(2L))).thenReturn(List.of(2L));
+        when(studentRepository.findEnrollments(Set.of(1L), Set.of(2L))).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(SubjectNotAssignedException.class,
+                () -> markService.addMarks(List.of(mark)));
+        verify(markJdbcRepository, never()).insertMarks(any());
+        verifyNoInteractions(markStatisticsService);
+    }
+
+    @Test
+    void testInsertEnrolledMarks_DropsMarksWithoutEnrollment() {
+        Mark other = new Mark(8);
+        other.setStudentId(9L);
+        other.setSubjectId(subject.getId());
+        when(markJdbcRepository.findEnrolledPositions(List.of(mark, other))).thenReturn(List.of(0));
+
+        List<Mark> inserted = markService.insertEnrolledMarks(List.of(mark, other));
+
+        assertEquals(List.of(mark), inserted);
+        verify(markJdbcRepository).insertMarks(List.of(mark));
+        verify(markStatisticsService).recordMarkAdded(student.getId(), subject.getId(), 5);
+        verify(markStatisticsService, never()).recordMarkAdded(eq(9L), anyLong(), anyInt());
+    }
+}
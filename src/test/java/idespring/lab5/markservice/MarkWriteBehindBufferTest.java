@@ -0,0 +1,182 @@
+package idespring.lab5.markservice;
+
+import idespring.lab5.exceptions.BufferFullException;
+import idespring.lab5.model.Mark;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.service.markservice.MarkJournal;
+import idespring.lab5.service.markservice.MarkService;
+import idespring.lab5.service.markservice.MarkWriteBehindBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarkWriteBehindBufferTest {
+
+    @Mock
+    private MarkService markService;
+
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    private MarkWriteBehindBuffer buffer;
+
+    private final List<Mark> written = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    private MarkWriteBehindBuffer newBuffer(int capacity) throws IOException {
+        return new MarkWriteBehindBuffer(markService, markJdbcRepository, transactionManager,
+                journalDir.toString(), capacity, 100, 5, 50);
+    }
+
+    private void recordWrites() {
+        when(markService.insertEnrolledMarks(any())).thenAnswer(invocation -> {
+            List<Mark> marks = invocation.getArgument(0);
+            written.addAll(marks);
+            return marks;
+        });
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (written.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, written.size());
+    }
+
+    private static Mark mark(int value, long studentId, long subjectId) {
+        Mark mark = new Mark(value);
+        mark.setStudentId(studentId);
+        mark.setSubjectId(subjectId);
+        return mark;
+    }
+
+    @Test
+    void submit_ShouldJournalAndWriteInBackground() throws Exception {
+        recordWrites();
+        buffer = newBuffer(10);
+
+        buffer.submit(mark(7, 1L, 2L));
+        buffer.submit(mark(9, 1L, 3L));
+        awaitWritten(2);
+
+        verify(markService, times(2)).checkEnrollment(any());
+        assertEquals(7, written.get(0).getValue());
+        assertEquals(3L, written.get(1).getSubject().getId());
+
+        verify(markJdbcRepository, timeout(5_000).atLeastOnce())
+                .saveJournalCheckpoint(eq(journalDir.toString()), anyLong());
+        buffer.shutdown();
+        buffer = null;
+        try (MarkJournal journal = new MarkJournal(journalDir, 0)) {
+            assertTrue(journal.recovered().isEmpty());
+        }
+    }
+
+    @Test
+    void startup_ShouldReplayUncheckpointedEntries() throws Exception {
+        try (MarkJournal journal = new MarkJournal(journalDir, 0)) {
+            journal.write(4, 1L, 2L);
+            MarkJournal.Entry last = journal.write(6, 5L, 2L);
+            journal.sync(last.sequence());
+        }
+        recordWrites();
+
+        buffer = newBuffer(10);
+        awaitWritten(2);
+
+        assertEquals(5L, written.get(1).getStudent().getId());
+        verify(markService, never()).checkEnrollment(any());
+    }
+
+    @Test
+    void startup_ShouldSkipEntriesCheckpointedInDatabase() throws Exception {
+        try (MarkJournal journal = new MarkJournal(journalDir, 0)) {
+            journal.write(4, 1L, 2L);
+            MarkJournal.Entry last = journal.write(6, 5L, 2L);
+            journal.sync(last.sequence());
+        }
+        when(markJdbcRepository.findJournalCheckpoint(journalDir.toString())).thenReturn(1L);
+        recordWrites();
+
+        buffer = newBuffer(10);
+        awaitWritten(1);
+
+        assertEquals(6, written.get(0).getValue());
+        verify(markJdbcRepository, timeout(5_000))
+                .saveJournalCheckpoint(journalDir.toString(), 2L);
+    }
+
+    @Test
+    void journal_ShouldNumberAfterCheckpointWhenEmpty() throws Exception {
+        try (MarkJournal journal = new MarkJournal(journalDir, 7)) {
+            assertTrue(journal.recovered().isEmpty());
+            assertEquals(8, journal.write(5, 1L, 2L).sequence());
+        }
+    }
+
+    @Test
+    void journal_TornTail_ShouldBeIgnored() throws Exception {
+        try (MarkJournal journal = new MarkJournal(journalDir, 0)) {
+            MarkJournal.Entry entry = journal.write(4, 1L, 2L);
+            journal.sync(entry.sequence());
+        }
+        Files.write(journalDir.resolve("marks.journal"), new byte[] {1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        try (MarkJournal journal = new MarkJournal(journalDir, 0)) {
+            assertEquals(List.of(new MarkJournal.Entry(1, 4, 1L, 2L)), journal.recovered());
+            assertEquals(2, journal.write(5, 1L, 2L).sequence());
+        }
+    }
+
+    @Test
+    void submit_BufferFull_ShouldReject() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(markService.insertEnrolledMarks(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        buffer = newBuffer(1);
+
+        buffer.submit(mark(7, 1L, 2L));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        assertThrows(BufferFullException.class, () -> buffer.submit(mark(8, 1L, 2L)));
+        release.countDown();
+    }
+}
@@ -0,0 +1,229 @@
+package idespring.lab5.searchservice;
+
+import idespring.lab5.dto.Completion;
+import idespring.lab5.repository.searchrepo.NameJdbcRepository;
+import idespring.lab5.service.searchservice.NameIndexImpl;
+import idespring.lab5.service.searchservice.NameKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NameIndexImplTest {
+
+    @Mock
+    private NameJdbcRepository nameJdbcRepository;
+
+    private NameIndexImpl nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        nameIndex = new NameIndexImpl(nameJdbcRepository, true, 3, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void rows(NameKind kind, Map<Long, String> names) {
+        rows(kind, names, Map.of());
+    }
+
+    private void rows(NameKind kind, Map<Long, String> names, Map<Long, Long> popularity) {
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) != kind) {
+                return null;
+            }
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, String> entry : names.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(entry.getKey());
+                when(rs.getString(2)).thenReturn(entry.getValue());
+                when(rs.getLong(3)).thenReturn(popularity.getOrDefault(entry.getKey(), 0L));
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(nameJdbcRepository).forEachName(any(), any());
+    }
+
+    private void loadSubjects() {
+        rows(NameKind.SUBJECT, Map.of(1L, "Mathematics", 2L, "Applied Mathematics",
+                3L, "Physics", 4L, "Matlab"));
+        nameIndex.reload();
+    }
+
+    @Test
+    void search_ShouldMatchSubstringsCaseSensitively() {
+        loadSubjects();
+
+        assertEquals(List.of(1L, 2L), nameIndex.search(NameKind.SUBJECT, "thema"));
+        assertEquals(List.of(1L, 2L, 4L), nameIndex.search(NameKind.SUBJECT, "Mat"));
+        assertEquals(List.of(2L), nameIndex.search(NameKind.SUBJECT, "d M"));
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "mathematics"));
+        assertEquals(List.of(), nameIndex.search(NameKind.GROUP, "Mat"));
+    }
+
+    @Test
+    void search_TrigramsPresentButNotAdjacent_ShouldNotMatch() {
+        loadSubjects();
+
+        // "Mat" and "ics" both occur in Mathematics, but not as one substring.
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "Matics"));
+    }
+
+    @Test
+    void search_ShortPattern_ShouldCheckEveryName() {
+        loadSubjects();
+
+        assertEquals(List.of(3L), nameIndex.search(NameKind.SUBJECT, "y"));
+        assertEquals(List.of(1L, 2L, 4L), nameIndex.search(NameKind.SUBJECT, "at"));
+    }
+
+    @Test
+    void recordSaved_Rename_ShouldReplaceOldTrigrams() {
+        loadSubjects();
+
+        nameIndex.recordSaved(NameKind.SUBJECT, 3L, "Astrophysics");
+        nameIndex.recordRemoved(NameKind.SUBJECT, List.of(4L));
+
+        assertEquals(List.of(3L), nameIndex.search(NameKind.SUBJECT, "Astro"));
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "Phys"));
+        assertEquals(List.of(1L, 2L), nameIndex.search(NameKind.SUBJECT, "Mat"));
+        assertEquals(3, nameIndex.size(NameKind.SUBJECT));
+    }
+
+    @Test
+    void recordSaved_InsideTransaction_ShouldApplyOnlyAfterCommit() {
+        loadSubjects();
+        TransactionSynchronizationManager.initSynchronization();
+
+        nameIndex.recordSaved(NameKind.SUBJECT, 5L, "Chemistry");
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "Chem"));
+
+        List<TransactionSynchronization> synchronizations =
+                TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(5L), nameIndex.search(NameKind.SUBJECT, "Chem"));
+    }
+
+    @Test
+    void canSearch_ShouldRequireLoadedIndexAndNoLikeWildcards() {
+        assertFalse(nameIndex.canSearch("Math"));
+
+        loadSubjects();
+
+        assertTrue(nameIndex.canSearch("Math"));
+        assertFalse(nameIndex.canSearch("Ma%h"));
+        assertFalse(nameIndex.canSearch("Ma_h"));
+    }
+
+    private void loadStudents() {
+        rows(NameKind.STUDENT, Map.of(1L, "Anna Petrova", 2L, "Andrei Ivanov",
+                3L, "anton Sidorov", 4L, "Boris Kim", 5L, "Anastasia Orlova"),
+                Map.of(1L, 12L, 2L, 30L, 3L, 7L, 4L, 50L, 5L, 30L));
+        nameIndex.reload();
+    }
+
+    private static List<Long> ids(List<Completion> completions) {
+        return completions.stream().map(Completion::id).toList();
+    }
+
+    @Test
+    void complete_ShouldRankByPopularityThenNameIgnoringCase() {
+        loadStudents();
+
+        // Four names start with "an"; only the top three are kept per prefix.
+        assertEquals(List.of(5L, 2L, 1L), ids(nameIndex.complete(NameKind.STUDENT, "an", 10)));
+        assertEquals(List.of(2L), ids(nameIndex.complete(NameKind.STUDENT, "ANDR", 10)));
+        assertEquals(List.of(3L), ids(nameIndex.complete(NameKind.STUDENT, "ANTON", 10)));
+        assertEquals(List.of(new Completion(4L, "Boris Kim", 50L)),
+                nameIndex.complete(NameKind.STUDENT, "", 1));
+        assertEquals(List.of(), nameIndex.complete(NameKind.STUDENT, "x", 10));
+    }
+
+    @Test
+    void complete_AfterRenameAndRemove_ShouldUpdateWithoutReload() {
+        loadStudents();
+        List<Completion> before = nameIndex.complete(NameKind.STUDENT, "an", 10);
+
+        nameIndex.recordSaved(NameKind.STUDENT, 4L, "Anfisa Kim");
+        nameIndex.recordRemoved(NameKind.STUDENT, List.of(5L));
+        nameIndex.recordSaved(NameKind.STUDENT, 6L, "Boris Lee");
+
+        assertEquals(List.of(4L, 2L, 1L), ids(nameIndex.complete(NameKind.STUDENT, "an", 10)));
+        assertEquals(List.of(new Completion(6L, "Boris Lee", 0L)),
+                nameIndex.complete(NameKind.STUDENT, "bo", 10));
+        assertEquals(List.of(5L, 2L, 1L), ids(before));
+        verify(nameJdbcRepository, times(NameKind.values().length)).forEachName(any(), any());
+    }
+
+    @Test
+    void reload_ChangesWhileLoading_ShouldNotBlockAndShouldBeReplayed() throws Exception {
+        loadSubjects();
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        List<Long> seenDuringLoad = new ArrayList<>();
+        try {
+            doAnswer(invocation -> {
+                if (invocation.getArgument(0) != NameKind.SUBJECT) {
+                    return null;
+                }
+                // The rows were read before the concurrent changes committed.
+                RowCallbackHandler handler = invocation.getArgument(1);
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(3L);
+                when(rs.getString(2)).thenReturn("Physics");
+                handler.processRow(rs);
+                other.submit(() -> {
+                    seenDuringLoad.addAll(nameIndex.search(NameKind.SUBJECT, "Mat"));
+                    nameIndex.recordRemoved(NameKind.SUBJECT, List.of(3L));
+                    nameIndex.recordSaved(NameKind.SUBJECT, 7L, "Chemistry");
+                }).get(5, TimeUnit.SECONDS);
+                return null;
+            }).when(nameJdbcRepository).forEachName(any(), any());
+
+            nameIndex.reload();
+        } finally {
+            other.shutdownNow();
+        }
+
+        assertEquals(List.of(1L, 2L, 4L), seenDuringLoad);
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "Phys"));
+        assertEquals(List.of(7L), nameIndex.search(NameKind.SUBJECT, "Chem"));
+        assertEquals(List.of(), nameIndex.search(NameKind.SUBJECT, "Mat"));
+        assertEquals(List.of(7L), ids(nameIndex.complete(NameKind.SUBJECT, "ch", 10)));
+    }
+
+    @Test
+    void reload_Failure_ShouldKeepCurrentIndex() {
+        loadSubjects();
+        doThrow(new IllegalStateException("connection lost"))
+                .when(nameJdbcRepository).forEachName(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> nameIndex.reload());
+
+        assertEquals(List.of(1L, 2L, 4L), nameIndex.search(NameKind.SUBJECT, "Mat"));
+        nameIndex.recordSaved(NameKind.SUBJECT, 5L, "Chemistry");
+        assertEquals(List.of(5L), nameIndex.search(NameKind.SUBJECT, "Chem"));
+    }
+}
@@ -0,0 +1,265 @@
+package idespring.lab5.statservice;
+
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.service.statservice.ColumnarMarkStoreImpl;
+import idespring.lab5.service.statservice.StatisticsScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ColumnarMarkStoreImplTest {
+
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    private ColumnarMarkStoreImpl store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarMarkStoreImpl(markJdbcRepository, studentRepository, true);
+    }
+
+    private static long[] row(long studentId, long subjectId, int value, long groupId) {
+        return new long[] {studentId, subjectId, value, groupId};
+    }
+
+    private void seed(long[]... rows) {
+        List<Object[]> groups = new ArrayList<>();
+        for (long[] row : rows) {
+            if (row[3] != 0) {
+                groups.add(new Object[] {row[0], row[3]});
+            }
+        }
+        when(studentRepository.findGroupAssignments()).thenReturn(groups);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(0);
+            for (long[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(row[0]);
+                when(rs.getLong(2)).thenReturn(row[1]);
+                when(rs.getInt(3)).thenReturn((int) row[2]);
+                when(rs.getLong(4)).thenReturn(row[3]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(markJdbcRepository).forEachMark(any());
+        store.reload();
+    }
+
+    private static MarkFilter subjects(Set<Long> subjectIds) {
+        return new MarkFilter(null, subjectIds, null, null, null);
+    }
+
+    @Test
+    void aggregate_BeforeReload_ShouldThrow() {
+        assertFalse(store.isReady());
+        assertThrows(IllegalStateException.class, () -> store.aggregate(MarkFilter.all()));
+    }
+
+    @Test
+    void reload_Disabled_ShouldNotQuery() {
+        ColumnarMarkStoreImpl disabled =
+                new ColumnarMarkStoreImpl(markJdbcRepository, studentRepository, false);
+
+        disabled.reload();
+        disabled.recordMarkAdded(1L, 1L, 5);
+
+        assertFalse(disabled.isReady());
+        verifyNoInteractions(markJdbcRepository, studentRepository);
+    }
+
+    @Test
+    void aggregate_All_ShouldComputeMetrics() {
+        seed(row(1, 10, 8, 100), row(1, 20, 5, 100), row(2, 10, 4, 0), row(3, 20, 10, 200));
+
+        MarkAggregate result = store.aggregate(MarkFilter.all());
+
+        assertEquals(4, store.size());
+        assertEquals(4, result.count());
+        assertEquals(27, result.sum());
+        assertEquals(6.75, result.average());
+        assertEquals(4, result.min());
+        assertEquals(10, result.max());
+        assertEquals(1, result.histogram()[7]);
+    }
+
+    @Test
+    void aggregate_FilteredBySubjectAndValue_ShouldSkipOtherRows() {
+        seed(row(1, 10, 8, 100), row(1, 20, 5, 100), row(2, 10, 4, 0), row(3, 10, 10, 200));
+
+        MarkAggregate result = store.aggregate(new MarkFilter(null, Set.of(10L), null, 5, 9));
+
+        assertEquals(1, result.count());
+        assertEquals(8.0, result.average());
+    }
+
+    @Test
+    void aggregate_NoMatches_ShouldReturnEmptyAggregate() {
+        seed(row(1, 10, 8, 100));
+
+        MarkAggregate result = store.aggregate(subjects(Set.of(99L)));
+
+        assertEquals(0, result.count());
+        assertNull(result.average());
+        assertNull(result.min());
+    }
+
+    @Test
+    void aggregate_GroupedByGroup_ShouldKeepUngroupedStudentsUnderNullKey() {
+        seed(row(1, 10, 8, 100), row(1, 20, 6, 100), row(2, 10, 4, 0), row(3, 10, 10, 200));
+
+        Map<AggregateKey, MarkAggregate> result =
+                store.aggregate(MarkFilter.all(), EnumSet.of(StatisticsScope.GROUP));
+
+        assertEquals(3, result.size());
+        assertEquals(7.0, result.get(new AggregateKey(null, null, 100L)).average());
+        assertEquals(10.0, result.get(new AggregateKey(null, null, 200L)).average());
+        assertEquals(4.0, result.get(new AggregateKey(null, null, null)).average());
+    }
+
+    @Test
+    void aggregate_GroupedByStudentAndSubjectWithGroupFilter_ShouldUseBothDimensions() {
+        seed(row(1, 10, 8, 100), row(1, 10, 6, 100), row(1, 20, 3, 100), row(3, 10, 10, 200));
+
+        Map<AggregateKey, MarkAggregate> result = store.aggregate(
+                new MarkFilter(null, null, Set.of(100L), null, null),
+                EnumSet.of(StatisticsScope.STUDENT, StatisticsScope.SUBJECT));
+
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(new AggregateKey(1L, 10L, null)).count());
+        assertEquals(3.0, result.get(new AggregateKey(1L, 20L, null)).average());
+    }
+
+    @Test
+    void recordMarkAddedAndRemoved_ShouldUpdateColumns() {
+        seed(row(1, 10, 8, 100));
+
+        store.recordMarkAdded(1L, 10L, 4);
+        store.recordMarkAdded(2L, 10L, 4);
+        store.recordMarksRemoved(1L, 10L, 8, 1);
+
+        MarkAggregate result = store.aggregate(MarkFilter.all());
+        assertEquals(2, result.count());
+        assertEquals(4.0, result.average());
+        assertEquals(1, store.aggregate(new MarkFilter(null, null, Set.of(100L), null, null))
+                .count());
+        verify(markJdbcRepository, times(1)).forEachMark(any());
+    }
+
+    @Test
+    void recordStudentGroupChanged_ShouldMoveExistingRows() {
+        seed(row(1, 10, 8, 100), row(1, 20, 6, 100), row(2, 10, 4, 100));
+
+        store.recordStudentGroupChanged(1L, 200L);
+        store.recordMarkAdded(1L, 10L, 10);
+
+        Map<AggregateKey, MarkAggregate> result =
+                store.aggregate(MarkFilter.all(), EnumSet.of(StatisticsScope.GROUP));
+        assertEquals(1, result.get(new AggregateKey(null, null, 100L)).count());
+        assertEquals(3, result.get(new AggregateKey(null, null, 200L)).count());
+    }
+
+    @Test
+    void recordDeltas_InterleavedAcrossStudents_ShouldMatchNaiveCount() {
+        seed();
+        Random random = new Random(31);
+        List<long[]> marks = new ArrayList<>();
+        long[] groupOf = new long[50];
+        for (int i = 0; i < 20_000; i++) {
+            long studentId = random.nextInt(50);
+            int op = random.nextInt(10);
+            if (op < 6 || marks.isEmpty()) {
+                long subjectId = random.nextInt(4);
+                int value = 1 + random.nextInt(10);
+                store.recordMarkAdded(studentId, subjectId, value);
+                marks.add(new long[] {studentId, subjectId, value});
+            } else if (op < 9) {
+                long[] mark = marks.get(random.nextInt(marks.size()));
+                int removed = 0;
+                for (int j = marks.size() - 1; j >= 0; j--) {
+                    long[] other = marks.get(j);
+                    if (other[0] == mark[0] && other[1] == mark[1] && other[2] == mark[2]) {
+                        marks.remove(j);
+                        removed++;
+                    }
+                }
+                store.recordMarksRemoved(mark[0], mark[1], (int) mark[2], removed);
+            } else {
+                long groupId = 1 + random.nextInt(3);
+                store.recordStudentGroupChanged(studentId, groupId);
+                groupOf[(int) studentId] = groupId;
+            }
+        }
+
+        Map<Long, Long> expectedByGroup = new HashMap<>();
+        Map<Long, Long> expectedByStudent = new HashMap<>();
+        for (long[] mark : marks) {
+            expectedByStudent.merge(mark[0], 1L, Long::sum);
+            long groupId = groupOf[(int) mark[0]];
+            if (groupId != 0) {
+                expectedByGroup.merge(groupId, 1L, Long::sum);
+            }
+        }
+
+        assertEquals(marks.size(), store.size());
+        Map<AggregateKey, MarkAggregate> byStudent =
+                store.aggregate(MarkFilter.all(), EnumSet.of(StatisticsScope.STUDENT));
+        assertEquals(expectedByStudent.size(), byStudent.size());
+        expectedByStudent.forEach((studentId, count) -> assertEquals((long) count,
+                byStudent.get(new AggregateKey(studentId, null, null)).count()));
+        Map<AggregateKey, MarkAggregate> byGroup =
+                store.aggregate(MarkFilter.all(), EnumSet.of(StatisticsScope.GROUP));
+        expectedByGroup.forEach((groupId, count) -> assertEquals((long) count,
+                byGroup.get(new AggregateKey(null, null, groupId)).count()));
+    }
+
+    @Test
+    void aggregate_AcrossManySlices_ShouldMatchNaiveCount() {
+        seed();
+        Random random = new Random(30);
+        long[] expectedBySubject = new long[5];
+        long expectedSum = 0;
+        for (int i = 0; i < 300_000; i++) {
+            long subjectId = random.nextInt(5);
+            int value = 1 + random.nextInt(10);
+            store.recordMarkAdded((long) random.nextInt(1000), subjectId, value);
+            expectedBySubject[(int) subjectId]++;
+            expectedSum += value;
+        }
+
+        MarkAggregate all = store.aggregate(MarkFilter.all());
+        Map<AggregateKey, MarkAggregate> bySubject =
+                store.aggregate(MarkFilter.all(), EnumSet.of(StatisticsScope.SUBJECT));
+
+        assertEquals(300_000, all.count());
+        assertEquals(expectedSum, all.sum());
+        for (int subjectId = 0; subjectId < 5; subjectId++) {
+            assertEquals(expectedBySubject[subjectId],
+                    bySubject.get(new AggregateKey(null, (long) subjectId, null)).count());
+        }
+    }
+}
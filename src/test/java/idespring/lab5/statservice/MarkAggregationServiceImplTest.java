@@ -0,0 +1,160 @@
+package idespring.lab5.statservice;
+
+import idespring.lab5.dto.AggregateKey;
+import idespring.lab5.dto.MarkAggregate;
+import idespring.lab5.dto.MarkFilter;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.service.statservice.AggregationPlan;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkAggregationServiceImpl;
+import idespring.lab5.service.statservice.StatisticsScope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkAggregationServiceImplTest {
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
+    @InjectMocks
+    private MarkAggregationServiceImpl aggregationService;
+
+    private static final Set<StatisticsScope> BY_SUBJECT = EnumSet.of(StatisticsScope.SUBJECT);
+
+    @Test
+    void plan_StoreNotReady_ShouldPushDownToSql() {
+        when(columnarMarkStore.isReady()).thenReturn(false);
+
+        assertEquals(AggregationPlan.SQL, aggregationService.plan(MarkFilter.all(), BY_SUBJECT));
+    }
+
+    @Test
+    void plan_StoreReady_ShouldScanInMemory() {
+        when(columnarMarkStore.isReady()).thenReturn(true);
+
+        assertEquals(AggregationPlan.COLUMNAR,
+                aggregationService.plan(MarkFilter.all(), BY_SUBJECT));
+    }
+
+    @Test
+    void plan_FewStudentsOnLargeStore_ShouldPushDownToSql() {
+        when(columnarMarkStore.isReady()).thenReturn(true);
+        when(columnarMarkStore.size()).thenReturn(5_000_000);
+        MarkFilter filter = new MarkFilter(Set.of(1L, 2L), null, null, null, null);
+
+        assertEquals(AggregationPlan.SQL, aggregationService.plan(filter, BY_SUBJECT));
+    }
+
+    @Test
+    void aggregate_Columnar_ShouldEmitRowsInKeyOrder() {
+        Map<AggregateKey, MarkAggregate> result = new HashMap<>();
+        result.put(new AggregateKey(null, 20L, null), MarkAggregate.of(histogram(5, 1)));
+        result.put(new AggregateKey(null, 10L, null), MarkAggregate.of(histogram(8, 2)));
+        when(columnarMarkStore.aggregate(MarkFilter.all(), BY_SUBJECT)).thenReturn(result);
+
+        List<AggregateKey> keys = new ArrayList<>();
+        aggregationService.aggregate(MarkFilter.all(), BY_SUBJECT, AggregationPlan.COLUMNAR,
+                (key, aggregate) -> keys.add(key));
+
+        assertEquals(List.of(new AggregateKey(null, 10L, null),
+                new AggregateKey(null, 20L, null)), keys);
+        verifyNoInteractions(markJdbcRepository);
+    }
+
+    @Test
+    void aggregate_ColumnarWithoutGroups_ShouldEmitSingleRow() {
+        when(columnarMarkStore.aggregate(MarkFilter.all()))
+                .thenReturn(MarkAggregate.of(histogram(7, 3)));
+
+        List<MarkAggregate> rows = new ArrayList<>();
+        aggregationService.aggregate(MarkFilter.all(), EnumSet.noneOf(StatisticsScope.class),
+                AggregationPlan.COLUMNAR, (key, aggregate) -> rows.add(aggregate));
+
+        assertEquals(1, rows.size());
+        assertEquals(3, rows.get(0).count());
+        assertEquals(7.0, rows.get(0).average());
+    }
+
+    @Test
+    void aggregate_Sql_ShouldMapResultColumns() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, Long.class)).thenReturn(10L);
+        when(rs.getLong(2)).thenReturn(4L);
+        when(rs.getLong(3)).thenReturn(26L);
+        when(rs.getObject(4, Integer.class)).thenReturn(5);
+        when(rs.getObject(5, Integer.class)).thenReturn(8);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            handler.processRow(rs);
+            return null;
+        }).when(markJdbcRepository).aggregate(eq(MarkFilter.all()), eq(BY_SUBJECT), any());
+
+        Map<AggregateKey, MarkAggregate> rows = new HashMap<>();
+        aggregationService.aggregate(MarkFilter.all(), BY_SUBJECT, AggregationPlan.SQL,
+                rows::put);
+
+        MarkAggregate aggregate = rows.get(new AggregateKey(null, 10L, null));
+        assertEquals(4, aggregate.count());
+        assertEquals(6.5, aggregate.average());
+        assertEquals(5, aggregate.min());
+        assertEquals(8, aggregate.max());
+        verify(columnarMarkStore, never()).aggregate(any());
+    }
+
+    @Test
+    void aggregate_StoreInvalidatedAfterPlan_ShouldFallBackToSql() throws Exception {
+        when(columnarMarkStore.isReady()).thenReturn(true);
+        AggregationPlan plan = aggregationService.plan(MarkFilter.all(), BY_SUBJECT);
+        assertEquals(AggregationPlan.COLUMNAR, plan);
+
+        // A delete between planning and streaming unloads the store.
+        when(columnarMarkStore.aggregate(MarkFilter.all(), BY_SUBJECT))
+                .thenThrow(new IllegalStateException("Columnar mark store is not loaded"));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, Long.class)).thenReturn(10L);
+        when(rs.getLong(2)).thenReturn(2L);
+        when(rs.getLong(3)).thenReturn(14L);
+        when(rs.getObject(4, Integer.class)).thenReturn(6);
+        when(rs.getObject(5, Integer.class)).thenReturn(8);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            handler.processRow(rs);
+            return null;
+        }).when(markJdbcRepository).aggregate(eq(MarkFilter.all()), eq(BY_SUBJECT), any());
+
+        Map<AggregateKey, MarkAggregate> rows = new HashMap<>();
+        aggregationService.aggregate(MarkFilter.all(), BY_SUBJECT, plan, rows::put);
+
+        assertEquals(1, rows.size());
+        MarkAggregate aggregate = rows.get(new AggregateKey(null, 10L, null));
+        assertEquals(2, aggregate.count());
+        assertEquals(7.0, aggregate.average());
+    }
+
+    private static long[] histogram(int value, long count) {
+        long[] histogram = new long[11];
+        histogram[value] = count;
+        return histogram;
+    }
+}
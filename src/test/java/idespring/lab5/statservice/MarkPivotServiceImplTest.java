@@ -0,0 +1,92 @@
+package idespring.lab5.statservice;
+
+import idespring.lab5.dto.PivotRow;
+import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.repository.grouprepo.GroupRepository;
+import idespring.lab5.repository.markrepo.MarkJdbcRepository;
+import idespring.lab5.service.statservice.MarkPivotServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkPivotServiceImplTest {
+
+    @Mock
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Mock
+    private GroupRepository groupRepository;
+
+    @InjectMocks
+    private MarkPivotServiceImpl pivotService;
+
+    private void cells(Long groupId, Object[]... cells) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] cell : cells) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn((Long) cell[0]);
+                when(rs.getLong(2)).thenReturn((Long) cell[1]);
+                when(rs.getObject(3, Double.class)).thenReturn((Double) cell[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(markJdbcRepository).forEachPivotCell(eq(groupId), any());
+    }
+
+    @Test
+    void getPivotSubjects_UnknownGroup_ShouldThrow() {
+        when(groupRepository.existsById(5L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> pivotService.getPivotSubjects(5L));
+        verifyNoInteractions(markJdbcRepository);
+    }
+
+    @Test
+    void getPivotSubjects_AllStudents_ShouldSkipGroupCheck() {
+        when(markJdbcRepository.findPivotSubjectIds(null)).thenReturn(List.of(10L, 20L));
+
+        assertEquals(List.of(10L, 20L), pivotService.getPivotSubjects(null));
+        verifyNoInteractions(groupRepository);
+    }
+
+    @Test
+    void forEachPivotRow_ShouldEmitOneRowPerStudentAlignedToSubjects() {
+        cells(3L,
+                new Object[] {1L, 10L, 7.5},
+                new Object[] {1L, 30L, null},
+                new Object[] {2L, 20L, 9.0});
+
+        List<PivotRow> rows = new ArrayList<>();
+        pivotService.forEachPivotRow(3L, List.of(10L, 20L, 30L), rows::add);
+
+        assertEquals(2, rows.size());
+        assertEquals(1L, rows.get(0).studentId());
+        assertArrayEquals(new Double[] {7.5, null, null}, rows.get(0).averages());
+        assertEquals(2L, rows.get(1).studentId());
+        assertArrayEquals(new Double[] {null, 9.0, null}, rows.get(1).averages());
+    }
+
+    @Test
+    void forEachPivotRow_NoEnrollments_ShouldEmitNothing() {
+        cells(null);
+
+        List<PivotRow> rows = new ArrayList<>();
+        pivotService.forEachPivotRow(null, List.of(), rows::add);
+
+        assertTrue(rows.isEmpty());
+    }
+}
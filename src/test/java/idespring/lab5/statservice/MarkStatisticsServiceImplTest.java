@@ -0,0 +1,299 @@
+package idespring.lab5.statservice;
+
+import idespring.lab5.dto.LeaderboardPage;
+import idespring.lab5.dto.MarkDistribution;
+import idespring.lab5.dto.RankedStudent;
+import idespring.lab5.repository.markrepo.MarkRepository;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.service.statservice.Leaderboard;
+import idespring.lab5.service.statservice.MarkStatisticsServiceImpl;
+import idespring.lab5.service.statservice.StatisticsScope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkStatisticsServiceImplTest {
+
+    @Mock
+    private MarkRepository markRepository;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @InjectMocks
+    private MarkStatisticsServiceImpl statisticsService;
+
+    private static Object[] row(long studentId, long subjectId, int value, long count) {
+        return new Object[] {studentId, subjectId, value, count};
+    }
+
+    private void seed(Object[]... rows) {
+        List<Object[]> result = new ArrayList<>(List.of(rows));
+        when(markRepository.countMarksByStudentSubjectAndValue()).thenReturn(result);
+        statisticsService.reload();
+    }
+
+    @Test
+    void isReady_BeforeSeed_ShouldBeFalse() {
+        assertFalse(statisticsService.isReady());
+    }
+
+    @Test
+    void reload_ShouldComputeAveragesFromGroupedRows() {
+        seed(row(1, 10, 8, 2), row(1, 20, 5, 1), row(2, 10, 4, 1));
+
+        assertTrue(statisticsService.isReady());
+        assertEquals(7.0, statisticsService.getStudentAverage(1L));
+        assertEquals(4.0, statisticsService.getStudentAverage(2L));
+        assertEquals(20.0 / 3, statisticsService.getSubjectAverage(10L), 1e-9);
+        assertEquals(5.0, statisticsService.getSubjectAverage(20L));
+        verify(markRepository, times(1)).countMarksByStudentSubjectAndValue();
+    }
+
+    @Test
+    void getAverage_UnknownId_ShouldReturnNull() {
+        seed();
+
+        assertNull(statisticsService.getStudentAverage(42L));
+        assertNull(statisticsService.getSubjectAverage(42L));
+    }
+
+    @Test
+    void recordMarkAdded_ShouldUpdateAveragesWithoutQuery() {
+        seed(row(1, 10, 6, 1));
+
+        statisticsService.recordMarkAdded(1L, 10L, 10);
+
+        assertEquals(8.0, statisticsService.getStudentAverage(1L));
+        assertEquals(8.0, statisticsService.getSubjectAverage(10L));
+        verify(markRepository, times(1)).countMarksByStudentSubjectAndValue();
+    }
+
+    @Test
+    void recordMarkRemoved_LastMark_ShouldReturnNullAverage() {
+        seed(row(1, 10, 6, 1));
+
+        statisticsService.recordMarkRemoved(1L, 10L, 6);
+
+        assertNull(statisticsService.getStudentAverage(1L));
+        assertNull(statisticsService.getSubjectAverage(10L));
+    }
+
+    @Test
+    void recordMarkAdded_BeforeSeed_ShouldBeIgnored() {
+        statisticsService.recordMarkAdded(1L, 10L, 10);
+
+        assertNull(statisticsService.getStudentAverage(1L));
+    }
+
+    @Test
+    void invalidate_WithoutTransaction_ShouldReloadImmediately() {
+        seed(row(1, 10, 6, 1));
+        when(markRepository.countMarksByStudentSubjectAndValue())
+                .thenReturn(new ArrayList<>(List.<Object[]>of(row(1, 10, 2, 1))));
+
+        statisticsService.invalidate();
+
+        assertTrue(statisticsService.isReady());
+        assertEquals(2.0, statisticsService.getStudentAverage(1L));
+    }
+
+    @Test
+    void getDistribution_ShouldReturnHistogramMedianAndP90() {
+        seed(row(1, 10, 4, 5), row(2, 10, 7, 4), row(3, 10, 10, 1));
+
+        MarkDistribution distribution =
+                statisticsService.getDistribution(StatisticsScope.SUBJECT, 10L);
+
+        assertEquals(10, distribution.count());
+        assertEquals(5.8, distribution.average(), 1e-9);
+        assertEquals(4, distribution.median());
+        assertEquals(7, distribution.p90());
+        assertArrayEquals(new int[] {0, 0, 0, 5, 0, 0, 4, 0, 0, 1}, distribution.histogram());
+    }
+
+    @Test
+    void getPercentile_ShouldUseNearestRank() {
+        seed(row(1, 10, 2, 1), row(1, 20, 9, 3));
+
+        assertEquals(2, statisticsService.getPercentile(StatisticsScope.STUDENT, 1L, 25));
+        assertEquals(9, statisticsService.getPercentile(StatisticsScope.STUDENT, 1L, 26));
+        assertEquals(9, statisticsService.getPercentile(StatisticsScope.STUDENT, 1L, 100));
+        assertNull(statisticsService.getPercentile(StatisticsScope.STUDENT, 2L, 50));
+    }
+
+    @Test
+    void getDistribution_Group_ShouldFollowStudentAssignments() {
+        when(studentRepository.findGroupAssignments())
+                .thenReturn(new ArrayList<>(List.<Object[]>of(new Object[] {1L, 100L})));
+        seed(row(1, 10, 8, 2), row(2, 10, 3, 1));
+
+        MarkDistribution group = statisticsService.getDistribution(StatisticsScope.GROUP, 100L);
+        assertEquals(2, group.count());
+        assertEquals(8.0, group.average());
+
+        statisticsService.recordMarkAdded(1L, 20L, 6);
+        statisticsService.recordStudentGroupChanged(2L, 100L);
+
+        group = statisticsService.getDistribution(StatisticsScope.GROUP, 100L);
+        assertEquals(4, group.count());
+        assertEquals(6.25, group.average());
+    }
+
+    @Test
+    void recordStudentGroupChanged_ShouldMoveMarksBetweenGroups() {
+        when(studentRepository.findGroupAssignments())
+                .thenReturn(new ArrayList<>(List.<Object[]>of(new Object[] {1L, 100L})));
+        seed(row(1, 10, 8, 2));
+
+        statisticsService.recordStudentGroupChanged(1L, 200L);
+
+        assertEquals(0, statisticsService.getDistribution(StatisticsScope.GROUP, 100L).count());
+        assertEquals(2, statisticsService.getDistribution(StatisticsScope.GROUP, 200L).count());
+    }
+
+    @Test
+    void getDistribution_BeforeSeed_ShouldCountInDatabase() {
+        when(markRepository.countMarksByValueForGroup(100L))
+                .thenReturn(new ArrayList<>(List.<Object[]>of(new Object[] {5, 3L})));
+
+        MarkDistribution distribution =
+                statisticsService.getDistribution(StatisticsScope.GROUP, 100L);
+
+        assertEquals(3, distribution.count());
+        assertEquals(5, distribution.median());
+        verify(markRepository, never()).countMarksByStudentSubjectAndValue();
+    }
+
+    @Test
+    void getTopStudents_ShouldOrderByAverageThenId() {
+        seed(row(1, 10, 6, 1), row(2, 10, 9, 1), row(3, 10, 6, 1), row(4, 20, 7, 2));
+
+        LeaderboardPage page = statisticsService.getTopStudents(0, 3);
+
+        assertEquals(4, page.total());
+        assertEquals(List.of(2L, 4L, 1L),
+                page.entries().stream().map(RankedStudent::studentId).toList());
+        assertEquals(3, page.entries().get(2).rank());
+
+        LeaderboardPage next = statisticsService.getTopStudents(3, 3);
+        assertEquals(1, next.entries().size());
+        assertEquals(new RankedStudent(4, 3L, 6.0), next.entries().get(0));
+    }
+
+    @Test
+    void getStudentRank_ShouldFollowIncrementalUpdates() {
+        seed(row(1, 10, 6, 1), row(2, 10, 9, 1));
+
+        assertEquals(2, statisticsService.getStudentRank(1L).rank());
+
+        statisticsService.recordMarkAdded(1L, 10L, 10);
+        statisticsService.recordMarkAdded(1L, 10L, 10);
+        statisticsService.recordMarkAdded(1L, 10L, 10);
+
+        assertEquals(1, statisticsService.getStudentRank(1L).rank());
+        assertEquals(2, statisticsService.getStudentRank(2L).rank());
+        assertNull(statisticsService.getStudentRank(3L));
+    }
+
+    @Test
+    void recordMarkAdded_Concurrently_ShouldRankLatestAverage() throws Exception {
+        seed(row(1, 10, 6, 1), row(2, 10, 9, 1));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                int value = i % 10 + 1;
+                futures.add(pool.submit(() -> statisticsService.recordMarkAdded(1L, 10L, value)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(statisticsService.getStudentAverage(1L),
+                statisticsService.getStudentRank(1L).average());
+        assertEquals(statisticsService.getStudentAverage(1L),
+                statisticsService.getStudentRank(StatisticsScope.SUBJECT, 10L, 1L).average());
+    }
+
+    @Test
+    void getTopStudents_PerSubjectAndGroup() {
+        when(studentRepository.findGroupAssignments())
+                .thenReturn(new ArrayList<>(List.<Object[]>of(new Object[] {1L, 100L},
+                        new Object[] {2L, 100L})));
+        seed(row(1, 10, 9, 1), row(1, 20, 2, 1), row(2, 20, 8, 1), row(3, 20, 10, 1));
+
+        LeaderboardPage subject = statisticsService.getTopStudents(StatisticsScope.SUBJECT, 20L, 0, 10);
+        assertEquals(List.of(3L, 2L, 1L),
+                subject.entries().stream().map(RankedStudent::studentId).toList());
+
+        LeaderboardPage group = statisticsService.getTopStudents(StatisticsScope.GROUP, 100L, 0, 10);
+        assertEquals(List.of(2L, 1L),
+                group.entries().stream().map(RankedStudent::studentId).toList());
+        assertEquals(2, statisticsService.getStudentRank(StatisticsScope.GROUP, 100L, 1L).rank());
+
+        statisticsService.recordStudentGroupChanged(2L, 200L);
+        assertNull(statisticsService.getStudentRank(StatisticsScope.GROUP, 100L, 2L));
+        assertEquals(1, statisticsService.getStudentRank(StatisticsScope.GROUP, 200L, 2L).rank());
+    }
+
+    @Test
+    void getTopStudents_BeforeSeed_ShouldLoadOnDemand() {
+        when(markRepository.countMarksByStudentSubjectAndValue())
+                .thenReturn(new ArrayList<>(List.<Object[]>of(row(1, 10, 5, 1))));
+
+        LeaderboardPage page = statisticsService.getTopStudents(0, 10);
+
+        assertEquals(1, page.total());
+        assertTrue(statisticsService.isReady());
+    }
+
+    @Test
+    void leaderboard_RandomUpdates_ShouldMatchSortedOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            long studentId = random.nextInt(300);
+            Double average = random.nextInt(5) == 0 ? null : 1 + random.nextInt(37) / 4.0;
+            leaderboard.update(studentId, average);
+            if (average != null) {
+                expected.put(studentId, average);
+            } else {
+                expected.remove(studentId);
+            }
+        }
+
+        List<Long> sorted = expected.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> -expected.get(id))
+                        .thenComparing(id -> id))
+                .toList();
+
+        assertEquals(sorted.size(), leaderboard.size());
+        assertEquals(sorted.subList(40, 70), leaderboard.page(40, 30).entries().stream()
+                .map(RankedStudent::studentId).toList());
+        for (int i = 0; i < sorted.size(); i += 17) {
+            assertEquals(i + 1, leaderboard.rank(sorted.get(i)).rank());
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package idespring.lab5.studentsubjservice;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.Enrollment;
+import idespring.lab5.dto.EnrollmentResult;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.model.Student;
+import idespring.lab5.model.StudentFetchProfile;
 import idespring.lab5.model.Subject;
+import idespring.lab5.repository.studentrepo.StudentReadRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.repository.studentrepo.StudentSubjectJdbcRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
 import idespring.lab5.service.studentsubjserv.StudentSubjectServiceImpl;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
@@ -17,7 +24,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -35,6 +41,15 @@ class StudentSubjectServiceImplTest {
     @Mock
     private SubjectRepository subjectRepository;
 
+    @Mock
+    private StudentSubjectJdbcRepository studentSubjectJdbcRepository;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
+    @Mock
+    private StudentReadRepository studentReadRepository;
+
     private CacheConfig<String, Object> cache;
 
     @InjectMocks
@@ -65,16 +80,14 @@ class StudentSubjectServiceImplTest {
     @Test
     void getStudentsBySubject_WhenCacheIsEmpty_ShouldFetchFromRepository() {
         // Arrange
-        Subject mockSubject = new Subject();
-        Set<Student> mockStudents = new HashSet<>();
-        mockStudents.add(new Student());
-        mockSubject.setStudents(mockStudents);
-
-        when(subjectRepository.findByIdWithStudents(SUBJECT_ID))
-                .thenReturn(Optional.of(mockSubject));
+        List<StudentView> mockStudents = List.of(
+                new StudentView(STUDENT_ID, "Anna", 20, null, List.of(), List.of()));
+        when(subjectRepository.existsById(SUBJECT_ID)).thenReturn(true);
+        when(studentReadRepository.findBySubjectId(SUBJECT_ID, StudentFetchProfile.FULL))
+                .thenReturn(mockStudents);
 
         // Act
-        Set<Student> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID);
+        List<StudentView> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID, null);
 
         // Assert
         assertNotNull(result);
@@ -85,19 +98,18 @@ class StudentSubjectServiceImplTest {
         assertNotNull(cachedResult);
         assertEquals(mockStudents, cachedResult);
 
-        verify(subjectRepository).findByIdWithStudents(SUBJECT_ID);
+        verify(studentReadRepository).findBySubjectId(SUBJECT_ID, StudentFetchProfile.FULL);
     }
 
     @Test
     void getStudentsBySubject_WhenRepositoryReturnsEmpty_ShouldThrowException() {
         // Arrange
-        when(subjectRepository.findByIdWithStudents(SUBJECT_ID))
-                .thenReturn(Optional.empty());
+        when(subjectRepository.existsById(SUBJECT_ID)).thenReturn(false);
 
         // Act & Assert
         EntityNotFoundException exception = assertThrows(
                 EntityNotFoundException.class,
-                () -> studentSubjectService.getStudentsBySubject(SUBJECT_ID)
+                () -> studentSubjectService.getStudentsBySubject(SUBJECT_ID, null)
         );
 
         assertEquals(SUBJECT_ERR, exception.getMessage());
@@ -105,7 +117,7 @@ class StudentSubjectServiceImplTest {
         // Verify no caching of non-existent subject
         assertNull(cache.get("students-" + SUBJECT_ID));
 
-        verify(subjectRepository).findByIdWithStudents(SUBJECT_ID);
+        verify(studentReadRepository, never()).findBySubjectId(anyLong(), any());
     }
 
     @Test
@@ -199,38 +211,37 @@ class StudentSubjectServiceImplTest {
     @Test
     void getStudentsBySubject_WhenCacheContainsValue_ShouldReturnCachedValue() {
         // Arrange
-        Set<Student> mockStudents = new HashSet<>();
-        mockStudents.add(new Student());
+        List<StudentView> mockStudents = List.of(
+                new StudentView(STUDENT_ID, "Anna", 20, null, List.of(), List.of()));
 
         // Manually put in cache
         cache.put("students-" + SUBJECT_ID, mockStudents);
 
         // Act
-        Set<Student> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID);
+        List<StudentView> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID, null);
 
         // Assert
         assertNotNull(result);
         assertEquals(mockStudents, result);
 
         // Verify no repository call
-        verify(subjectRepository, never()).findByIdWithStudents(SUBJECT_ID);
+        verify(studentReadRepository, never()).findBySubjectId(anyLong(), any());
     }
 
     @Test
     void getStudentsBySubject_WhenSubjectNotFound_ShouldThrowEntityNotFoundException() {
         // Arrange
-        when(subjectRepository.findByIdWithStudents(SUBJECT_ID))
-                .thenReturn(Optional.empty());
+        when(subjectRepository.existsById(SUBJECT_ID)).thenReturn(false);
 
         // Act & Assert
         EntityNotFoundException exception = assertThrows(
                 EntityNotFoundException.class,
-                () -> studentSubjectService.getStudentsBySubject(SUBJECT_ID)
+                () -> studentSubjectService.getStudentsBySubject(SUBJECT_ID, null)
         );
 
         // Дополнительные проверки
         assertEquals(SUBJECT_ERR, exception.getMessage());
-        verify(subjectRepository).findByIdWithStudents(SUBJECT_ID);
+        verify(studentReadRepository, never()).findBySubjectId(anyLong(), any());
 
         // Проверяем, что кэш пустой
         assertNull(cache.get("students-" + SUBJECT_ID));
@@ -343,14 +354,14 @@ class StudentSubjectServiceImplTest {
     @Test
     void getStudentsBySubject_WhenCacheEmpty_ShouldFetchAndCacheStudents() {
         // Arrange
-        Subject subject = new Subject();
-        Set<Student> students = new HashSet<>(Collections.singletonList(new Student()));
-        subject.setStudents(students);
-
-        when(subjectRepository.findByIdWithStudents(SUBJECT_ID)).thenReturn(Optional.of(subject));
+        List<StudentView> students = List.of(
+                new StudentView(STUDENT_ID, "Anna", 20, null, List.of(), List.of()));
+        when(subjectRepository.existsById(SUBJECT_ID)).thenReturn(true);
+        when(studentReadRepository.findBySubjectId(SUBJECT_ID, StudentFetchProfile.FULL))
+                .thenReturn(students);
 
         // Act
-        Set<Student> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID);
+        List<StudentView> result = studentSubjectService.getStudentsBySubject(SUBJECT_ID, null);
 
         // Assert
         assertEquals(students, result);
@@ -513,5 +524,40 @@ class StudentSubjectServiceImplTest {
         verify(studentRepository, never()).findByIdWithSubjects(anyLong());
     }
 
+    @Test
+    void enroll_ShouldInsertDistinctPairsAndReportExistingOnes() {
+        Enrollment first = new Enrollment(STUDENT_ID, SUBJECT_ID);
+        Enrollment second = new Enrollment(STUDENT_ID, 3L);
+        cache.put("subjects-" + STUDENT_ID, List.of());
+        cache.put("students-3", Set.of());
+        cache.put("students-" + SUBJECT_ID, Set.of());
+        when(studentSubjectJdbcRepository.findExistingStudentIds(Set.of(STUDENT_ID)))
+                .thenReturn(List.of(STUDENT_ID));
+        when(studentSubjectJdbcRepository.findExistingSubjectIds(Set.of(SUBJECT_ID, 3L)))
+                .thenReturn(List.of(SUBJECT_ID, 3L));
+        when(studentSubjectJdbcRepository.insertEnrollments(List.of(first, second)))
+                .thenReturn(List.of(second));
+
+        EnrollmentResult result = studentSubjectService.enroll(List.of(first, second, first));
+
+        assertEquals(List.of(second), result.enrolled());
+        assertEquals(List.of(first), result.alreadyEnrolled());
+        assertNull(cache.get("subjects-" + STUDENT_ID));
+        assertNull(cache.get("students-3"));
+        assertNotNull(cache.get("students-" + SUBJECT_ID));
+        verify(studentRepository, never()).addSubject(anyLong(), anyLong());
+    }
 
+    @Test
+    void enroll_UnknownSubject_ShouldThrowWithoutInserting() {
+        when(studentSubjectJdbcRepository.findExistingStudentIds(Set.of(STUDENT_ID)))
+                .thenReturn(List.of(STUDENT_ID));
+        when(studentSubjectJdbcRepository.findExistingSubjectIds(Set.of(SUBJECT_ID)))
+                .thenReturn(List.of());
+
+        List<Enrollment> enrollments = List.of(new Enrollment(STUDENT_ID, SUBJECT_ID));
+        assertThrows(idespring.lab5.exceptions.EntityNotFoundException.class,
+                () -> studentSubjectService.enroll(enrollments));
+        verify(studentSubjectJdbcRepository, never()).insertEnrollments(any());
+    }
 }
@@ -0,0 +1,59 @@
+package idespring.lab5.studservice;
+
+import idespring.lab5.dto.StudentExportRow;
+import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.service.studservice.StudentExportServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StudentExportServiceImplTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @InjectMocks
+    private StudentExportServiceImpl exportService;
+
+    @Test
+    void exportStudents_ShouldHandEveryRowToConsumerAndCloseStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<StudentExportRow> rows = List.of(
+                new StudentExportRow(1L, "Anna", 20, 3L),
+                new StudentExportRow(2L, "Boris", 21, null));
+        when(studentRepository.streamForExport(null))
+                .thenReturn(rows.stream().onClose(() -> closed.set(true)));
+
+        List<StudentExportRow> written = new ArrayList<>();
+        long count = exportService.exportStudents(null, written::add);
+
+        assertEquals(2, count);
+        assertEquals(rows, written);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportStudents_ConsumerFails_ShouldStillCloseStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(studentRepository.streamForExport(3L)).thenReturn(
+                Stream.of(new StudentExportRow(1L, "Anna", 20, 3L))
+                        .onClose(() -> closed.set(true)));
+
+        assertThrows(IllegalStateException.class, () -> exportService.exportStudents(3L,
+                row -> {
+                    throw new IllegalStateException("client disconnected");
+                }));
+        assertTrue(closed.get());
+    }
+}
@@ -1,11 +1,30 @@
 package idespring.lab5.studservice;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.GroupView;
+import idespring.lab5.dto.KeysetPage;
+import idespring.lab5.dto.PageCursor;
+import idespring.lab5.dto.StudentView;
 import idespring.lab5.exceptions.EntityNotFoundException;
+import idespring.lab5.exceptions.ValidationException;
 import idespring.lab5.model.Group;
+import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
+import idespring.lab5.model.StudentFetchProfile;
+import idespring.lab5.model.Subject;
+import idespring.lab5.repository.grouprepo.GroupRepository;
+import idespring.lab5.repository.studentrepo.StudentReadRepository;
 import idespring.lab5.repository.studentrepo.StudentRepository;
+import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
+import idespring.lab5.service.studservice.StudentBulkWriter;
 import idespring.lab5.service.studservice.StudentServiceImpl;
+import org.hibernate.collection.spi.PersistentSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +39,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.*;
+import java.util.function.Consumer;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,13 +51,38 @@ class StudentServiceImplTest {
     @Mock
     private StudentRepository studentRepository;
 
+    @Mock
+    private StudentReadRepository studentReadRepository;
+
     @Mock
     private CacheConfig<String, Object> cache;
 
+    @Mock
+    private MarkStatisticsService markStatisticsService;
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private GroupRepository groupRepository;
+
+    @Mock
+    private StudentBulkWriter studentBulkWriter;
+
+    @Mock
+    private NameIndex nameIndex;
+
     @InjectMocks
     private StudentServiceImpl studentService;
 
     private Student student;
+    private StudentView view;
     private final Long studentId = 1L;
     private final int age = 20;
     private final String sort = "asc";
@@ -48,6 +93,11 @@ class StudentServiceImplTest {
         student = new Student();
         student.setId(studentId);
         student.setAge(age);
+        view = new StudentView(studentId, null, age, null, List.of(), List.of());
+    }
+
+    private static StudentView otherView(long id) {
+        return new StudentView(id, "Student " + id, 20, null, List.of(), List.of());
     }
 
     @Test
@@ -61,12 +111,12 @@ class StudentServiceImplTest {
         String expectedCacheKey = age + "-" + sort + "-" + id;
 
         when(cache.get(expectedCacheKey)).thenReturn(null);
-        when(studentRepository.findById(id)).thenReturn(Optional.of(student));
+        when(studentReadRepository.findById(id, StudentFetchProfile.FULL)).thenReturn(Optional.of(view));
 
-        List<Student> result = studentService.readStudents(age, sort, id);
+        List<StudentView> result = studentService.readStudents(age, sort, id, null);
 
-        assertThat(result).containsExactly(student);
-        verify(cache).put(expectedCacheKey, Collections.singletonList(student));
+        assertThat(result).containsExactly(view);
+        verify(cache).put(expectedCacheKey, Collections.singletonList(view));
     }
 
     @Test
@@ -76,20 +126,20 @@ class StudentServiceImplTest {
         String sort = null;
         String expectedCacheKey = age + "-" + sort + "-" + id;
 
-        when(cache.get(expectedCacheKey)).thenReturn(Collections.singletonList(student));
+        when(cache.get(expectedCacheKey)).thenReturn(Collections.singletonList(view));
 
-        List<Student> result = studentService.readStudents(age, sort, id);
+        List<StudentView> result = studentService.readStudents(age, sort, id, null);
 
-        assertThat(result).containsExactly(student);
-        verify(studentRepository, never()).findById(any());
+        assertThat(result).containsExactly(view);
+        verify(studentReadRepository, never()).findById(anyLong(), any());
     }
 
     @Test
     void readStudents_WhenStudentNotFound_ShouldThrowException() {
         when(cache.get(any())).thenReturn(null);
-        when(studentRepository.findById(studentId)).thenReturn(Optional.empty());
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> studentService.readStudents(null, null, studentId))
+        assertThatThrownBy(() -> studentService.readStudents(null, null, studentId, null))
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("Student not found");
     }
@@ -98,12 +148,12 @@ class StudentServiceImplTest {
     void findByGroupId_WhenCacheMiss_ShouldFetchFromRepository() {
         Long groupId = 1L;
         String cacheKey = "group-" + groupId;
-        List<Student> students = List.of(student);
+        List<StudentView> students = List.of(view);
 
         when(cache.get(cacheKey)).thenReturn(null);
-        when(studentRepository.findByGroupId(groupId)).thenReturn(Set.of(student));
+        when(studentReadRepository.findByGroupId(groupId, StudentFetchProfile.FULL)).thenReturn(List.of(view));
 
-        List<Student> result = studentService.findByGroupId(groupId);
+        List<StudentView> result = studentService.findByGroupId(groupId, null);
 
         assertThat(result).isEqualTo(students);
         verify(cache).put(cacheKey, students);
@@ -113,29 +163,61 @@ class StudentServiceImplTest {
     void findByGroupId_WhenCacheHit_ShouldReturnFromCache() {
         Long groupId = 1L;
         String cacheKey = "group-" + groupId;
-        when(cache.get(cacheKey)).thenReturn(List.of(student));
+        when(cache.get(cacheKey)).thenReturn(List.of(view));
 
-        List<Student> result = studentService.findByGroupId(groupId);
+        List<StudentView> result = studentService.findByGroupId(groupId, null);
 
-        assertThat(result).containsExactly(student);
-        verify(studentRepository, never()).findByGroupId(any());
+        assertThat(result).containsExactly(view);
+        verify(studentReadRepository, never()).findByGroupId(anyLong(), any());
+    }
+
+    @Test
+    void searchByName_WhenIndexCanSearch_ShouldLoadIndexMatches() {
+        when(nameIndex.canSearch("oh")).thenReturn(true);
+        when(nameIndex.search(NameKind.STUDENT, "oh")).thenReturn(List.of(1L));
+        when(studentReadRepository.findByIds(List.of(1L), StudentFetchProfile.SUMMARY))
+                .thenReturn(List.of(view));
+
+        List<StudentView> result = studentService.searchByName("oh", "summary");
+
+        assertThat(result).containsExactly(view);
+        verify(studentReadRepository, never()).findByNameContaining(anyString(), any());
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void searchByName_WithLikeWildcards_ShouldFallBackToDatabase() {
+        when(studentReadRepository.findByNameContaining("J_hn", StudentFetchProfile.FULL))
+                .thenReturn(List.of(view));
+
+        List<StudentView> result = studentService.searchByName("J_hn", null);
+
+        assertThat(result).containsExactly(view);
+        verify(nameIndex, never()).search(any(), anyString());
+    }
+
+    @Test
+    void searchByName_EmptyPattern_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> studentService.searchByName("", null))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(studentReadRepository);
     }
 
     @Test
     void findById_WhenCacheMiss_ShouldFetchFromRepository() {
         when(cache.get(studentId.toString())).thenReturn(null);
-        when(studentRepository.findById(studentId)).thenReturn(Optional.of(student));
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL)).thenReturn(Optional.of(view));
 
-        Student result = studentService.findById(studentId);
+        StudentView result = studentService.findById(studentId);
 
-        assertThat(result).isEqualTo(student);
-        verify(cache).put(studentId.toString(), student);
+        assertThat(result).isEqualTo(view);
+        verify(cache).put(studentId.toString(), view);
     }
 
     @Test
     void findById_WhenStudentNotExists_ShouldThrowException() {
         when(cache.get(any())).thenReturn(null);
-        when(studentRepository.findById(studentId)).thenReturn(Optional.empty());
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> studentService.findById(studentId))
                 .isInstanceOf(EntityNotFoundException.class);
@@ -163,7 +245,8 @@ class StudentServiceImplTest {
         studentService.addStudent(newStudent);
 
         // 4. Проверки
-        verify(cache).put(eq("1"), eq(savedStudent));
+        verify(cache).remove("1");
+        verify(cache, never()).put(eq("1"), any());
 
         // Проверка очистки по возрасту (все возможные ключи)
         verify(cache).remove("25-null-null");
@@ -183,13 +266,11 @@ class StudentServiceImplTest {
     @Test
     void updateStudent_ShouldClearCacheForPreviousAge() {
         // 1. Подготовка данных
-        Student existingStudent = new Student();
-        existingStudent.setId(studentId);
-        existingStudent.setAge(20); // Предыдущий возраст
-        existingStudent.setGroup(new Group("Group A"));
+        StudentView existingStudent = new StudentView(studentId, "Old Name", 20, // Предыдущий возраст
+                new GroupView(5L, "Group A"), List.of(), List.of());
 
         // 2. Настройка моков
-        when(studentRepository.findById(studentId)).thenReturn(Optional.of(existingStudent));
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL)).thenReturn(Optional.of(existingStudent));
 
         // 3. Вызов метода
         studentService.updateStudent("New Name", 21, studentId);
@@ -199,6 +280,8 @@ class StudentServiceImplTest {
         verify(cache).remove("20-null-null"); // Предыдущий возраст без сортировки
         verify(cache).remove("20-asc-null"); // Предыдущий возраст с сортировкой
         verify(cache).remove("20-desc-null");
+        verify(cache).remove("group-5");
+        verify(nameIndex).recordSaved(NameKind.STUDENT, studentId, "New Name");
 
         // Проверка очистки общих списков
         verify(cache).remove("null-null-null");
@@ -256,18 +339,18 @@ class StudentServiceImplTest {
         String sort = "asc";
         String cacheKey = age + "-" + sort + "-null";
 
-        List<Student> expectedStudents = List.of(new Student(), new Student());
+        List<StudentView> expectedStudents = List.of(otherView(2L), otherView(2L));
 
         when(cache.get(cacheKey)).thenReturn(null);
-        when(studentRepository.findByAgeAndSortByName(age, sort)).thenReturn(expectedStudents);
+        when(studentReadRepository.findStudents(age, sort, StudentFetchProfile.FULL)).thenReturn(expectedStudents);
 
         // Вызов
-        List<Student> result = studentService.readStudents(age, sort, null);
+        List<StudentView> result = studentService.readStudents(age, sort, null, null);
 
         // Проверки
         assertThat(result).isEqualTo(expectedStudents);
         verify(cache).put(cacheKey, expectedStudents);
-        verify(studentRepository).findByAgeAndSortByName(age, sort);
+        verify(studentReadRepository).findStudents(age, sort, StudentFetchProfile.FULL);
     }
 
     @Test
@@ -276,14 +359,14 @@ class StudentServiceImplTest {
         String sort = "asc";
         String cacheKey = age + "-" + sort + "-null";
 
-        List<Student> cachedStudents = List.of(new Student());
+        List<StudentView> cachedStudents = List.of(otherView(2L));
 
         when(cache.get(cacheKey)).thenReturn(cachedStudents);
 
-        List<Student> result = studentService.readStudents(age, sort, null);
+        List<StudentView> result = studentService.readStudents(age, sort, null, null);
 
         assertThat(result).isSameAs(cachedStudents);
-        verify(studentRepository, never()).findByAgeAndSortByName(anyInt(), anyString());
+        verify(studentReadRepository, never()).findStudents(any(), any(), any());
     }
 
     @Test
@@ -291,11 +374,11 @@ class StudentServiceImplTest {
         Integer age = 25;
         String cacheKey = age + "-null-null";
 
-        Set<Student> repoStudents = Set.of(new Student(), new Student());
+        List<StudentView> repoStudents = List.of(otherView(2L), otherView(2L));
         when(cache.get(cacheKey)).thenReturn(null);
-        when(studentRepository.findByAge(age)).thenReturn(repoStudents);
+        when(studentReadRepository.findStudents(age, null, StudentFetchProfile.FULL)).thenReturn(repoStudents);
 
-        List<Student> result = studentService.readStudents(age, null, null);
+        List<StudentView> result = studentService.readStudents(age, null, null, null);
 
         assertThat(result).containsExactlyElementsOf(repoStudents);
         verify(cache).put(cacheKey, result);
@@ -306,11 +389,11 @@ class StudentServiceImplTest {
         String sort = "desc";
         String cacheKey = "null-" + sort + "-null";
 
-        List<Student> expected = List.of(new Student());
+        List<StudentView> expected = List.of(otherView(2L));
         when(cache.get(cacheKey)).thenReturn(null);
-        when(studentRepository.sortByName(sort)).thenReturn(expected);
+        when(studentReadRepository.findStudents(null, sort, StudentFetchProfile.FULL)).thenReturn(expected);
 
-        List<Student> result = studentService.readStudents(null, sort, null);
+        List<StudentView> result = studentService.readStudents(null, sort, null, null);
 
         assertThat(result).isSameAs(expected);
         verify(cache).put(cacheKey, expected);
@@ -320,11 +403,11 @@ class StudentServiceImplTest {
     void readStudents_WhenAllParamsNull_ShouldUseFindAll() {
         String cacheKey = "null-null-null";
 
-        List<Student> allStudents = List.of(new Student(), new Student());
+        List<StudentView> allStudents = List.of(otherView(2L), otherView(2L));
         when(cache.get(cacheKey)).thenReturn(null);
-        when(studentRepository.findAll()).thenReturn(allStudents);
+        when(studentReadRepository.findStudents(null, null, StudentFetchProfile.FULL)).thenReturn(allStudents);
 
-        List<Student> result = studentService.readStudents(null, null, null);
+        List<StudentView> result = studentService.readStudents(null, null, null, null);
 
         assertThat(result).isEqualTo(allStudents);
         verify(cache).put(cacheKey, allStudents);
@@ -345,13 +428,12 @@ class StudentServiceImplTest {
     ) {
         // Настройка моков
         if (id != null) {
-            Student student = new Student();
-            student.setId(id);
-            when(studentRepository.findById(id)).thenReturn(Optional.of(student));
+            when(studentReadRepository.findById(id, StudentFetchProfile.FULL))
+                    .thenReturn(Optional.of(otherView(id)));
         }
 
         // Вызов метода
-        studentService.readStudents(age, sort, id);
+        studentService.readStudents(age, sort, id, null);
 
         // Проверка
         verify(cache).get(expectedKey);
@@ -389,18 +471,18 @@ class StudentServiceImplTest {
 
     @Test
     void readStudents_WhenAllParamsNull_ShouldCallFindAll() {
-        studentService.readStudents(null, null, null);
+        studentService.readStudents(null, null, null, null);
 
         verify(cache).get("null-null-null");
-        verify(studentRepository).findAll();
+        verify(studentReadRepository).findStudents(null, null, StudentFetchProfile.FULL);
     }
 
     @Test
     void readStudents_WithAgeOnly_ShouldCallFindByAge() {
-        studentService.readStudents(25, null, null);
+        studentService.readStudents(25, null, null, null);
 
         verify(cache).get("25-null-null");
-        verify(studentRepository).findByAge(25);
+        verify(studentReadRepository).findStudents(25, null, StudentFetchProfile.FULL);
     }
 
     @Test
@@ -436,4 +518,198 @@ class StudentServiceImplTest {
         verify(cache).remove("null-asc-null");
         verify(cache).remove("null-desc-null");
     }
-}
\ No newline at end of file
+
+    @Test
+    void readStudentsPage_SortedByName_ShouldEncodeNameAndIdInCursor() {
+        StudentView first = new StudentView(studentId, "Anna", age, null, List.of(), List.of());
+        StudentView next = new StudentView(2L, "Boris", age, null, List.of(), List.of());
+        StudentView lookAhead = new StudentView(3L, "Clara", age, null, List.of(), List.of());
+        when(studentReadRepository.findPage(null, "asc", null, 2, StudentFetchProfile.FULL))
+                .thenReturn(List.of(first, next, lookAhead));
+
+        KeysetPage<StudentView> page = studentService.readStudentsPage(null, "asc", null, 2, null);
+
+        assertThat(page.items()).containsExactly(first, next);
+        assertThat(PageCursor.decode(page.nextCursor())).isEqualTo(new PageCursor("Boris", 2L));
+    }
+
+    @Test
+    void readStudents_SummaryView_ShouldIssueOneReadWithSummaryProfile() {
+        when(studentReadRepository.findStudents(20, "asc", StudentFetchProfile.SUMMARY))
+                .thenReturn(List.of(view));
+
+        List<StudentView> result = studentService.readStudents(20, "asc", null, "summary");
+
+        assertThat(result).containsExactly(view);
+        verify(cache).put("20-asc-null-summary", result);
+        verify(studentReadRepository, times(1)).findStudents(20, "asc", StudentFetchProfile.SUMMARY);
+        verifyNoMoreInteractions(studentReadRepository);
+        verifyNoInteractions(studentRepository);
+    }
+
+    @Test
+    void findByGroupId_WithSubjectsView_ShouldIssueOneQuery() {
+        when(studentReadRepository.findByGroupId(3L, StudentFetchProfile.WITH_SUBJECTS))
+                .thenReturn(List.of(view));
+
+        studentService.findByGroupId(3L, "withSubjects");
+
+        verify(studentReadRepository, times(1)).findByGroupId(3L, StudentFetchProfile.WITH_SUBJECTS);
+        verifyNoMoreInteractions(studentReadRepository);
+        verifyNoInteractions(studentRepository);
+    }
+
+    @Test
+    void readStudents_UnknownView_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> studentService.readStudents(null, null, null, "everything"))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(studentReadRepository);
+    }
+
+    @Test
+    void deleteStudent_ShouldClearCachesForEveryView() {
+        Group group = new Group("Group");
+        group.setId(4L);
+        student.setGroup(group);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+
+        studentService.deleteStudent(studentId);
+
+        verify(cache).remove("group-4-summary");
+        verify(cache).remove("group-4-withSubjects");
+        verify(cache).remove(student.getAge() + "-asc-null-withSubjects");
+        verify(cache).remove("null-null-null-summary");
+    }
+
+    @Test
+    void serialization_ShouldOmitAssociationsOutsideTheFetchedGraph() throws Exception {
+        student.setName("Anna");
+        student.setSubjects(new PersistentSet<>());
+        student.setMarks(new PersistentSet<>());
+
+        String json = new ObjectMapper().writeValueAsString(student);
+
+        assertThat(json).contains("\"name\":\"Anna\"")
+                .doesNotContain("subjects")
+                .doesNotContain("marks");
+    }
+
+    @Test
+    void readStudentsPage_InvalidCursor_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> studentService.readStudentsPage(null, null, "%%%", 10, null))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addStudents_ShouldWriteInChunksAndInvalidateOncePerAgeAndGroup() {
+        Group group = new Group();
+        group.setId(1L);
+        Student first = new Student("Anna", 20, null, new HashSet<>());
+        first.setGroup(group);
+        first.setSubjects(new HashSet<>(Set.of(new Subject(5L))));
+        Student second = new Student("Boris", 20, null, new HashSet<>());
+        second.setGroup(group);
+        List<Student> students = List.of(first, second);
+        when(subjectRepository.findExistingIds(Set.of(5L))).thenReturn(List.of(5L));
+        when(groupRepository.findExistingIds(Set.of(1L))).thenReturn(List.of(1L));
+        doAnswer(invocation -> {
+            first.setId(10L);
+            second.setId(11L);
+            Consumer<List<Student>> inTransaction = invocation.getArgument(1);
+            inTransaction.accept(students);
+            return null;
+        }).when(studentBulkWriter).write(eq(students), any());
+
+        List<Student> result = studentService.addStudents(students);
+
+        assertThat(result).containsExactly(first, second);
+        verify(markStatisticsService).recordStudentGroupChanged(10L, 1L);
+        verify(markStatisticsService).recordStudentGroupChanged(11L, 1L);
+        verify(columnarMarkStore).recordStudentGroupChanged(10L, 1L);
+        verify(cache, times(1)).remove("20-null-null");
+        verify(cache, times(1)).remove("group-1");
+        verify(cache, times(1)).remove("null-null-null");
+        verify(studentRepository, never()).save(any());
+    }
+
+    @Test
+    void addStudents_UnknownSubject_ShouldThrowBeforeWriting() {
+        Student newStudent = new Student("Anna", 20, null, new HashSet<>());
+        newStudent.setSubjects(new HashSet<>(Set.of(new Subject(5L), new Subject(6L))));
+        when(subjectRepository.findExistingIds(Set.of(5L, 6L))).thenReturn(List.of(5L));
+
+        assertThatThrownBy(() -> studentService.addStudents(List.of(newStudent)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("6");
+        verifyNoInteractions(studentBulkWriter);
+    }
+
+    @Test
+    void addStudents_WithMarks_ShouldThrowValidationException() {
+        Student newStudent = new Student("Anna", 20, null, new HashSet<>());
+        newStudent.setMarks(new HashSet<>(Set.of(new Mark())));
+
+        assertThatThrownBy(() -> studentService.addStudents(List.of(newStudent)))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(studentBulkWriter);
+    }
+
+    @Test
+    void addStudents_WriterFails_ShouldStillInvalidateCaches() {
+        Student newStudent = new Student("Anna", 21, null, new HashSet<>());
+        doThrow(new IllegalStateException("chunk failed"))
+                .when(studentBulkWriter).write(any(), any());
+
+        assertThatThrownBy(() -> studentService.addStudents(List.of(newStudent)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(cache).remove("21-null-null");
+        verify(cache).remove("null-null-null");
+    }
+
+    // Backs the mocked cache with a map, so values written by one call are read by the next.
+    private Map<String, Object> mapBackedCache() {
+        Map<String, Object> entries = new HashMap<>();
+        lenient().doAnswer(invocation -> entries.put(invocation.getArgument(0),
+                invocation.getArgument(1))).when(cache).put(any(), any());
+        lenient().when(cache.get(any())).thenAnswer(invocation ->
+                entries.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> entries.remove(invocation.<String>getArgument(0)))
+                .when(cache).remove(any());
+        return entries;
+    }
+
+    @Test
+    void addStudent_ThenFindById_ShouldReturnView() {
+        mapBackedCache();
+        Student newStudent = new Student("Anna", 20, null, new HashSet<>());
+        Student savedStudent = new Student("Anna", 20, null, new HashSet<>());
+        savedStudent.setId(studentId);
+        when(studentRepository.save(any())).thenReturn(savedStudent);
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL))
+                .thenReturn(Optional.of(view));
+
+        studentService.addStudent(newStudent);
+        StudentView result = studentService.findById(studentId);
+
+        assertThat(result).isEqualTo(view);
+        assertThat(studentService.findById(studentId)).isEqualTo(view);
+        verify(studentReadRepository, times(1)).findById(studentId, StudentFetchProfile.FULL);
+    }
+
+    @Test
+    void addStudent_ThenUpdate_ShouldUpdate() {
+        mapBackedCache();
+        Student newStudent = new Student("Anna", 20, null, new HashSet<>());
+        Student savedStudent = new Student("Anna", 20, null, new HashSet<>());
+        savedStudent.setId(studentId);
+        when(studentRepository.save(any())).thenReturn(savedStudent);
+        when(studentReadRepository.findById(studentId, StudentFetchProfile.FULL))
+                .thenReturn(Optional.of(view));
+
+        studentService.addStudent(newStudent);
+        studentService.updateStudent("Anna Petrova", 21, studentId);
+
+        verify(studentRepository).update("Anna Petrova", 21, studentId);
+    }
+}
@@ -5,12 +5,18 @@ import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.any;
 
 import idespring.lab5.config.CacheConfig;
+import idespring.lab5.dto.KeysetPage;
 import idespring.lab5.exceptions.EntityNotFoundException;
 import idespring.lab5.model.Mark;
 import idespring.lab5.model.Student;
 import idespring.lab5.model.Subject;
 import idespring.lab5.repository.markrepo.MarkRepository;
 import idespring.lab5.repository.subjectrepo.SubjectRepository;
+import idespring.lab5.service.eventlog.MarkEventLog;
+import idespring.lab5.service.searchservice.NameIndex;
+import idespring.lab5.service.searchservice.NameKind;
+import idespring.lab5.service.statservice.ColumnarMarkStore;
+import idespring.lab5.service.statservice.MarkStatisticsService;
 import idespring.lab5.service.subjectservice.SubjectServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +40,18 @@ public class SubjectServiceImplTest {
     @Mock
     private CacheConfig<String, Object> cache;
 
+    @Mock
+    private MarkStatisticsService markStatisticsService;
+
+    @Mock
+    private ColumnarMarkStore columnarMarkStore;
+
+    @Mock
+    private MarkEventLog markEventLog;
+
+    @Mock
+    private NameIndex nameIndex;
+
     @InjectMocks
     private SubjectServiceImpl subjectService;
 
@@ -72,6 +90,19 @@ public class SubjectServiceImplTest {
         verify(cache).put(eq(namePattern + "-default"), eq(subjects));
     }
 
+    @Test
+    void readSubjects_ShouldAnswerFromNameIndex_WhenIndexCanSearch() {
+        when(nameIndex.canSearch("ath")).thenReturn(true);
+        when(nameIndex.search(NameKind.SUBJECT, "ath")).thenReturn(List.of(1L));
+        when(subjectRepository.findAllById(List.of(1L))).thenReturn(List.of(testSubject));
+
+        List<Subject> result = subjectService.readSubjects("ath", null);
+
+        assertEquals(List.of(testSubject), result);
+        verify(subjectRepository, never()).findByNameContaining(any());
+        verify(cache, never()).put(any(), any());
+    }
+
     // Тесты для findById()
     @Test
     void findById_ShouldThrowException_WhenSubjectNotFound() {
@@ -118,6 +149,7 @@ public class SubjectServiceImplTest {
         verify(cache).remove("avg-student-100");
         verify(cache).remove("mark-" + mark.getId());
         verify(subjectRepository).deleteById(1L);
+        verify(nameIndex).recordRemoved(NameKind.SUBJECT, List.of(1L));
     }
 
     // Тесты для addSubject()
@@ -129,6 +161,7 @@ public class SubjectServiceImplTest {
 
         verify(cache).put("subject-1", testSubject);
         verify(cache).put("subject-Math", testSubject);
+        verify(nameIndex).recordSaved(NameKind.SUBJECT, 1L, "Math");
     }
 
     // Тесты для findByName()
@@ -352,4 +385,16 @@ public class SubjectServiceImplTest {
         assertFalse(result);
         verify(subjectRepository).existsByName(nonExistingName);
     }
+
+    @Test
+    void readSubjectsPage_AfterAddSubject_ShouldDropCachedPages() {
+        when(subjectRepository.findPage(null, null, null, 10)).thenReturn(List.of(testSubject));
+        when(subjectRepository.save(testSubject)).thenReturn(testSubject);
+
+        KeysetPage<Subject> page = subjectService.readSubjectsPage(null, null, null, 10);
+        subjectService.addSubject(testSubject);
+
+        assertEquals(List.of(testSubject), page.items());
+        verify(cache).remove("subjects-page-null-null-null-10");
+    }
 }